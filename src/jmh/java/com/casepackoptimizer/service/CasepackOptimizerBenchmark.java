@@ -0,0 +1,120 @@
+package com.casepackoptimizer.service;
+
+import com.casepackoptimizer.allocation.AllocationMode;
+import com.casepackoptimizer.allocation.GreedyStoreAllocator;
+import com.casepackoptimizer.allocation.LargestRemainderStoreAllocator;
+import com.casepackoptimizer.allocation.StoreAllocator;
+import com.casepackoptimizer.allocation.WarehouseStrategy;
+import com.casepackoptimizer.cache.CasepackResultCache;
+import com.casepackoptimizer.config.CasepackOptimizerProperties;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import com.casepackoptimizer.metrics.CasepackMetrics;
+import com.casepackoptimizer.model.IndexedIntMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state cost of the optimizer and its two main phases. Requests are built the way the
+ * streaming deserializer builds them, so the numbers exclude JSON binding.
+ *
+ * <p>supplyRatio is total available items divided by total need: below 1 exercises the fair
+ * share (shortage) branch, above 1 the surplus branch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class CasepackOptimizerBenchmark {
+
+    @Param({"100", "10000", "100000", "1000000"})
+    private int storeCount;
+
+    @Param({"10", "200"})
+    private int warehouseCount;
+
+    @Param({"6", "24"})
+    private int packSize;
+
+    @Param({"0.6", "1.5"})
+    private double supplyRatio;
+
+    @Param({"GREEDY", "LARGEST_REMAINDER"})
+    private AllocationMode allocationMode;
+
+    @Param({"ROUND_ROBIN", "LARGEST_REMAINDER"})
+    private WarehouseStrategy warehouseStrategy;
+
+    private CasepackOptimizerService service;
+    private CasepackOptimizerRequest request;
+    private StoreAllocator storeAllocator;
+    private double[] expectedAllocations;
+    private int casepacks;
+    private String[] warehouseIds;
+    private int[] warehouseQty;
+    private int totalAllocatedCasepacks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        String[] storeIds = new String[storeCount];
+        int[] needs = new int[storeCount];
+        long totalNeed = 0;
+        for (int i = 0; i < storeCount; i++) {
+            storeIds[i] = "store" + i;
+            // Roughly one in ten stores has no need, the rest need up to 20 packs
+            needs[i] = random.nextInt(10) == 0 ? 0 : random.nextInt(packSize * 20) + 1;
+            totalNeed += needs[i];
+        }
+
+        long totalPacks = Math.max(1, (long) (totalNeed * supplyRatio / packSize));
+        warehouseIds = new String[warehouseCount];
+        warehouseQty = new int[warehouseCount];
+        for (int w = 0; w < warehouseCount; w++) {
+            warehouseIds[w] = "warehouse" + w;
+            warehouseQty[w] = (int) (totalPacks / warehouseCount + (w < totalPacks % warehouseCount ? 1 : 0));
+        }
+
+        request = new CasepackOptimizerRequest();
+        request.setCasePacks(Collections.singletonList(new CasepackOptimizerRequest.CasePack(1,
+                Collections.singletonList(new CasepackOptimizerRequest.CasePack.SizeRatio(packSize)))));
+        request.setNeedPerStore(new IndexedIntMap(storeIds, needs));
+        request.setWarehouseAvailableQty(new IndexedIntMap(warehouseIds, warehouseQty));
+        request.setAllocationMode(allocationMode);
+
+        CasepackOptimizerProperties properties = new CasepackOptimizerProperties();
+        properties.getWarehouse().setStrategy(warehouseStrategy);
+        service = new CasepackOptimizerService(properties, CasepackMetrics.noop(), CasepackResultCache.disabled());
+        storeAllocator = allocationMode == AllocationMode.GREEDY
+                ? new GreedyStoreAllocator()
+                : new LargestRemainderStoreAllocator();
+
+        int totalAvailableItems = (int) (totalPacks * packSize);
+        expectedAllocations = service.calculateExpectedAllocations(needs, totalAvailableItems, (int) totalNeed);
+        casepacks = totalAvailableItems / packSize;
+        totalAllocatedCasepacks = 0;
+        for (int packs : storeAllocator.allocate(expectedAllocations, casepacks, packSize)) {
+            totalAllocatedCasepacks += packs;
+        }
+    }
+
+    @Benchmark
+    public CasepackOptimizerResponse optimizeCasepacks() {
+        return service.optimizeCasepacks(request);
+    }
+
+    @Benchmark
+    public int[] storeAllocation() {
+        return storeAllocator.allocate(expectedAllocations, casepacks, packSize);
+    }
+
+    @Benchmark
+    public int[] warehouseDistribution() {
+        return service.calculateWarehouseDistributions(warehouseIds, warehouseQty, totalAllocatedCasepacks);
+    }
+}
@@ -0,0 +1,19 @@
+package com.casepackoptimizer;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/**
+ * Runs the bulk file allocation without starting the web server, for example:
+ * {@code --casepack.bulk.needs=needs.csv --casepack.bulk.stock=stock.csv
+ * --casepack.bulk.casepacks=casepacks.csv --casepack.bulk.output=allocations.csv}.
+ */
+public class CasepackBulkApplication {
+
+    public static void main(String[] args) {
+        System.exit(SpringApplication.exit(new SpringApplicationBuilder(CasepackOptimizerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args)));
+    }
+}
@@ -2,8 +2,10 @@ package com.casepackoptimizer;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class CasepackOptimizerApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,122 @@
+package com.casepackoptimizer.allocation;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap over store indices that tracks where each index sits, so the key of any index
+ * can change and be re-sifted in O(log n). Keys live in a caller-owned {@code double[]}.
+ * A max heap orders equal keys by the lower index first; a min heap is its exact reverse.
+ */
+final class AddressableHeap {
+
+    private final double[] keys;
+    private final boolean max;
+    private final int[] heap;
+    private final int[] positions;
+    private int size;
+
+    AddressableHeap(double[] keys, boolean max) {
+        this.keys = keys;
+        this.max = max;
+        this.heap = new int[keys.length];
+        this.positions = new int[keys.length];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Adds an index without restoring heap order; call {@link #heapify()} once all are added.
+     */
+    void addUnordered(int index) {
+        positions[index] = size;
+        heap[size++] = index;
+    }
+
+    void heapify() {
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int peek() {
+        return heap[0];
+    }
+
+    /**
+     * Inserts, re-sifts or removes {@code index} after its key changed.
+     */
+    void update(int index, boolean present) {
+        int pos = positions[index];
+        if (pos < 0) {
+            if (present) {
+                addUnordered(index);
+                siftUp(size - 1);
+            }
+            return;
+        }
+
+        if (!present) {
+            positions[index] = -1;
+            int lastIndex = heap[--size];
+            if (pos == size) {
+                return;
+            }
+            heap[pos] = lastIndex;
+            positions[lastIndex] = pos;
+            index = lastIndex;
+        }
+        if (pos > 0 && before(index, heap[(pos - 1) >>> 1])) {
+            siftUp(pos);
+        } else {
+            siftDown(pos);
+        }
+    }
+
+    private void siftUp(int pos) {
+        int index = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!before(index, heap[parent])) {
+                break;
+            }
+            place(heap[parent], pos);
+            pos = parent;
+        }
+        place(index, pos);
+    }
+
+    private void siftDown(int pos) {
+        int index = heap[pos];
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = (pos << 1) + 1;
+            int right = child + 1;
+            if (right < size && before(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!before(heap[child], index)) {
+                break;
+            }
+            place(heap[child], pos);
+            pos = child;
+        }
+        place(index, pos);
+    }
+
+    private void place(int index, int pos) {
+        heap[pos] = index;
+        positions[index] = pos;
+    }
+
+    private boolean before(int a, int b) {
+        double ka = keys[a];
+        double kb = keys[b];
+        if (max) {
+            return ka > kb || (ka == kb && a < b);
+        }
+        return ka < kb || (ka == kb && a > b);
+    }
+}
@@ -0,0 +1,18 @@
+package com.casepackoptimizer.allocation;
+
+/**
+ * Strategy used to turn fair-share item targets into whole casepacks.
+ */
+public enum AllocationMode {
+
+    /**
+     * Hand out one casepack at a time to the store with the largest remaining need.
+     */
+    GREEDY,
+
+    /**
+     * Give every store floor(target / itemsPerCasepack) and the leftover packs to the
+     * largest fractional remainders. Runs in O(stores) regardless of the casepack count.
+     */
+    LARGEST_REMAINDER
+}
@@ -0,0 +1,43 @@
+package com.casepackoptimizer.allocation;
+
+/**
+ * Hands out casepacks one at a time to the store with the largest remaining need.
+ *
+ * <p>This produces the same allocation as scanning every store for each pack, but keeps the
+ * candidates in an {@link IndexedMaxHeap}, so the cost is O(stores + casepacks * log stores).
+ * When two stores have exactly the same remaining need, the one that appears first in the
+ * request wins the pack. With caps, a store leaves the heap as soon as it reaches its cap.
+ */
+public class GreedyStoreAllocator implements StoreAllocator {
+
+    @Override
+    public int[] allocate(double[] targets, int casepacks, int itemsPerCasepack, int[] caps) {
+        int[] allocations = new int[targets.length];
+        double[] remainingNeeds = targets.clone();
+        if (caps != null) {
+            // Stores without room are never candidates
+            for (int i = 0; i < caps.length; i++) {
+                if (caps[i] <= 0) {
+                    remainingNeeds[i] = 0;
+                }
+            }
+        }
+        IndexedMaxHeap candidates = IndexedMaxHeap.ofPositive(remainingNeeds);
+
+        int remainingCasepacks = casepacks;
+        while (remainingCasepacks > 0 && !candidates.isEmpty()) {
+            int store = candidates.peek();
+            allocations[store]++;
+            remainingNeeds[store] -= itemsPerCasepack;
+            remainingCasepacks--;
+
+            if (remainingNeeds[store] > 0 && (caps == null || allocations[store] < caps[store])) {
+                candidates.topDecreased();
+            } else {
+                candidates.poll();
+            }
+        }
+
+        return allocations;
+    }
+}
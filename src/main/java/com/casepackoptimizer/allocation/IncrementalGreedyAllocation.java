@@ -0,0 +1,188 @@
+package com.casepackoptimizer.allocation;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Greedy store allocation that can be repaired in place when store targets or the number of
+ * casepacks change.
+ *
+ * <p>The greedy allocation hands out the {@code casepacks} largest positive priorities
+ * {@code target - k * itemsPerCasepack}, ties going to the lower store index. This class keeps
+ * the priority of each store's next pack in a max heap and of its last pack in a min heap. After
+ * a change it only moves packs while a candidate outranks a pack that was handed out, so an
+ * update costs O(moved packs * log stores) and ends in exactly the allocation
+ * {@link GreedyStoreAllocator} would compute from scratch.
+ */
+public class IncrementalGreedyAllocation {
+
+    private final double[] targets;
+    private final int[] allocations;
+    private final int itemsPerCasepack;
+    // Priority of the next pack each store would receive, and of the last pack it received
+    private final double[] nextKeys;
+    private final double[] lastKeys;
+    private final AddressableHeap next;
+    private final AddressableHeap last;
+    private int casepacks;
+    private int allocated;
+
+    // Stores whose count changed since the last clearChanges(), with their count before
+    private final BitSet touched = new BitSet();
+    private int[] journalStores = new int[16];
+    private int[] journalCounts = new int[16];
+    private int journalSize;
+
+    public IncrementalGreedyAllocation(double[] targets, int casepacks, int itemsPerCasepack) {
+        if (itemsPerCasepack <= 0) {
+            throw new IllegalArgumentException("Casepack must contain at least one item");
+        }
+        this.targets = targets.clone();
+        this.itemsPerCasepack = itemsPerCasepack;
+        this.casepacks = Math.max(casepacks, 0);
+        this.allocations = new GreedyStoreAllocator().allocate(this.targets, this.casepacks, itemsPerCasepack);
+        this.nextKeys = new double[targets.length];
+        this.lastKeys = new double[targets.length];
+        this.next = new AddressableHeap(nextKeys, true);
+        this.last = new AddressableHeap(lastKeys, false);
+
+        for (int store = 0; store < targets.length; store++) {
+            allocated += allocations[store];
+            computeKeys(store);
+            if (nextKeys[store] > 0) {
+                next.addUnordered(store);
+            }
+            if (allocations[store] > 0) {
+                last.addUnordered(store);
+            }
+        }
+        next.heapify();
+        last.heapify();
+    }
+
+    public int storeCount() {
+        return allocations.length;
+    }
+
+    public int allocationAt(int store) {
+        return allocations[store];
+    }
+
+    public int[] allocations() {
+        return allocations.clone();
+    }
+
+    public int allocated() {
+        return allocated;
+    }
+
+    public int casepacks() {
+        return casepacks;
+    }
+
+    public void updateTarget(int store, double target) {
+        targets[store] = target;
+        // Packs whose priority is no longer positive are returned first
+        while (allocations[store] > 0 && lastPriority(store) <= 0) {
+            record(store);
+            allocations[store]--;
+            allocated--;
+        }
+        refresh(store);
+        rebalance();
+    }
+
+    public void updateCasepacks(int casepacks) {
+        this.casepacks = Math.max(casepacks, 0);
+        rebalance();
+    }
+
+    /**
+     * Stores whose allocation differs from what it was at the last {@link #clearChanges()}.
+     */
+    public int[] changedStores() {
+        int[] changed = new int[journalSize];
+        int count = 0;
+        for (int i = 0; i < journalSize; i++) {
+            if (allocations[journalStores[i]] != journalCounts[i]) {
+                changed[count++] = journalStores[i];
+            }
+        }
+        Arrays.sort(changed, 0, count);
+        return Arrays.copyOf(changed, count);
+    }
+
+    public void clearChanges() {
+        for (int i = 0; i < journalSize; i++) {
+            touched.clear(journalStores[i]);
+        }
+        journalSize = 0;
+    }
+
+    private void rebalance() {
+        // Take back the weakest packs while more are handed out than are available
+        while (allocated > casepacks) {
+            take(last.peek());
+        }
+        // Hand free packs to the strongest candidates
+        while (allocated < casepacks && !next.isEmpty()) {
+            give(next.peek());
+        }
+        // Swap while a candidate outranks a pack that was handed out
+        while (!next.isEmpty() && !last.isEmpty() && outranks(next.peek(), last.peek())) {
+            int from = last.peek();
+            int to = next.peek();
+            take(from);
+            give(to);
+        }
+    }
+
+    private boolean outranks(int candidate, int holder) {
+        double candidateKey = nextKeys[candidate];
+        double holderKey = lastKeys[holder];
+        return candidateKey > holderKey || (candidateKey == holderKey && candidate < holder);
+    }
+
+    private void give(int store) {
+        record(store);
+        allocations[store]++;
+        allocated++;
+        refresh(store);
+    }
+
+    private void take(int store) {
+        record(store);
+        allocations[store]--;
+        allocated--;
+        refresh(store);
+    }
+
+    private void refresh(int store) {
+        computeKeys(store);
+        next.update(store, nextKeys[store] > 0);
+        last.update(store, allocations[store] > 0);
+    }
+
+    // target - k * itemsPerCasepack is exact, so these match the greedy allocator's repeated subtraction
+    private void computeKeys(int store) {
+        nextKeys[store] = targets[store] - (double) allocations[store] * itemsPerCasepack;
+        lastKeys[store] = lastPriority(store);
+    }
+
+    private double lastPriority(int store) {
+        return targets[store] - (double) (allocations[store] - 1) * itemsPerCasepack;
+    }
+
+    private void record(int store) {
+        if (touched.get(store)) {
+            return;
+        }
+        touched.set(store);
+        if (journalSize == journalStores.length) {
+            journalStores = Arrays.copyOf(journalStores, journalSize * 2);
+            journalCounts = Arrays.copyOf(journalCounts, journalSize * 2);
+        }
+        journalStores[journalSize] = store;
+        journalCounts[journalSize++] = allocations[store];
+    }
+}
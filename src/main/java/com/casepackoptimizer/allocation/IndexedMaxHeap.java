@@ -0,0 +1,86 @@
+package com.casepackoptimizer.allocation;
+
+/**
+ * Binary max-heap over store indices, ordered by a caller-owned {@code double[]} of keys.
+ * Equal keys are ordered by the lower index first, which makes every pop deterministic.
+ * The heap never boxes: it only stores {@code int} indices and reads keys in place.
+ */
+final class IndexedMaxHeap {
+
+    private final double[] keys;
+    private final int[] heap;
+    private int size;
+
+    IndexedMaxHeap(double[] keys) {
+        this.keys = keys;
+        this.heap = new int[keys.length];
+    }
+
+    /**
+     * Builds a heap of every index whose key is positive in O(n).
+     */
+    static IndexedMaxHeap ofPositive(double[] keys) {
+        IndexedMaxHeap result = new IndexedMaxHeap(keys);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] > 0) {
+                result.heap[result.size++] = i;
+            }
+        }
+        for (int i = (result.size >>> 1) - 1; i >= 0; i--) {
+            result.siftDown(i);
+        }
+        return result;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int peek() {
+        return heap[0];
+    }
+
+    int poll() {
+        int top = heap[0];
+        heap[0] = heap[--size];
+        if (size > 0) {
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Restores heap order after the key of the top index was decreased.
+     */
+    void topDecreased() {
+        siftDown(0);
+    }
+
+    private void siftDown(int pos) {
+        int index = heap[pos];
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = (pos << 1) + 1;
+            int right = child + 1;
+            if (right < size && before(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!before(heap[child], index)) {
+                break;
+            }
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = index;
+    }
+
+    private boolean before(int a, int b) {
+        double ka = keys[a];
+        double kb = keys[b];
+        return ka > kb || (ka == kb && a < b);
+    }
+}
@@ -0,0 +1,66 @@
+package com.casepackoptimizer.allocation;
+
+/**
+ * Closed-form apportionment of casepacks: every store first receives
+ * floor(target / itemsPerCasepack), and the packs left over go to the stores with the
+ * largest fractional remainders (ties to the store listed first).
+ *
+ * <p>If there are enough packs to round every store up, each store gets
+ * ceil(target / itemsPerCasepack), which is what the greedy loop does in the surplus case.
+ * The work is O(stores) no matter how many casepacks are handed out. A store at its cap keeps
+ * the cap and takes no part in the rounding.
+ */
+public class LargestRemainderStoreAllocator implements StoreAllocator {
+
+    private final StoreAllocator fallback = new GreedyStoreAllocator();
+
+    @Override
+    public int[] allocate(double[] targets, int casepacks, int itemsPerCasepack, int[] caps) {
+        int storeCount = targets.length;
+        int[] allocations = new int[storeCount];
+        double[] remainders = new double[storeCount];
+        int[] candidates = new int[storeCount];
+        int candidateCount = 0;
+        long floorTotal = 0;
+
+        for (int i = 0; i < storeCount; i++) {
+            if (targets[i] > 0) {
+                double quotient = targets[i] / itemsPerCasepack;
+                double whole = Math.floor(quotient);
+                if (caps != null && whole >= caps[i]) {
+                    allocations[i] = Math.max(0, caps[i]);
+                    floorTotal += allocations[i];
+                    continue;
+                }
+                allocations[i] = (int) whole;
+                floorTotal += allocations[i];
+                remainders[i] = quotient - whole;
+                if (remainders[i] > 0) {
+                    candidates[candidateCount++] = i;
+                }
+            }
+        }
+
+        if (floorTotal > casepacks) {
+            // Targets add up to more than the supply; only possible with inconsistent targets
+            return fallback.allocate(targets, casepacks, itemsPerCasepack, caps);
+        }
+
+        long leftover = casepacks - floorTotal;
+        if (leftover >= candidateCount) {
+            // Enough supply to round every store up to a full casepack
+            for (int i = 0; i < candidateCount; i++) {
+                allocations[candidates[i]]++;
+            }
+            return allocations;
+        }
+
+        int k = (int) leftover;
+        TopKSelector.select(candidates, candidateCount, k, remainders);
+        for (int i = 0; i < k; i++) {
+            allocations[candidates[i]]++;
+        }
+
+        return allocations;
+    }
+}
@@ -0,0 +1,60 @@
+package com.casepackoptimizer.allocation;
+
+/**
+ * Single-pass warehouse distribution. Warehouse {@code w} first ships
+ * floor(available[w] * total / stock); the remainders {@code available[w] * total mod stock}
+ * are exact integers, and the leftover packs go to the largest of them (ties to the warehouse
+ * listed first) through a linear-time selection.
+ *
+ * <p>The total is below the stock, so every floor plus one still fits within the warehouse's
+ * own stock, and fewer packs are left over than there are non-zero remainders. The result
+ * always sums to the total and each warehouse is visited once.
+ */
+public class LargestRemainderWarehouseDistributor implements WarehouseDistributor {
+
+    @Override
+    public int[] distribute(String[] warehouseIds, int[] available, int totalAllocatedCasepacks) {
+        int warehouseCount = available.length;
+        long totalAvailable = 0;
+        long stock = 0;
+        for (int qty : available) {
+            totalAvailable += qty;
+            stock += Math.max(qty, 0);
+        }
+
+        if (totalAllocatedCasepacks >= totalAvailable) {
+            // Use all warehouse inventory
+            return available.clone();
+        }
+
+        int[] distributions = new int[warehouseCount];
+        if (totalAllocatedCasepacks <= 0) {
+            return distributions;
+        }
+
+        double[] remainders = new double[warehouseCount];
+        int[] candidates = new int[warehouseCount];
+        int candidateCount = 0;
+        long floorTotal = 0;
+        for (int w = 0; w < warehouseCount; w++) {
+            if (available[w] > 0) {
+                long share = (long) available[w] * totalAllocatedCasepacks;
+                distributions[w] = (int) (share / stock);
+                floorTotal += distributions[w];
+                // Remainders are below stock, so they are exact as doubles
+                remainders[w] = share % stock;
+                if (remainders[w] > 0) {
+                    candidates[candidateCount++] = w;
+                }
+            }
+        }
+
+        int k = (int) Math.min(totalAllocatedCasepacks - floorTotal, candidateCount);
+        TopKSelector.select(candidates, candidateCount, k, remainders);
+        for (int i = 0; i < k; i++) {
+            distributions[candidates[i]]++;
+        }
+
+        return distributions;
+    }
+}
@@ -0,0 +1,427 @@
+package com.casepackoptimizer.allocation;
+
+import java.util.Arrays;
+
+/**
+ * Assigns allocated casepacks to store-warehouse lanes at minimum total lane cost, as a
+ * transportation problem: warehouse {@code w} supplies {@code warehousePacks[w]}, store {@code s}
+ * demands {@code storePacks[s]}, and packs may only move on the given lanes.
+ *
+ * <p>The network is source, warehouses, stores, sink. Arcs are laid out by tail node, so the arcs
+ * leaving {@code u} are {@code start[u]} up to {@code start[u + 1]} and are scanned in order, and
+ * {@code reverse[e]} is the residual partner of arc {@code e}. A Dinic max flow first routes as
+ * many packs as the lanes can carry, ignoring cost. Cost scaling push-relabel then makes that
+ * flow cheapest without changing what any warehouse ships or any store receives: costs are
+ * multiplied by the node count, and each refine pass divides the optimality slack
+ * {@code epsilon} by {@link #SCALE}, so an exact optimum takes about log(nodes * max cost) passes
+ * whatever the spread of lane costs. Global price updates keep the passes short on the warehouse
+ * hubs. Costs are integers, so reduced costs are compared exactly.
+ */
+public final class MinCostSourcingFlow {
+
+    private static final int SCALE = 8;
+    // Arcs scanned by relabels between global price updates, per arc in the network
+    private static final int UPDATE_WORK = 2;
+
+    private final int nodeCount;
+    private final int source;
+    private final int sink;
+    private final int[] start;
+    private final int[] to;
+    private final int[] reverse;
+    private final int[] capacity;
+    private final long[] cost;
+    // Forward arc of each lane, -1 for lanes that cannot carry anything
+    private final int[] laneArcs;
+
+    private final int[] levels;
+    private final int[] queue;
+    private final int[] currentArc;
+    private final int[] path;
+    private final long[] prices;
+    private final int[] excess;
+    private final boolean[] queued;
+    private final int[] distance;
+    private final boolean[] scanned;
+    private final int[] bucketHead;
+    private final int[] bucketNext;
+    private final int[] bucketPrev;
+
+    private MinCostSourcingFlow(int[] storePacks, int[] warehousePacks,
+                                int[] laneStores, int[] laneWarehouses, long[] laneCosts) {
+        int warehouseCount = warehousePacks.length;
+        int storeCount = storePacks.length;
+        nodeCount = warehouseCount + storeCount + 2;
+        source = 0;
+        sink = nodeCount - 1;
+
+        // Edges in creation order, laid out by tail node below
+        int maxEdges = warehouseCount + storeCount + laneStores.length;
+        int[] edgeFrom = new int[maxEdges];
+        int[] edgeTo = new int[maxEdges];
+        int[] edgeCapacity = new int[maxEdges];
+        long[] edgeCost = new long[maxEdges];
+        int[] laneEdges = new int[laneStores.length];
+        int edges = 0;
+        for (int w = 0; w < warehouseCount; w++) {
+            if (warehousePacks[w] > 0) {
+                edgeFrom[edges] = source;
+                edgeTo[edges] = 1 + w;
+                edgeCapacity[edges++] = warehousePacks[w];
+            }
+        }
+        for (int l = 0; l < laneStores.length; l++) {
+            int s = laneStores[l];
+            int w = laneWarehouses[l];
+            // A lane never needs to carry more than its store receives or its warehouse ships
+            int limit = Math.min(storePacks[s], warehousePacks[w]);
+            if (limit <= 0) {
+                laneEdges[l] = -1;
+                continue;
+            }
+            laneEdges[l] = edges;
+            edgeFrom[edges] = 1 + w;
+            edgeTo[edges] = 1 + warehouseCount + s;
+            edgeCapacity[edges] = limit;
+            edgeCost[edges++] = laneCosts[l];
+        }
+        for (int s = 0; s < storeCount; s++) {
+            if (storePacks[s] > 0) {
+                edgeFrom[edges] = 1 + warehouseCount + s;
+                edgeTo[edges] = sink;
+                edgeCapacity[edges++] = storePacks[s];
+            }
+        }
+
+        start = new int[nodeCount + 1];
+        for (int e = 0; e < edges; e++) {
+            start[edgeFrom[e] + 1]++;
+            start[edgeTo[e] + 1]++;
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            start[v + 1] += start[v];
+        }
+        to = new int[2 * edges];
+        reverse = new int[2 * edges];
+        capacity = new int[2 * edges];
+        cost = new long[2 * edges];
+        int[] forwardArcs = new int[edges];
+        int[] fill = Arrays.copyOf(start, nodeCount);
+        for (int e = 0; e < edges; e++) {
+            int forward = fill[edgeFrom[e]]++;
+            int backward = fill[edgeTo[e]]++;
+            to[forward] = edgeTo[e];
+            to[backward] = edgeFrom[e];
+            reverse[forward] = backward;
+            reverse[backward] = forward;
+            capacity[forward] = edgeCapacity[e];
+            cost[forward] = edgeCost[e];
+            cost[backward] = -edgeCost[e];
+            forwardArcs[e] = forward;
+        }
+        laneArcs = new int[laneStores.length];
+        for (int l = 0; l < laneStores.length; l++) {
+            laneArcs[l] = laneEdges[l] >= 0 ? forwardArcs[laneEdges[l]] : -1;
+        }
+
+        levels = new int[nodeCount];
+        queue = new int[nodeCount];
+        currentArc = new int[nodeCount];
+        path = new int[nodeCount];
+        prices = new long[nodeCount];
+        excess = new int[nodeCount];
+        queued = new boolean[nodeCount];
+        distance = new int[nodeCount];
+        scanned = new boolean[nodeCount];
+        bucketHead = new int[nodeCount + 1];
+        bucketNext = new int[nodeCount];
+        bucketPrev = new int[nodeCount];
+    }
+
+    /**
+     * @param storePacks     casepacks each store receives
+     * @param warehousePacks casepacks each warehouse ships; sums to the same total as the stores
+     * @param laneStores     store index of each lane
+     * @param laneWarehouses warehouse index of each lane
+     * @param laneCosts      cost per casepack of each lane, between 0 and
+     *                       {@link #maxLaneCost(int, int)}
+     * @return casepacks per lane; the total falls short of the allocation when the lanes cannot
+     *         carry it all
+     */
+    public static int[] solve(int[] storePacks, int[] warehousePacks,
+                              int[] laneStores, int[] laneWarehouses, long[] laneCosts) {
+        long maxCost = maxLaneCost(storePacks.length, warehousePacks.length);
+        for (long cost : laneCosts) {
+            if (cost < 0 || cost > maxCost) {
+                throw new IllegalArgumentException("Lane cost " + cost + " is outside 0 to " + maxCost);
+            }
+        }
+        return new MinCostSourcingFlow(storePacks, warehousePacks, laneStores, laneWarehouses, laneCosts).run();
+    }
+
+    /**
+     * Largest lane cost the solver accepts for the given network. Costs are scaled by the node
+     * count and prices move by up to a few times the node count times the scaled cost, so this
+     * keeps {@code 8 * cost * nodes * nodes} inside a long.
+     */
+    public static long maxLaneCost(int storeCount, int warehouseCount) {
+        long nodes = (long) storeCount + warehouseCount + 2;
+        return Long.MAX_VALUE / 8 / nodes / nodes;
+    }
+
+    private int[] run() {
+        while (levelResidual()) {
+            System.arraycopy(start, 0, currentArc, 0, nodeCount);
+            while (augment()) {
+                // Keep pushing along the current level graph until it is blocked
+            }
+        }
+        minimizeCost();
+
+        int[] lanePacks = new int[laneArcs.length];
+        for (int l = 0; l < laneArcs.length; l++) {
+            if (laneArcs[l] >= 0) {
+                // Flow on an arc is the residual capacity of its reverse
+                lanePacks[l] = capacity[reverse[laneArcs[l]]];
+            }
+        }
+        return lanePacks;
+    }
+
+    // Breadth-first levels over residual arcs
+    private boolean levelResidual() {
+        Arrays.fill(levels, -1);
+        levels[source] = 0;
+        queue[0] = source;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int e = start[u]; e < start[u + 1]; e++) {
+                int v = to[e];
+                if (levels[v] < 0 && capacity[e] > 0) {
+                    levels[v] = levels[u] + 1;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return levels[sink] >= 0;
+    }
+
+    /**
+     * Finds one source-sink path along increasing levels and pushes its bottleneck. Current arcs
+     * skip arcs already found useless and dead ends leave the level graph. The search is
+     * iterative because residual paths can be long.
+     */
+    private boolean augment() {
+        int depth = 0;
+        int u = source;
+        while (u != sink) {
+            int next = -1;
+            for (; currentArc[u] < start[u + 1]; currentArc[u]++) {
+                int e = currentArc[u];
+                if (capacity[e] > 0 && levels[to[e]] == levels[u] + 1) {
+                    next = e;
+                    break;
+                }
+            }
+            if (next >= 0) {
+                path[depth++] = next;
+                u = to[next];
+                continue;
+            }
+            if (depth == 0) {
+                return false;
+            }
+            levels[u] = -1;
+            u = to[reverse[path[--depth]]];
+            currentArc[u]++;
+        }
+
+        int bottleneck = Integer.MAX_VALUE;
+        for (int k = 0; k < depth; k++) {
+            bottleneck = Math.min(bottleneck, capacity[path[k]]);
+        }
+        for (int k = 0; k < depth; k++) {
+            capacity[path[k]] -= bottleneck;
+            capacity[reverse[path[k]]] += bottleneck;
+        }
+        return true;
+    }
+
+    // Cost scaling only moves flow on lanes, which keeps every warehouse and store total fixed
+    private boolean isLaneNode(int v) {
+        return v != source && v != sink;
+    }
+
+    private void minimizeCost() {
+        long maxCost = 0;
+        for (int e = 0; e < cost.length; e++) {
+            // Scaled by the node count, a flow that is 1-optimal is optimal
+            cost[e] *= nodeCount;
+            maxCost = Math.max(maxCost, cost[e]);
+        }
+        long epsilon = maxCost;
+        while (epsilon > 1) {
+            epsilon = Math.max(1, epsilon / SCALE);
+            refine(epsilon);
+        }
+    }
+
+    /**
+     * Saturates every lane with negative reduced cost, then pushes the resulting excess along
+     * admissible lanes, lowering a node's price by at least {@code epsilon} whenever it has none,
+     * until no node holds excess. Afterwards no residual lane has reduced cost below
+     * {@code -epsilon}.
+     */
+    private void refine(long epsilon) {
+        for (int u = 1; u < sink; u++) {
+            for (int e = start[u]; e < start[u + 1]; e++) {
+                int v = to[e];
+                if (capacity[e] > 0 && isLaneNode(v) && cost[e] + prices[u] - prices[v] < 0) {
+                    int packs = capacity[e];
+                    capacity[e] = 0;
+                    capacity[reverse[e]] += packs;
+                    excess[u] -= packs;
+                    excess[v] += packs;
+                }
+            }
+        }
+
+        updatePrices(epsilon);
+        // Counted in arcs, since a warehouse relabel scans every lane the warehouse serves
+        long updateInterval = (long) UPDATE_WORK * to.length;
+        long workSinceUpdate = 0;
+        int head = 0;
+        int size = 0;
+        for (int u = 1; u < sink; u++) {
+            if (excess[u] > 0) {
+                queue[(head + size++) % nodeCount] = u;
+                queued[u] = true;
+            }
+        }
+        while (size > 0) {
+            int u = queue[head];
+            head = (head + 1) % nodeCount;
+            size--;
+            queued[u] = false;
+
+            while (excess[u] > 0) {
+                int e = currentArc[u];
+                if (e == start[u + 1]) {
+                    relabel(u, epsilon);
+                    currentArc[u] = start[u];
+                    workSinceUpdate += start[u + 1] - start[u];
+                    if (workSinceUpdate >= updateInterval) {
+                        updatePrices(epsilon);
+                        workSinceUpdate = 0;
+                    }
+                    continue;
+                }
+                int v = to[e];
+                if (capacity[e] == 0 || !isLaneNode(v) || cost[e] + prices[u] - prices[v] >= 0) {
+                    currentArc[u]++;
+                    continue;
+                }
+                int packs = Math.min(excess[u], capacity[e]);
+                capacity[e] -= packs;
+                capacity[reverse[e]] += packs;
+                excess[u] -= packs;
+                excess[v] += packs;
+                if (excess[v] > 0 && !queued[v]) {
+                    queue[(head + size++) % nodeCount] = v;
+                    queued[v] = true;
+                }
+            }
+        }
+    }
+
+    private void relabel(int u, long epsilon) {
+        long best = Long.MIN_VALUE;
+        for (int e = start[u]; e < start[u + 1]; e++) {
+            if (capacity[e] > 0 && isLaneNode(to[e])) {
+                best = Math.max(best, prices[to[e]] - cost[e]);
+            }
+        }
+        // A node only holds excess that arrived over a lane, so that lane's reverse is residual
+        prices[u] = best - epsilon;
+    }
+
+    /**
+     * Global price update: lowers every price by {@code epsilon} times the node's distance to the
+     * nearest deficit, measuring a residual lane as its reduced cost in whole {@code epsilon}
+     * plus one. Prices stay {@code epsilon}-optimal, and excess then finds admissible paths
+     * straight to the deficits instead of climbing there one relabel at a time. Distances are
+     * small integers, so a bucket queue replaces the heap. Also resets the current arcs.
+     */
+    private void updatePrices(long epsilon) {
+        Arrays.fill(bucketHead, -1);
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        Arrays.fill(scanned, false);
+        int waiting = 0;
+        for (int v = 1; v < sink; v++) {
+            currentArc[v] = start[v];
+            if (excess[v] < 0) {
+                distance[v] = 0;
+                bucketInsert(v);
+            } else if (excess[v] > 0) {
+                waiting++;
+            }
+        }
+
+        int maxLevel = bucketHead.length - 1;
+        int level = 0;
+        for (; level <= maxLevel && waiting > 0; level++) {
+            while (bucketHead[level] >= 0) {
+                int v = bucketHead[level];
+                bucketRemove(v);
+                scanned[v] = true;
+                if (excess[v] > 0) {
+                    waiting--;
+                }
+                // Relax the residual lanes u -> v that lead into v
+                for (int i = start[v]; i < start[v + 1]; i++) {
+                    int u = to[i];
+                    int e = reverse[i];
+                    if (scanned[u] || capacity[e] == 0 || !isLaneNode(u)) {
+                        continue;
+                    }
+                    long reach = level + Math.floorDiv(cost[e] + prices[u] - prices[v], epsilon) + 1;
+                    if (reach < distance[u] && reach <= maxLevel) {
+                        if (distance[u] != Integer.MAX_VALUE) {
+                            bucketRemove(u);
+                        }
+                        distance[u] = (int) reach;
+                        bucketInsert(u);
+                    }
+                }
+            }
+        }
+
+        // Every node closer than the first unfinished level is scanned; the rest share that level
+        for (int v = 1; v < sink; v++) {
+            prices[v] -= epsilon * (scanned[v] ? distance[v] : level);
+        }
+    }
+
+    private void bucketInsert(int v) {
+        int head = bucketHead[distance[v]];
+        bucketNext[v] = head;
+        bucketPrev[v] = -1;
+        if (head >= 0) {
+            bucketPrev[head] = v;
+        }
+        bucketHead[distance[v]] = v;
+    }
+
+    private void bucketRemove(int v) {
+        if (bucketPrev[v] >= 0) {
+            bucketNext[bucketPrev[v]] = bucketNext[v];
+        } else {
+            bucketHead[distance[v]] = bucketNext[v];
+        }
+        if (bucketNext[v] >= 0) {
+            bucketPrev[bucketNext[v]] = bucketPrev[v];
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.casepackoptimizer.allocation;
+
+import java.util.Arrays;
+
+/**
+ * Fills each store's item target from several casepack types at once, choosing the mix of packs
+ * whose item count is closest to the target.
+ *
+ * <p>A single coin-change table over item amounts is built once per request and shared by every
+ * store, and reconstructed mixes are memoised per amount, so stores with the same need cost one
+ * lookup. Targets beyond the table are first reduced by whole packs of the largest type; above
+ * (largest units)^2 every multiple of the units' gcd is reachable, so this does not change the
+ * answer.
+ *
+ * <p>When the ideal mixes need more packs of a type than are available, stores are served in
+ * descending target order (ties to the store listed first). A store whose ideal mix cannot be
+ * met takes what is left of it and fills the rest of its target from the remaining types.
+ */
+public class MixedCasepackSolver {
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int[] units;
+    private final int largestType;
+    private final int bound;
+    private final int[] minPacks;
+    private final int[] lastType;
+    private final int[] nearestBelow;
+    private final int[] nearestAbove;
+    private final int[][] mixCache;
+
+    /**
+     * @param units     items per casepack for each type
+     * @param maxTarget largest store target the solver will be asked about
+     */
+    public MixedCasepackSolver(int[] units, double maxTarget) {
+        this.units = units.clone();
+        int largest = 0;
+        for (int t = 1; t < units.length; t++) {
+            if (units[t] > units[largest]) {
+                largest = t;
+            }
+        }
+        this.largestType = largest;
+        int maxUnit = units[largest];
+        this.bound = maxUnit * maxUnit + 2 * maxUnit;
+
+        int size = (int) Math.min(bound, Math.ceil(Math.max(maxTarget, 0))) + maxUnit + 1;
+        this.minPacks = new int[size];
+        this.lastType = new int[size];
+        Arrays.fill(minPacks, 1, size, UNREACHABLE);
+        for (int amount = 1; amount < size; amount++) {
+            for (int t = 0; t < units.length; t++) {
+                int previous = amount - units[t];
+                if (previous >= 0 && minPacks[previous] != UNREACHABLE && minPacks[previous] + 1 < minPacks[amount]) {
+                    minPacks[amount] = minPacks[previous] + 1;
+                    lastType[amount] = t;
+                }
+            }
+        }
+
+        this.nearestBelow = new int[size];
+        for (int amount = 1; amount < size; amount++) {
+            nearestBelow[amount] = minPacks[amount] != UNREACHABLE ? amount : nearestBelow[amount - 1];
+        }
+        this.nearestAbove = new int[size];
+        nearestAbove[size - 1] = minPacks[size - 1] != UNREACHABLE ? size - 1 : -1;
+        for (int amount = size - 2; amount >= 0; amount--) {
+            nearestAbove[amount] = minPacks[amount] != UNREACHABLE ? amount : nearestAbove[amount + 1];
+        }
+        this.mixCache = new int[size][];
+    }
+
+    public int typeCount() {
+        return units.length;
+    }
+
+    /**
+     * Returns the pack count per type whose item total deviates least from {@code target}.
+     * Ties prefer the smaller item total. The returned array must not be modified.
+     */
+    public int[] idealMix(double target) {
+        if (target <= 0) {
+            return mixFor(0);
+        }
+
+        int shift = 0;
+        if (target > bound) {
+            shift = (int) Math.ceil((target - bound) / units[largestType]);
+            target -= (double) shift * units[largestType];
+        }
+
+        int below = nearestBelow[(int) Math.floor(target)];
+        int above = nearestAbove[(int) Math.ceil(target)];
+        int amount = above < 0 || target - below <= above - target ? below : above;
+
+        int[] mix = mixFor(amount);
+        if (shift > 0) {
+            mix = mix.clone();
+            mix[largestType] += shift;
+        }
+        return mix;
+    }
+
+    /**
+     * Allocates every store from the shared supply.
+     *
+     * @param targets        item target per store
+     * @param available      packs available per type
+     * @param maxTotalPacks  packs available across all types
+     * @return packs per store and type, laid out as {@code [store * typeCount + type]}
+     */
+    public int[] allocate(double[] targets, int[] available, int maxTotalPacks) {
+        int typeCount = units.length;
+        int storeCount = targets.length;
+        int[] mixes = new int[storeCount * typeCount];
+        long[] demand = new long[typeCount];
+        long totalDemand = 0;
+
+        for (int i = 0; i < storeCount; i++) {
+            int[] mix = idealMix(targets[i]);
+            for (int t = 0; t < typeCount; t++) {
+                mixes[i * typeCount + t] = mix[t];
+                demand[t] += mix[t];
+                totalDemand += mix[t];
+            }
+        }
+
+        boolean feasible = totalDemand <= maxTotalPacks;
+        for (int t = 0; t < typeCount && feasible; t++) {
+            feasible = demand[t] <= available[t];
+        }
+        if (feasible) {
+            return mixes;
+        }
+
+        // Not enough packs for every ideal mix: serve the largest targets first
+        Integer[] order = new Integer[storeCount];
+        for (int i = 0; i < storeCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> targets[a] != targets[b] ? Double.compare(targets[b], targets[a]) : Integer.compare(a, b));
+
+        int[] remaining = available.clone();
+        int remainingTotal = maxTotalPacks;
+        for (int store : order) {
+            int base = store * typeCount;
+            double residual = Math.max(targets[store], 0);
+            for (int t = 0; t < typeCount; t++) {
+                int packs = Math.min(Math.min(mixes[base + t], remaining[t]), remainingTotal);
+                mixes[base + t] = packs;
+                remaining[t] -= packs;
+                remainingTotal -= packs;
+                residual -= (double) packs * units[t];
+            }
+            remainingTotal = fillResidual(mixes, base, residual, remaining, remainingTotal);
+        }
+
+        return mixes;
+    }
+
+    private int fillResidual(int[] mixes, int base, double residual, int[] remaining, int remainingTotal) {
+        while (residual > 0 && remainingTotal > 0) {
+            // Largest pack that still fits, otherwise one more pack if it lands closer to the target
+            int best = -1;
+            for (int t = 0; t < units.length; t++) {
+                if (remaining[t] > 0 && units[t] <= residual && (best < 0 || units[t] > units[best])) {
+                    best = t;
+                }
+            }
+            if (best < 0) {
+                for (int t = 0; t < units.length; t++) {
+                    if (remaining[t] > 0 && (best < 0 || units[t] < units[best])) {
+                        best = t;
+                    }
+                }
+                if (best < 0 || units[best] - residual >= residual) {
+                    break;
+                }
+            }
+            mixes[base + best]++;
+            remaining[best]--;
+            remainingTotal--;
+            residual -= units[best];
+        }
+        return remainingTotal;
+    }
+
+    private int[] mixFor(int amount) {
+        int[] cached = mixCache[amount];
+        if (cached == null) {
+            cached = new int[units.length];
+            for (int left = amount; left > 0; left -= units[lastType[left]]) {
+                cached[lastType[left]]++;
+            }
+            mixCache[amount] = cached;
+        }
+        return cached;
+    }
+}
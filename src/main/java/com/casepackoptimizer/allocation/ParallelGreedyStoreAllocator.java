@@ -0,0 +1,103 @@
+package com.casepackoptimizer.allocation;
+
+import java.util.stream.IntStream;
+
+/**
+ * Computes the {@link GreedyStoreAllocator} result with data-parallel passes instead of handing
+ * out packs one at a time.
+ *
+ * <p>The greedy loop hands out the {@code casepacks} largest positive priorities
+ * {@code target - k * itemsPerCasepack}, ties going to the lower store index. This allocator
+ * bisects over the bit patterns of non-negative doubles for the priority of the last pack
+ * handed out, counting in parallel how many priorities lie above each probe. Every store then
+ * takes its priorities above that value, and the packs still missing go to the lowest-index
+ * stores whose next priority equals it. At most 64 O(stores) passes run, each spread over the
+ * fork/join pool, and the result is identical to the sequential allocator. With caps, a store
+ * only counts its first {@code caps[i]} priorities.
+ */
+public class ParallelGreedyStoreAllocator implements StoreAllocator {
+
+    @Override
+    public int[] allocate(double[] targets, int casepacks, int itemsPerCasepack, int[] caps) {
+        int[] allocations = new int[targets.length];
+        if (casepacks <= 0) {
+            return allocations;
+        }
+
+        long positive = countAbove(targets, 0, itemsPerCasepack, caps);
+        if (positive <= casepacks) {
+            // Every positive priority fits: each store is filled up to its target or cap
+            fill(allocations, targets, 0, itemsPerCasepack, caps);
+            return allocations;
+        }
+
+        // Invariant: at least casepacks priorities lie above lo, fewer than casepacks above hi
+        double maxTarget = IntStream.range(0, targets.length).parallel()
+                .mapToDouble(i -> targets[i])
+                .max()
+                .orElse(0);
+        long lo = Double.doubleToLongBits(0.0);
+        long hi = Double.doubleToLongBits(maxTarget);
+        while (hi - lo > 1) {
+            long mid = (lo + hi) >>> 1;
+            if (countAbove(targets, Double.longBitsToDouble(mid), itemsPerCasepack, caps) < casepacks) {
+                hi = mid;
+            } else {
+                lo = mid;
+            }
+        }
+        double lastPriority = Double.longBitsToDouble(hi);
+
+        fill(allocations, targets, lastPriority, itemsPerCasepack, caps);
+        long handedOut = IntStream.of(allocations).parallel().asLongStream().sum();
+
+        // The remaining packs all have priority lastPriority; lower store indices win the ties
+        int ties = (int) (casepacks - handedOut);
+        int[] tiedStores = IntStream.range(0, targets.length).parallel()
+                .filter(i -> targets[i] - (double) allocations[i] * itemsPerCasepack == lastPriority
+                        && (caps == null || allocations[i] < caps[i]))
+                .limit(ties)
+                .toArray();
+        for (int store : tiedStores) {
+            allocations[store]++;
+        }
+
+        return allocations;
+    }
+
+    private static long countAbove(double[] targets, double threshold, int itemsPerCasepack, int[] caps) {
+        return IntStream.range(0, targets.length).parallel()
+                .mapToLong(i -> cappedCount(targets, threshold, itemsPerCasepack, caps, i))
+                .sum();
+    }
+
+    private static void fill(int[] allocations, double[] targets, double threshold, int itemsPerCasepack,
+                             int[] caps) {
+        IntStream.range(0, targets.length).parallel()
+                .forEach(i -> allocations[i] = (int) cappedCount(targets, threshold, itemsPerCasepack, caps, i));
+    }
+
+    private static long cappedCount(double[] targets, double threshold, int itemsPerCasepack, int[] caps, int i) {
+        long count = priorityCount(targets[i], threshold, itemsPerCasepack);
+        return caps != null ? Math.min(count, Math.max(0, caps[i])) : count;
+    }
+
+    /**
+     * Number of priorities {@code target - k * itemsPerCasepack} (k >= 0) above a non-negative
+     * threshold. Positive differences are exact in double arithmetic, so the division only
+     * provides a first guess that the two loops correct by at most a step or two.
+     */
+    static long priorityCount(double target, double threshold, int itemsPerCasepack) {
+        if (!(target > threshold)) {
+            return 0;
+        }
+        long count = (long) ((target - threshold) / itemsPerCasepack);
+        while (target - (double) count * itemsPerCasepack > threshold) {
+            count++;
+        }
+        while (count > 0 && target - (double) (count - 1) * itemsPerCasepack <= threshold) {
+            count--;
+        }
+        return count;
+    }
+}
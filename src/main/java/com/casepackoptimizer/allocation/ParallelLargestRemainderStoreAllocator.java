@@ -0,0 +1,95 @@
+package com.casepackoptimizer.allocation;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * {@link LargestRemainderStoreAllocator} split into fixed-size chunks of stores that run on the
+ * fork/join pool. Each chunk computes its floors and remainders and selects its own best
+ * {@code k} remainders; the final top-k is taken from the union of those survivors. The ranking
+ * is a total order, so the result is identical to the sequential allocator, caps included.
+ */
+public class ParallelLargestRemainderStoreAllocator implements StoreAllocator {
+
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private final StoreAllocator fallback = new ParallelGreedyStoreAllocator();
+
+    @Override
+    public int[] allocate(double[] targets, int casepacks, int itemsPerCasepack, int[] caps) {
+        int storeCount = targets.length;
+        int[] allocations = new int[storeCount];
+        double[] remainders = new double[storeCount];
+        int chunkCount = (storeCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int[][] candidates = new int[chunkCount][];
+        int[] candidateCounts = new int[chunkCount];
+
+        long floorTotal = IntStream.range(0, chunkCount).parallel().mapToLong(chunk -> {
+            int from = chunk * CHUNK_SIZE;
+            int to = Math.min(from + CHUNK_SIZE, storeCount);
+            int[] chunkCandidates = new int[to - from];
+            int count = 0;
+            long total = 0;
+            for (int i = from; i < to; i++) {
+                if (targets[i] > 0) {
+                    double quotient = targets[i] / itemsPerCasepack;
+                    double whole = Math.floor(quotient);
+                    if (caps != null && whole >= caps[i]) {
+                        allocations[i] = Math.max(0, caps[i]);
+                        total += allocations[i];
+                        continue;
+                    }
+                    allocations[i] = (int) whole;
+                    total += allocations[i];
+                    remainders[i] = quotient - whole;
+                    if (remainders[i] > 0) {
+                        chunkCandidates[count++] = i;
+                    }
+                }
+            }
+            candidates[chunk] = chunkCandidates;
+            candidateCounts[chunk] = count;
+            return total;
+        }).sum();
+
+        if (floorTotal > casepacks) {
+            // Targets add up to more than the supply; only possible with inconsistent targets
+            return fallback.allocate(targets, casepacks, itemsPerCasepack, caps);
+        }
+
+        long leftover = casepacks - floorTotal;
+        long candidateCount = IntStream.of(candidateCounts).asLongStream().sum();
+        if (leftover >= candidateCount) {
+            // Enough supply to round every store up to a full casepack
+            IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+                for (int i = 0; i < candidateCounts[chunk]; i++) {
+                    allocations[candidates[chunk][i]]++;
+                }
+            });
+            return allocations;
+        }
+
+        // Only a chunk's own top k can make the overall top k
+        int k = (int) leftover;
+        int[] survivorCounts = new int[chunkCount];
+        IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+            int count = candidateCounts[chunk];
+            if (count > k) {
+                TopKSelector.select(candidates[chunk], count, k, remainders);
+                count = k;
+            }
+            survivorCounts[chunk] = count;
+        });
+
+        int[] survivors = new int[IntStream.of(survivorCounts).sum()];
+        int survivorCount = 0;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            System.arraycopy(candidates[chunk], 0, survivors, survivorCount, survivorCounts[chunk]);
+            survivorCount += survivorCounts[chunk];
+        }
+        TopKSelector.select(survivors, survivorCount, k, remainders);
+        Arrays.stream(survivors, 0, k).parallel().forEach(store -> allocations[store]++);
+
+        return allocations;
+    }
+}
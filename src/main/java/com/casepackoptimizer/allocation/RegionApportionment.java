@@ -0,0 +1,85 @@
+package com.casepackoptimizer.allocation;
+
+/**
+ * Splits casepacks across regions in proportion to their aggregated item targets.
+ *
+ * <p>A region never receives more than its capacity, the packs its stores can absorb before
+ * every store is rounded up. Regions whose fair share reaches their capacity are filled and the
+ * rest is shared again among the others; the final shares are rounded by largest remainder
+ * (ties to the lower region index). The total handed out is therefore
+ * min(casepacks, total capacity), the same as a flat allocation over all stores.
+ */
+public final class RegionApportionment {
+
+    private RegionApportionment() {
+    }
+
+    /**
+     * @param targets    aggregated item targets per region
+     * @param capacities most casepacks each region can absorb
+     * @param casepacks  casepacks to split
+     * @return casepacks per region
+     */
+    public static int[] apportion(double[] targets, long[] capacities, int casepacks) {
+        int regionCount = targets.length;
+        int[] shares = new int[regionCount];
+        long totalCapacity = 0;
+        for (long capacity : capacities) {
+            totalCapacity += capacity;
+        }
+        if (totalCapacity <= casepacks) {
+            for (int r = 0; r < regionCount; r++) {
+                shares[r] = (int) capacities[r];
+            }
+            return shares;
+        }
+
+        // Fill regions whose share reaches their capacity until no share does
+        boolean[] settled = new boolean[regionCount];
+        long remaining = casepacks;
+        double activeTarget;
+        boolean changed;
+        do {
+            activeTarget = 0;
+            for (int r = 0; r < regionCount; r++) {
+                if (!settled[r] && capacities[r] > 0) {
+                    activeTarget += targets[r];
+                }
+            }
+            changed = false;
+            for (int r = 0; r < regionCount && activeTarget > 0; r++) {
+                if (!settled[r] && capacities[r] > 0 && remaining * targets[r] / activeTarget >= capacities[r]) {
+                    shares[r] = (int) capacities[r];
+                    remaining -= capacities[r];
+                    settled[r] = true;
+                    changed = true;
+                }
+            }
+        } while (changed);
+        if (activeTarget <= 0) {
+            return shares;
+        }
+
+        double[] remainders = new double[regionCount];
+        int[] candidates = new int[regionCount];
+        int candidateCount = 0;
+        long assigned = 0;
+        for (int r = 0; r < regionCount; r++) {
+            if (!settled[r] && capacities[r] > 0) {
+                double quota = remaining * targets[r] / activeTarget;
+                shares[r] = (int) Math.floor(quota);
+                assigned += shares[r];
+                remainders[r] = quota - shares[r];
+                candidates[candidateCount++] = r;
+            }
+        }
+
+        // Each quota is below its capacity, so rounding one up never overfills a region
+        int leftover = (int) Math.max(0, Math.min(remaining - assigned, candidateCount));
+        TopKSelector.select(candidates, candidateCount, leftover, remainders);
+        for (int i = 0; i < leftover; i++) {
+            shares[candidates[i]]++;
+        }
+        return shares;
+    }
+}
@@ -0,0 +1,55 @@
+package com.casepackoptimizer.allocation;
+
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Original warehouse distribution: rounded fair shares in key order, with any shortfall handed
+ * out one pack per warehouse per pass.
+ */
+public class RoundRobinWarehouseDistributor implements WarehouseDistributor {
+
+    @Override
+    public int[] distribute(String[] warehouseIds, int[] available, int totalAllocatedCasepacks) {
+        int totalAvailable = 0;
+        for (int qty : available) {
+            totalAvailable += qty;
+        }
+
+        if (totalAllocatedCasepacks >= totalAvailable) {
+            // Use all warehouse inventory
+            return available.clone();
+        }
+
+        // Fair share distribution across warehouses, visiting them in key order
+        int[] distributions = new int[available.length];
+        int remaining = totalAllocatedCasepacks;
+        int[] sortedWarehouses = IntStream.range(0, warehouseIds.length)
+                .boxed()
+                .sorted(Comparator.comparing(w -> warehouseIds[w]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        for (int w : sortedWarehouses) {
+            // Calculate fair share for this warehouse
+            double fairShare = (double) available[w] * totalAllocatedCasepacks / totalAvailable;
+            int allocation = Math.min((int) Math.round(fairShare), available[w]);
+            allocation = Math.min(allocation, remaining);
+
+            distributions[w] = allocation;
+            remaining -= allocation;
+        }
+
+        // Distribute any remaining casepacks
+        while (remaining > 0) {
+            for (int w : sortedWarehouses) {
+                if (distributions[w] < available[w] && remaining > 0) {
+                    distributions[w]++;
+                    remaining--;
+                }
+            }
+        }
+
+        return distributions;
+    }
+}
@@ -0,0 +1,24 @@
+package com.casepackoptimizer.allocation;
+
+/**
+ * Converts per-store item targets into whole casepacks.
+ * Stores are addressed by their index in request order.
+ */
+public interface StoreAllocator {
+
+    /**
+     * @param targets          expected items per store; non-positive targets never receive packs
+     * @param casepacks        number of casepacks that may be handed out
+     * @param itemsPerCasepack items contained in one casepack
+     * @return casepacks allocated per store, same length as {@code targets}
+     */
+    default int[] allocate(double[] targets, int casepacks, int itemsPerCasepack) {
+        return allocate(targets, casepacks, itemsPerCasepack, null);
+    }
+
+    /**
+     * Same as {@link #allocate(double[], int, int)}, but store {@code i} never receives more than
+     * {@code caps[i]} casepacks. Null caps mean no limit.
+     */
+    int[] allocate(double[] targets, int casepacks, int itemsPerCasepack, int[] caps);
+}
@@ -0,0 +1,74 @@
+package com.casepackoptimizer.allocation;
+
+/**
+ * Linear-time selection of the k best indices by a {@code double[]} key.
+ * Higher keys rank first and equal keys are ranked by the lower index, so the selected set
+ * is always the same for the same input.
+ */
+final class TopKSelector {
+
+    private TopKSelector() {
+    }
+
+    /**
+     * Reorders {@code indices[0..length)} so that its first {@code k} entries are the k best
+     * indices (in no particular order). Expected O(length) time.
+     */
+    static void select(int[] indices, int length, int k, double[] keys) {
+        int left = 0;
+        int right = length - 1;
+        while (k > 0 && left < right) {
+            int pivot = medianOfThree(indices, left, (left + right) >>> 1, right, keys);
+            int store = partition(indices, left, right, pivot, keys);
+            int rank = store - left + 1;
+            if (rank == k) {
+                return;
+            }
+            if (k < rank) {
+                right = store - 1;
+            } else {
+                k -= rank;
+                left = store + 1;
+            }
+        }
+    }
+
+    static boolean before(int a, int b, double[] keys) {
+        return keys[a] > keys[b] || (keys[a] == keys[b] && a < b);
+    }
+
+    private static int partition(int[] indices, int left, int right, int pivotPos, double[] keys) {
+        int pivot = indices[pivotPos];
+        swap(indices, pivotPos, right);
+        int store = left;
+        for (int i = left; i < right; i++) {
+            if (before(indices[i], pivot, keys)) {
+                swap(indices, i, store++);
+            }
+        }
+        swap(indices, store, right);
+        return store;
+    }
+
+    private static int medianOfThree(int[] indices, int a, int b, int c, double[] keys) {
+        int x = indices[a];
+        int y = indices[b];
+        int z = indices[c];
+        if (before(x, y, keys)) {
+            if (before(y, z, keys)) {
+                return b;
+            }
+            return before(x, z, keys) ? c : a;
+        }
+        if (before(x, z, keys)) {
+            return a;
+        }
+        return before(y, z, keys) ? c : b;
+    }
+
+    private static void swap(int[] indices, int i, int j) {
+        int tmp = indices[i];
+        indices[i] = indices[j];
+        indices[j] = tmp;
+    }
+}
@@ -0,0 +1,16 @@
+package com.casepackoptimizer.allocation;
+
+/**
+ * Splits the allocated casepacks across warehouses in proportion to their stock.
+ * Warehouses are addressed by their index in request order.
+ */
+public interface WarehouseDistributor {
+
+    /**
+     * @param warehouseIds           warehouse keys, parallel to {@code available}
+     * @param available              casepacks in stock per warehouse
+     * @param totalAllocatedCasepacks casepacks handed out to stores
+     * @return casepacks shipped per warehouse, same length as {@code available}
+     */
+    int[] distribute(String[] warehouseIds, int[] available, int totalAllocatedCasepacks);
+}
@@ -0,0 +1,222 @@
+package com.casepackoptimizer.allocation;
+
+/**
+ * Balanced k-d tree over warehouse points, as produced by
+ * {@link com.casepackoptimizer.model.SourcingLocations}. The tree is implicit: the node covering
+ * tree positions {@code [lo, hi)} sits at their midpoint and splits them on the axis where they
+ * spread widest. The tree itself never changes, so one instance can serve concurrent requests;
+ * the stock left at each warehouse lives in a {@link Stock} per request.
+ */
+public final class WarehouseKdTree {
+
+    // Warehouse index at each tree position, and the reverse
+    private final int[] warehouses;
+    private final int[] positions;
+    // Point of each tree position, three coordinates apiece
+    private final double[] coordinates;
+    private final byte[] axes;
+
+    private WarehouseKdTree(double[] points) {
+        int count = points.length / 3;
+        warehouses = new int[count];
+        for (int w = 0; w < count; w++) {
+            warehouses[w] = w;
+        }
+        axes = new byte[count];
+        build(points, 0, count);
+
+        positions = new int[count];
+        coordinates = new double[points.length];
+        for (int p = 0; p < count; p++) {
+            positions[warehouses[p]] = p;
+            System.arraycopy(points, 3 * warehouses[p], coordinates, 3 * p, 3);
+        }
+    }
+
+    public static WarehouseKdTree build(double[] points) {
+        return new WarehouseKdTree(points);
+    }
+
+    public int size() {
+        return warehouses.length;
+    }
+
+    public Stock stock(int[] warehousePacks) {
+        return new Stock(warehousePacks);
+    }
+
+    private void build(double[] points, int lo, int hi) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int axis = widestAxis(points, lo, hi);
+        int mid = (lo + hi) >>> 1;
+        select(points, lo, hi - 1, mid, axis);
+        axes[mid] = (byte) axis;
+        build(points, lo, mid);
+        build(points, mid + 1, hi);
+    }
+
+    private int widestAxis(double[] points, int lo, int hi) {
+        int widest = 0;
+        double widestSpread = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int p = lo; p < hi; p++) {
+                double value = points[3 * warehouses[p] + axis];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > widestSpread) {
+                widestSpread = max - min;
+                widest = axis;
+            }
+        }
+        return widest;
+    }
+
+    // Quickselect on warehouses[left..right] so position k holds its rank; ties go by warehouse index
+    private void select(double[] points, int left, int right, int k, int axis) {
+        while (left < right) {
+            int pivot = warehouses[(left + right) >>> 1];
+            swap((left + right) >>> 1, right);
+            int store = left;
+            for (int p = left; p < right; p++) {
+                if (before(points, warehouses[p], pivot, axis)) {
+                    swap(p, store++);
+                }
+            }
+            swap(store, right);
+            if (store == k) {
+                return;
+            }
+            if (k < store) {
+                right = store - 1;
+            } else {
+                left = store + 1;
+            }
+        }
+    }
+
+    private static boolean before(double[] points, int a, int b, int axis) {
+        double x = points[3 * a + axis];
+        double y = points[3 * b + axis];
+        return x < y || (x == y && a < b);
+    }
+
+    private void swap(int a, int b) {
+        int warehouse = warehouses[a];
+        warehouses[a] = warehouses[b];
+        warehouses[b] = warehouse;
+    }
+
+    /**
+     * Casepacks left at each warehouse while stores are sourced. Every node counts the warehouses
+     * below it that still have stock, so searches skip emptied subtrees and a nearest query stays
+     * logarithmic however many warehouses have run dry.
+     */
+    public final class Stock {
+
+        private final int[] remaining;
+        private final int[] open;
+        private int bestPosition;
+        private double bestDistance;
+
+        private Stock(int[] warehousePacks) {
+            remaining = new int[warehouses.length];
+            for (int p = 0; p < remaining.length; p++) {
+                remaining[p] = warehousePacks[warehouses[p]];
+            }
+            open = new int[warehouses.length];
+            count(0, warehouses.length);
+        }
+
+        private int count(int lo, int hi) {
+            if (lo >= hi) {
+                return 0;
+            }
+            int mid = (lo + hi) >>> 1;
+            open[mid] = count(lo, mid) + count(mid + 1, hi) + (remaining[mid] > 0 ? 1 : 0);
+            return open[mid];
+        }
+
+        /**
+         * @return the warehouse with stock closest to the point, the lowest index among equally
+         *         close ones, or -1 when no warehouse has stock left
+         */
+        public int nearest(double x, double y, double z) {
+            bestPosition = -1;
+            bestDistance = Double.POSITIVE_INFINITY;
+            search(0, warehouses.length, x, y, z);
+            return bestPosition >= 0 ? warehouses[bestPosition] : -1;
+        }
+
+        private void search(int lo, int hi, double x, double y, double z) {
+            if (lo >= hi) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            if (open[mid] == 0) {
+                return;
+            }
+            if (remaining[mid] > 0) {
+                double dx = coordinates[3 * mid] - x;
+                double dy = coordinates[3 * mid + 1] - y;
+                double dz = coordinates[3 * mid + 2] - z;
+                double distance = dx * dx + dy * dy + dz * dz;
+                if (distance < bestDistance
+                        || (distance == bestDistance && warehouses[mid] < warehouses[bestPosition])) {
+                    bestPosition = mid;
+                    bestDistance = distance;
+                }
+            }
+            int axis = axes[mid];
+            double offset = (axis == 0 ? x : axis == 1 ? y : z) - coordinates[3 * mid + axis];
+            // Nearer side first; the far side only when the splitting plane is within reach
+            if (offset < 0) {
+                search(lo, mid, x, y, z);
+                if (offset * offset <= bestDistance) {
+                    search(mid + 1, hi, x, y, z);
+                }
+            } else {
+                search(mid + 1, hi, x, y, z);
+                if (offset * offset <= bestDistance) {
+                    search(lo, mid, x, y, z);
+                }
+            }
+        }
+
+        /**
+         * Takes up to {@code packs} casepacks from the warehouse.
+         *
+         * @return the casepacks taken
+         */
+        public int take(int warehouse, int packs) {
+            int position = positions[warehouse];
+            int taken = Math.min(remaining[position], packs);
+            remaining[position] -= taken;
+            if (taken > 0 && remaining[position] == 0) {
+                close(position);
+            }
+            return taken;
+        }
+
+        private void close(int position) {
+            int lo = 0;
+            int hi = warehouses.length;
+            while (true) {
+                int mid = (lo + hi) >>> 1;
+                open[mid]--;
+                if (mid == position) {
+                    return;
+                }
+                if (position < mid) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.casepackoptimizer.allocation;
+
+/**
+ * Strategy used to split the allocated casepacks across the warehouses that ship them.
+ */
+public enum WarehouseStrategy {
+
+    /**
+     * Round every fair share, visiting warehouses in key order, then hand out what is still
+     * missing one pack per warehouse per pass.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Give every warehouse the floor of its exact fair share and the leftover packs to the
+     * largest remainders, in a single pass.
+     */
+    LARGEST_REMAINDER
+}
@@ -0,0 +1,300 @@
+package com.casepackoptimizer.bulk;
+
+import com.casepackoptimizer.config.CasepackOptimizerProperties;
+import com.casepackoptimizer.model.AllocationProblem;
+import com.casepackoptimizer.model.AllocationResult;
+import com.casepackoptimizer.service.CasepackOptimizerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Allocates every SKU of a nightly file drop without HTTP or JSON. Runs when
+ * {@code casepack.bulk.output} is set, usually through {@code CasepackBulkApplication}.
+ *
+ * <p>Input files are comma-separated with a header line:
+ * <ul>
+ *   <li>needs: {@code sku,store,need}</li>
+ *   <li>stock: {@code sku,warehouse,qty}</li>
+ *   <li>casepacks: {@code sku,packs,ratios} with ratios separated by {@code ;}; several rows for
+ *       one SKU are solved as mixed casepacks</li>
+ * </ul>
+ * The files are memory-mapped and parsed into primitive columns that point back into the
+ * mapping. Rows are grouped by SKU and the SKUs are solved on the batch pool with the regular
+ * optimizer. Rows are taken as they are, so a store listed twice for a SKU appears twice.
+ *
+ * <p>The output has the columns {@code sku,location_type,location,casepacks,mix}: one row per
+ * store and warehouse, one {@code remaining} row per SKU and an {@code error} row for a SKU that
+ * could not be allocated. {@code mix} holds the packs per casepack, separated by {@code ;}, for
+ * stores of mixed-casepack SKUs.
+ */
+@Component
+@ConditionalOnProperty(prefix = "casepack.bulk", name = "output")
+@Slf4j
+@RequiredArgsConstructor
+public class BulkAllocationRunner implements CommandLineRunner, ExitCodeGenerator {
+
+    private static final int BLOCK_SIZE = 4096;
+    private static final byte[] HEADER = "sku,location_type,location,casepacks,mix\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final CasepackOptimizerService casepackOptimizerService;
+    private final CasepackOptimizerProperties properties;
+    private final ForkJoinPool casepackBatchPool;
+    private final AtomicInteger failedSkus = new AtomicInteger();
+
+    @Override
+    public void run(String... args) throws IOException {
+        CasepackOptimizerProperties.Bulk settings = properties.getBulk();
+        long start = System.nanoTime();
+
+        SkuDictionary skus = new SkuDictionary();
+        MappedCsvFile needsFile = MappedCsvFile.map(settings.getNeeds());
+        MappedCsvFile stockFile = MappedCsvFile.map(settings.getStock());
+        MappedCsvFile casepackFile = MappedCsvFile.map(settings.getCasepacks());
+        BulkRowTable needs = load(needsFile, skus, 1, 2);
+        BulkRowTable stock = load(stockFile, skus, 1, 2);
+        // A casepack row keeps its ratios where other rows keep their location
+        BulkRowTable casepacks = load(casepackFile, skus, 2, 1);
+
+        int skuCount = skus.size();
+        needs.groupBySku(skuCount);
+        stock.groupBySku(skuCount);
+        casepacks.groupBySku(skuCount);
+        log.info("Loaded {} SKUs: {} store rows, {} warehouse rows, {} casepack rows",
+                skuCount, needs.size(), stock.size(), casepacks.size());
+
+        SkuInputs inputs = new SkuInputs(skus, needsFile, needs, stockFile, stock, casepackFile, casepacks);
+        try (FileChannel out = FileChannel.open(settings.getOutput(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            write(out, buffer, HEADER, HEADER.length);
+            for (int from = 0; from < skuCount; from += BLOCK_SIZE) {
+                int blockStart = from;
+                int blockEnd = Math.min(from + BLOCK_SIZE, skuCount);
+                // Ordered parallel stream inside the pool keeps the output in SKU order
+                RowWriter[] block = casepackBatchPool.submit(() -> IntStream.range(blockStart, blockEnd)
+                                .parallel()
+                                .mapToObj(sku -> allocate(sku, inputs))
+                                .toArray(RowWriter[]::new))
+                        .join();
+                for (RowWriter rows : block) {
+                    write(out, buffer, rows.bytes, rows.size);
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        }
+
+        log.info("Allocated {} SKUs ({} failed) into {} in {} ms", skuCount, failedSkus.get(),
+                settings.getOutput(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public int getExitCode() {
+        return failedSkus.get() > 0 ? 1 : 0;
+    }
+
+    private static BulkRowTable load(MappedCsvFile file, SkuDictionary skus, int textField, int quantityField) {
+        BulkRowTable table = new BulkRowTable();
+        file.forEachRow(3, (segment, data, starts, ends, line) -> table.add(
+                skus.idOf(data, starts[0], ends[0]),
+                segment, starts[textField], ends[textField] - starts[textField],
+                file.parseInt(data, starts[quantityField], ends[quantityField], line)));
+        return table;
+    }
+
+    private RowWriter allocate(int sku, SkuInputs inputs) {
+        RowWriter rows = new RowWriter();
+        byte[] skuName = inputs.skus.bytes(sku);
+        try {
+            int typeCount = inputs.casepacks.rowCount(sku);
+            if (typeCount == 0) {
+                throw new IllegalArgumentException("No casepack defined for this SKU");
+            }
+            int[] units = new int[typeCount];
+            int[] packs = new int[typeCount];
+            for (int t = 0; t < typeCount; t++) {
+                int row = inputs.casepacks.row(sku, t);
+                units[t] = ratioSum(inputs.casepackFile, inputs.casepacks, row);
+                packs[t] = inputs.casepacks.quantity(row);
+            }
+
+            AllocationProblem problem = new AllocationProblem(
+                    ids(inputs.needsFile, inputs.needs, sku), quantities(inputs.needs, sku),
+                    ids(inputs.stockFile, inputs.stock, sku), quantities(inputs.stock, sku),
+                    units, packs, null, null, null, null, null, null);
+            AllocationResult result = casepackOptimizerService.solve(problem);
+
+            int[] mixes = result.getStoreCasepackMix();
+            for (int i = 0; i < problem.storeCount(); i++) {
+                rows.location(skuName, "store", inputs.needsFile, inputs.needs, inputs.needs.row(sku, i));
+                rows.number(result.getStorePacks()[i]);
+                rows.text(",");
+                if (mixes != null) {
+                    for (int t = 0; t < typeCount; t++) {
+                        if (t > 0) {
+                            rows.text(";");
+                        }
+                        rows.number(mixes[i * typeCount + t]);
+                    }
+                }
+                rows.text("\n");
+            }
+            for (int w = 0; w < problem.warehouseCount(); w++) {
+                rows.location(skuName, "warehouse", inputs.stockFile, inputs.stock, inputs.stock.row(sku, w));
+                rows.number(result.getWarehousePacks()[w]);
+                rows.text(",\n");
+            }
+            rows.bytes(skuName);
+            rows.text(",remaining,,");
+            rows.number(result.getRemainingSupply());
+            rows.text(",\n");
+        } catch (RuntimeException e) {
+            failedSkus.incrementAndGet();
+            log.debug("SKU {} failed", inputs.skus.name(sku), e);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            rows = new RowWriter();
+            rows.bytes(skuName);
+            rows.text(",error,,,");
+            rows.text(message.replace(',', ' ').replace('\n', ' '));
+            rows.text("\n");
+        }
+        return rows;
+    }
+
+    private static String[] ids(MappedCsvFile file, BulkRowTable table, int sku) {
+        String[] ids = new String[table.rowCount(sku)];
+        byte[] scratch = new byte[64];
+        for (int i = 0; i < ids.length; i++) {
+            int row = table.row(sku, i);
+            int length = table.length(row);
+            if (scratch.length < length) {
+                scratch = new byte[length];
+            }
+            file.segment(table.segment(row)).get(table.offset(row), scratch, 0, length);
+            ids[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        return ids;
+    }
+
+    private static int[] quantities(BulkRowTable table, int sku) {
+        int[] quantities = new int[table.rowCount(sku)];
+        for (int i = 0; i < quantities.length; i++) {
+            quantities[i] = table.quantity(table.row(sku, i));
+        }
+        return quantities;
+    }
+
+    // The text of a casepack row is its ratios, e.g. 1;2;2;1
+    private static int ratioSum(MappedCsvFile file, BulkRowTable table, int row) {
+        ByteBuffer data = file.segment(table.segment(row));
+        int start = table.offset(row);
+        int end = start + table.length(row);
+        int total = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || data.get(i) == ';') {
+                total += file.parseInt(data, fieldStart, i, 0);
+                fieldStart = i + 1;
+            }
+        }
+        return total;
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer, byte[] bytes, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+            int chunk = Math.min(buffer.remaining(), length - offset);
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+        }
+    }
+
+    private record SkuInputs(SkuDictionary skus,
+                             MappedCsvFile needsFile, BulkRowTable needs,
+                             MappedCsvFile stockFile, BulkRowTable stock,
+                             MappedCsvFile casepackFile, BulkRowTable casepacks) {
+    }
+
+    /**
+     * Growable ASCII output for the rows of one SKU. Location ids are copied byte for byte from
+     * the mapped input.
+     */
+    private static final class RowWriter {
+
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        void location(byte[] sku, String type, MappedCsvFile file, BulkRowTable table, int row) {
+            bytes(sku);
+            text(",");
+            text(type);
+            text(",");
+            int length = table.length(row);
+            ensure(length);
+            file.segment(table.segment(row)).get(table.offset(row), bytes, size, length);
+            size += length;
+            text(",");
+        }
+
+        void bytes(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+
+        void text(String value) {
+            ensure(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                bytes[size++] = (byte) value.charAt(i);
+            }
+        }
+
+        void number(int value) {
+            ensure(11);
+            long remaining = value;
+            if (remaining < 0) {
+                bytes[size++] = '-';
+                remaining = -remaining;
+            }
+            int digits = 1;
+            for (long limit = 10; remaining >= limit; limit *= 10) {
+                digits++;
+            }
+            for (int i = size + digits - 1; i >= size; i--) {
+                bytes[i] = (byte) ('0' + remaining % 10);
+                remaining /= 10;
+            }
+            size += digits;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
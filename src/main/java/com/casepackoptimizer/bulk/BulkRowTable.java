@@ -0,0 +1,88 @@
+package com.casepackoptimizer.bulk;
+
+import com.casepackoptimizer.model.OffHeapIntMatrix;
+
+import java.util.Arrays;
+
+/**
+ * Columnar storage for the rows of one input file, kept off-heap in an
+ * {@link OffHeapIntMatrix}. A row keeps its SKU id, the position of its text field (a location
+ * id, or the ratios of a casepack row) in the mapped file and its quantity; text is never
+ * copied.
+ */
+final class BulkRowTable {
+
+    private static final int SKU = 0;
+    private static final int SEGMENT = 1;
+    private static final int OFFSET = 2;
+    private static final int LENGTH = 3;
+    private static final int QUANTITY = 4;
+
+    private final OffHeapIntMatrix rows = new OffHeapIntMatrix(5);
+    private final OffHeapIntMatrix.Cursor appender = rows.cursor();
+
+    // Rows of SKU s are order[starts[s]..starts[s + 1]), in file order
+    private int[] starts;
+    private OffHeapIntMatrix order;
+
+    void add(int sku, int segment, int offset, int length, int quantity) {
+        appender.at(rows.addRow())
+                .set(SKU, sku)
+                .set(SEGMENT, segment)
+                .set(OFFSET, offset)
+                .set(LENGTH, length)
+                .set(QUANTITY, quantity);
+    }
+
+    int size() {
+        return rows.rows();
+    }
+
+    /**
+     * Groups the rows by SKU with a stable counting sort.
+     */
+    void groupBySku(int skuCount) {
+        int size = rows.rows();
+        OffHeapIntMatrix.Cursor cursor = rows.cursor();
+        starts = new int[skuCount + 1];
+        for (int row = 0; row < size; row++) {
+            starts[cursor.at(row).get(SKU) + 1]++;
+        }
+        for (int sku = 0; sku < skuCount; sku++) {
+            starts[sku + 1] += starts[sku];
+        }
+
+        order = new OffHeapIntMatrix(1);
+        for (int row = 0; row < size; row++) {
+            order.addRow();
+        }
+        int[] next = Arrays.copyOf(starts, skuCount);
+        for (int row = 0; row < size; row++) {
+            order.set(next[cursor.at(row).get(SKU)]++, 0, row);
+        }
+    }
+
+    int rowCount(int sku) {
+        return starts[sku + 1] - starts[sku];
+    }
+
+    int row(int sku, int index) {
+        return order.get(starts[sku] + index, 0);
+    }
+
+    int segment(int row) {
+        return rows.get(row, SEGMENT);
+    }
+
+    int offset(int row) {
+        return rows.get(row, OFFSET);
+    }
+
+    int length(int row) {
+        return rows.get(row, LENGTH);
+    }
+
+    int quantity(int row) {
+        return rows.get(row, QUANTITY);
+    }
+}
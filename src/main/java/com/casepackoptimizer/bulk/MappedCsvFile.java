@@ -0,0 +1,148 @@
+package com.casepackoptimizer.bulk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A comma-separated file mapped into memory with {@link FileChannel#map}. Files larger than one
+ * mapping are split into segments that end on a line break, so every row lies inside a single
+ * segment and can be addressed by segment and offset without copying it.
+ *
+ * <p>The first line is a header and is skipped, as are blank lines. Fields are not quoted.
+ */
+final class MappedCsvFile {
+
+    private static final long MAX_SEGMENT = 1L << 30;
+
+    private final Path path;
+    private final List<ByteBuffer> segments;
+
+    private MappedCsvFile(Path path, List<ByteBuffer> segments) {
+        this.path = path;
+        this.segments = segments;
+    }
+
+    static MappedCsvFile map(Path path) throws IOException {
+        List<ByteBuffer> segments = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(MAX_SEGMENT, size - position);
+                ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (position + length < size) {
+                    int end = (int) length;
+                    while (end > 0 && segment.get(end - 1) != '\n') {
+                        end--;
+                    }
+                    if (end == 0) {
+                        throw new IOException(path + " has a line longer than " + MAX_SEGMENT + " bytes");
+                    }
+                    segment = segment.slice(0, end);
+                    length = end;
+                }
+                segments.add(segment);
+                position += length;
+            }
+        }
+        return new MappedCsvFile(path, segments);
+    }
+
+    ByteBuffer segment(int index) {
+        return segments.get(index);
+    }
+
+    /**
+     * Calls {@code handler} for every data row with the bounds of its first {@code fieldCount}
+     * fields. A row with a different number of fields is rejected.
+     */
+    void forEachRow(int fieldCount, RowHandler handler) {
+        int[] starts = new int[fieldCount];
+        int[] ends = new int[fieldCount];
+        long line = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            ByteBuffer data = segments.get(s);
+            int limit = data.limit();
+            int position = 0;
+            while (position < limit) {
+                line++;
+                int lineStart = position;
+                int fields = 0;
+                int fieldStart = position;
+                int end = position;
+                while (end < limit && data.get(end) != '\n') {
+                    if (data.get(end) == ',') {
+                        if (fields < fieldCount) {
+                            starts[fields] = fieldStart;
+                            ends[fields] = end;
+                        }
+                        fields++;
+                        fieldStart = end + 1;
+                    }
+                    end++;
+                }
+                int lineEnd = end > position && data.get(end - 1) == '\r' ? end - 1 : end;
+                if (fields < fieldCount) {
+                    starts[fields] = fieldStart;
+                    ends[fields] = Math.max(fieldStart, lineEnd);
+                }
+                fields++;
+                position = end + 1;
+
+                if (line == 1 || lineEnd == lineStart) {
+                    // Header or blank line
+                    continue;
+                }
+                if (fields != fieldCount) {
+                    throw new IllegalArgumentException(path + " line " + line + ": expected " + fieldCount
+                            + " fields but found " + fields);
+                }
+                handler.row(s, data, starts, ends, line);
+            }
+        }
+    }
+
+    /**
+     * Parses a decimal int; {@code line} only appears in error messages and may be 0 when unknown.
+     */
+    int parseInt(ByteBuffer data, int start, int end, long line) {
+        int position = start;
+        boolean negative = position < end && data.get(position) == '-';
+        if (negative) {
+            position++;
+        }
+        if (position == end) {
+            throw new IllegalArgumentException(where(line) + ": missing number");
+        }
+        long value = 0;
+        for (; position < end; position++) {
+            int digit = data.get(position) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException(where(line) + ": invalid number");
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new IllegalArgumentException(where(line) + ": number out of range");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(where(line) + ": number out of range");
+        }
+        return (int) value;
+    }
+
+    private String where(long line) {
+        return line > 0 ? path + " line " + line : path.toString();
+    }
+
+    @FunctionalInterface
+    interface RowHandler {
+        void row(int segment, ByteBuffer data, int[] starts, int[] ends, long line);
+    }
+}
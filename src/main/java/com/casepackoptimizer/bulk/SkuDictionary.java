@@ -0,0 +1,89 @@
+package com.casepackoptimizer.bulk;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Assigns dense ids to SKU codes read straight from mapped bytes. Lookups compare bytes in
+ * place through an open-addressing table, so only the first occurrence of a SKU is copied.
+ */
+final class SkuDictionary {
+
+    private byte[][] names = new byte[256][];
+    private int[] hashes = new int[256];
+    private int[] table = new int[512];
+    private int size;
+
+    int idOf(ByteBuffer data, int start, int end) {
+        int hash = hash(data, start, end);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && matches(names[id], data, start, end)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        byte[] name = new byte[end - start];
+        data.get(start, name);
+        names[size] = name;
+        hashes[size] = hash;
+        table[slot] = ++size;
+
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte[] bytes(int id) {
+        return names[id];
+    }
+
+    String name(int id) {
+        return new String(names[id], StandardCharsets.UTF_8);
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    private static boolean matches(byte[] name, ByteBuffer data, int start, int end) {
+        if (name.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != data.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(ByteBuffer data, int start, int end) {
+        int hash = 0x811C9DC5;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ data.get(i)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
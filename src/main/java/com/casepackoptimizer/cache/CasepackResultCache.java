@@ -0,0 +1,183 @@
+package com.casepackoptimizer.cache;
+
+import com.casepackoptimizer.config.CasepackOptimizerProperties;
+import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import com.casepackoptimizer.model.IndexedIntMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of optimize responses keyed by {@link RequestFingerprint}, bounded by an estimated
+ * byte budget and a time to live. A hit requires the full request content to match, not just
+ * its hash. Cached responses are shared between callers, so their
+ * collections are read-only and a hit costs nothing beyond serialization.
+ */
+@Component
+public class CasepackResultCache {
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<RequestFingerprint, CachedResponse> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long usedBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+
+    @Autowired
+    public CasepackResultCache(CasepackOptimizerProperties properties, MeterRegistry registry) {
+        this(properties.getCache(), registry, System::nanoTime);
+    }
+
+    CasepackResultCache(CasepackOptimizerProperties.Cache settings, MeterRegistry registry, LongSupplier clock) {
+        this.enabled = settings.isEnabled() && settings.getMaxBytes() > 0;
+        this.maxBytes = settings.getMaxBytes();
+        this.ttlNanos = settings.getTtl().toNanos();
+        this.clock = clock;
+
+        hits = Counter.builder("casepack.cache.requests").tag("result", "hit").register(registry);
+        misses = Counter.builder("casepack.cache.requests").tag("result", "miss").register(registry);
+        sizeEvictions = Counter.builder("casepack.cache.evictions").tag("cause", "size").register(registry);
+        expiredEvictions = Counter.builder("casepack.cache.evictions").tag("cause", "expired").register(registry);
+        Gauge.builder("casepack.cache.entries", this, CasepackResultCache::size).register(registry);
+        Gauge.builder("casepack.cache.bytes", this, CasepackResultCache::bytes).baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * A cache that never stores anything, for code constructed outside Spring.
+     */
+    public static CasepackResultCache disabled() {
+        CasepackOptimizerProperties.Cache settings = new CasepackOptimizerProperties.Cache();
+        settings.setEnabled(false);
+        return new CasepackResultCache(settings, new CompositeMeterRegistry(), System::nanoTime);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CasepackOptimizerResponse get(RequestFingerprint key, Supplier<CasepackOptimizerResponse> compute) {
+        if (!enabled) {
+            return compute.get();
+        }
+
+        synchronized (this) {
+            CachedResponse cached = entries.get(key);
+            if (cached != null) {
+                if (clock.getAsLong() - cached.createdNanos < ttlNanos) {
+                    hits.increment();
+                    return cached.response;
+                }
+                remove(key, cached);
+                expiredEvictions.increment();
+            }
+        }
+
+        // Computed outside the lock; concurrent misses for the same key both compute
+        misses.increment();
+        CasepackOptimizerResponse response = shared(compute.get());
+        // The key keeps the request content that every hit is compared against
+        long size = estimateBytes(response) + key.estimateBytes();
+        if (size > maxBytes) {
+            return response;
+        }
+
+        synchronized (this) {
+            CachedResponse previous = entries.put(key, new CachedResponse(response, size, clock.getAsLong()));
+            if (previous != null) {
+                usedBytes -= previous.bytes;
+            }
+            usedBytes += size;
+            Iterator<Map.Entry<RequestFingerprint, CachedResponse>> eldest = entries.entrySet().iterator();
+            while (usedBytes > maxBytes && eldest.hasNext()) {
+                usedBytes -= eldest.next().getValue().bytes;
+                eldest.remove();
+                sizeEvictions.increment();
+            }
+        }
+        return response;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long bytes() {
+        return usedBytes;
+    }
+
+    private void remove(RequestFingerprint key, CachedResponse cached) {
+        entries.remove(key);
+        usedBytes -= cached.bytes;
+    }
+
+    private static CasepackOptimizerResponse shared(CasepackOptimizerResponse response) {
+        Map<String, List<Integer>> storeCasePacks = response.getStoreCasePacks();
+        if (storeCasePacks != null) {
+            Map<String, List<Integer>> copy = new LinkedHashMap<>();
+            storeCasePacks.forEach((store, mix) -> copy.put(store, List.copyOf(mix)));
+            storeCasePacks = Collections.unmodifiableMap(copy);
+        }
+        return CasepackOptimizerResponse.builder()
+                .casePacks(response.getCasePacks() != null ? List.copyOf(response.getCasePacks()) : null)
+                .stores(readOnly(response.getStores()))
+                .storeCasePacks(storeCasePacks)
+                .warehouses(readOnly(response.getWarehouses()))
+                .sourcing(response.getSourcing() != null ? List.copyOf(response.getSourcing()) : null)
+                .remainingSupply(response.getRemainingSupply())
+                .build();
+    }
+
+    private static Map<String, Integer> readOnly(Map<String, Integer> quantities) {
+        // IndexedIntMap is already read-only and keeps its fast serialization path
+        return quantities == null || quantities instanceof IndexedIntMap
+                ? quantities
+                : Collections.unmodifiableMap(quantities);
+    }
+
+    // Rough retained size: object headers, one reference and one int per entry, plus the key text
+    static long estimateBytes(CasepackOptimizerResponse response) {
+        long bytes = 256;
+        bytes += quantityBytes(response.getStores());
+        bytes += quantityBytes(response.getWarehouses());
+        if (response.getStoreCasePacks() != null) {
+            for (List<Integer> mix : response.getStoreCasePacks().values()) {
+                bytes += 64 + 16L * mix.size();
+            }
+        }
+        if (response.getSourcing() != null) {
+            // Shipment IDs are the same strings the store and warehouse keys hold
+            bytes += 64 + 40L * response.getSourcing().size();
+        }
+        return bytes;
+    }
+
+    private static long quantityBytes(Map<String, Integer> quantities) {
+        if (quantities == null) {
+            return 0;
+        }
+        long bytes = 64;
+        for (String key : quantities.keySet()) {
+            bytes += 12 + 48 + key.length();
+        }
+        return bytes;
+    }
+
+    private record CachedResponse(CasepackOptimizerResponse response, long bytes, long createdNanos) {
+    }
+}
@@ -0,0 +1,269 @@
+package com.casepackoptimizer.cache;
+
+import com.casepackoptimizer.allocation.AllocationMode;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import com.casepackoptimizer.model.AllocationProblem;
+import com.casepackoptimizer.model.SourcingLanes;
+import com.casepackoptimizer.model.SourcingLocations;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Content address of an optimize request.
+ *
+ * <p>The allocators break ties by store and warehouse position, so the same entries in another
+ * map order can allocate differently and must not share a cached response. Every part of the
+ * request is therefore hashed in order into two independent 64-bit hashes. Region groupings are
+ * hashed through the normalized region of each store, so region names and listing order do not
+ * count, and stores without an effective bound hash like an absent bound map.
+ *
+ * <p>The hashes only pick the cache slot. The fingerprint also keeps the problem it was built
+ * from, and {@link #equals} compares that content, so a hash collision is a miss rather than
+ * another request's allocation.
+ */
+public final class RequestFingerprint {
+
+    private static final long STORE_SEED = 0x9E3779B97F4A7C15L;
+    private static final long WAREHOUSE_SEED = 0xC2B2AE3D27D4EB4FL;
+    private static final long REGION_SEED = 0x165667B19E3779F9L;
+    private static final long BOUND_SEED = 0x27D4EB2F165667C5L;
+    private static final long LANE_SEED = 0x85EBCA77C2B2AE63L;
+    private static final long LOCATION_SEED = 0x61C8864680B583EBL;
+    private static final long STEP = 0x100000001B3L;
+
+    private final long hash1;
+    private final long hash2;
+    private final AllocationProblem problem;
+    // Casepack count, then per casepack its packs, ratio count (-1 when null) and ratio quantities
+    private final int[] casepacks;
+    private final AllocationMode allocationMode;
+
+    RequestFingerprint(long hash1, long hash2, AllocationProblem problem, int[] casepacks, AllocationMode allocationMode) {
+        this.hash1 = hash1;
+        this.hash2 = hash2;
+        this.problem = problem;
+        this.casepacks = casepacks;
+        this.allocationMode = allocationMode;
+    }
+
+    public static RequestFingerprint of(AllocationProblem problem,
+                                        List<CasepackOptimizerRequest.CasePack> casePacks,
+                                        AllocationMode allocationMode) {
+        int[] casepacks = casepacks(casePacks);
+        long[] hashes = {0xCBF29CE484222325L, allocationMode == null ? 0 : allocationMode.ordinal() + 1};
+        entries(hashes, problem.getStoreIds(), problem.getStoreNeeds(), STORE_SEED);
+        entries(hashes, problem.getWarehouseIds(), problem.getWarehouseQty(), WAREHOUSE_SEED);
+        for (int value : casepacks) {
+            add(hashes, value);
+        }
+        regions(hashes, problem);
+        bounds(hashes, problem);
+        lanes(hashes, problem);
+        locations(hashes, problem);
+        return new RequestFingerprint(hashes[0], hashes[1], problem, casepacks, allocationMode);
+    }
+
+    /**
+     * Rough retained size of the request content kept beyond the cached response, which already
+     * holds the store and warehouse IDs.
+     */
+    long estimateBytes() {
+        long bytes = 128 + 4L * casepacks.length
+                + 4L * problem.storeCount() + 4L * problem.warehouseCount();
+        if (problem.getStoreRegions() != null) {
+            bytes += 4L * problem.storeCount();
+        }
+        if (problem.getStoreMinPacks() != null) {
+            bytes += 4L * problem.storeCount();
+        }
+        if (problem.getStoreMaxPacks() != null) {
+            bytes += 4L * problem.storeCount();
+        }
+        if (problem.getLanes() != null) {
+            bytes += 16L * problem.getLanes().count();
+        }
+        if (problem.getLocations() != null) {
+            bytes += 24L * (problem.storeCount() + problem.warehouseCount());
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RequestFingerprint other)) {
+            return false;
+        }
+        if (hash1 != other.hash1 || hash2 != other.hash2 || allocationMode != other.allocationMode
+                || !Arrays.equals(casepacks, other.casepacks)) {
+            return false;
+        }
+        AllocationProblem a = problem;
+        AllocationProblem b = other.problem;
+        return Arrays.equals(a.getStoreIds(), b.getStoreIds())
+                && Arrays.equals(a.getStoreNeeds(), b.getStoreNeeds())
+                && Arrays.equals(a.getWarehouseIds(), b.getWarehouseIds())
+                && Arrays.equals(a.getWarehouseQty(), b.getWarehouseQty())
+                && Arrays.equals(a.getStoreRegions(), b.getStoreRegions())
+                && sameBounds(a.getStoreMinPacks(), b.getStoreMinPacks(), 0)
+                && sameBounds(a.getStoreMaxPacks(), b.getStoreMaxPacks(), Integer.MAX_VALUE)
+                && sameLanes(a.getLanes(), b.getLanes())
+                && sameLocations(a.getLocations(), b.getLocations());
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash1);
+    }
+
+    @Override
+    public String toString() {
+        return "RequestFingerprint[" + Long.toHexString(hash1) + Long.toHexString(hash2)
+                + ", stores=" + problem.storeCount() + ", warehouses=" + problem.warehouseCount() + "]";
+    }
+
+    // A missing bound array means every store has the default bound
+    private static boolean sameBounds(int[] a, int[] b, int unbounded) {
+        if (a == null || b == null) {
+            int[] bounds = a != null ? a : b;
+            if (bounds != null) {
+                for (int bound : bounds) {
+                    if (bound != unbounded) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return Arrays.equals(a, b);
+    }
+
+    private static boolean sameLanes(SourcingLanes a, SourcingLanes b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return Arrays.equals(a.getStores(), b.getStores())
+                && Arrays.equals(a.getWarehouses(), b.getWarehouses())
+                && Arrays.equals(a.getCosts(), b.getCosts());
+    }
+
+    private static boolean sameLocations(SourcingLocations a, SourcingLocations b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return Arrays.equals(a.getStores(), b.getStores()) && Arrays.equals(a.getWarehouses(), b.getWarehouses());
+    }
+
+    private static int[] casepacks(List<CasepackOptimizerRequest.CasePack> casePacks) {
+        int length = 1;
+        for (CasepackOptimizerRequest.CasePack casePack : casePacks) {
+            length += 2 + (casePack.getSizeRatios() == null ? 0 : casePack.getSizeRatios().size());
+        }
+        int[] casepacks = new int[length];
+        int index = 0;
+        casepacks[index++] = casePacks.size();
+        for (CasepackOptimizerRequest.CasePack casePack : casePacks) {
+            casepacks[index++] = casePack.getPacks();
+            List<CasepackOptimizerRequest.CasePack.SizeRatio> ratios = casePack.getSizeRatios();
+            casepacks[index++] = ratios == null ? -1 : ratios.size();
+            if (ratios != null) {
+                for (CasepackOptimizerRequest.CasePack.SizeRatio ratio : ratios) {
+                    casepacks[index++] = ratio == null ? -1 : ratio.getQty();
+                }
+            }
+        }
+        return casepacks;
+    }
+
+    // Only stores with an effective bound contribute, so an empty bound map hashes like none
+    private static void bounds(long[] hashes, AllocationProblem problem) {
+        int[] minPacks = problem.getStoreMinPacks();
+        int[] maxPacks = problem.getStoreMaxPacks();
+        if (minPacks == null && maxPacks == null) {
+            return;
+        }
+        for (int i = 0; i < problem.storeCount(); i++) {
+            int min = minPacks != null ? minPacks[i] : 0;
+            int max = maxPacks != null ? maxPacks[i] : Integer.MAX_VALUE;
+            if (min > 0 || max < Integer.MAX_VALUE) {
+                add(hashes, BOUND_SEED ^ i);
+                add(hashes, ((long) min << 32) | (max & 0xFFFFFFFFL));
+            }
+        }
+    }
+
+    // An empty lane list still hashes differently from no lanes
+    private static void lanes(long[] hashes, AllocationProblem problem) {
+        SourcingLanes lanes = problem.getLanes();
+        if (lanes == null) {
+            return;
+        }
+        add(hashes, LANE_SEED ^ lanes.count());
+        for (int l = 0; l < lanes.count(); l++) {
+            add(hashes, ((long) lanes.getStores()[l] << 32) | lanes.getWarehouses()[l]);
+            add(hashes, lanes.getCosts()[l]);
+        }
+    }
+
+    private static void locations(long[] hashes, AllocationProblem problem) {
+        SourcingLocations locations = problem.getLocations();
+        if (locations == null) {
+            return;
+        }
+        add(hashes, LOCATION_SEED);
+        for (double coordinate : locations.getStores()) {
+            add(hashes, Double.doubleToLongBits(coordinate));
+        }
+        for (double coordinate : locations.getWarehouses()) {
+            add(hashes, Double.doubleToLongBits(coordinate));
+        }
+    }
+
+    // Regions are numbered by their first store, so the per-store numbers capture only the grouping
+    private static void regions(long[] hashes, AllocationProblem problem) {
+        int[] storeRegions = problem.getStoreRegions();
+        if (storeRegions == null) {
+            return;
+        }
+        add(hashes, REGION_SEED);
+        for (int region : storeRegions) {
+            add(hashes, region);
+        }
+    }
+
+    private static void entries(long[] hashes, String[] ids, int[] quantities, long seed) {
+        add(hashes, seed ^ ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            String id = ids[i];
+            // FNV-1a and a multiply-rotate hash over the same characters
+            long h1 = 0xCBF29CE484222325L ^ seed;
+            long h2 = seed;
+            for (int c = 0; c < id.length(); c++) {
+                char ch = id.charAt(c);
+                h1 = (h1 ^ ch) * 0x100000001B3L;
+                h2 = Long.rotateLeft(h2 + ch * 0xFF51AFD7ED558CCDL, 23) * 0x9FB21C651E98DF25L;
+            }
+            hashes[0] = mix((hashes[0] ^ h1) * STEP + quantities[i]);
+            hashes[1] = Long.rotateLeft(hashes[1] + mix(h2 + quantities[i] + ((long) id.length() << 32)), 27) * 0x9FB21C651E98DF25L;
+        }
+    }
+
+    // Folds one value into both hashes; the result depends on the order of the calls
+    private static void add(long[] hashes, long value) {
+        hashes[0] = mix((hashes[0] ^ value) * STEP);
+        hashes[1] = Long.rotateLeft(hashes[1] + mix(value ^ 0xD6E8FEB86659FD93L), 27) * 0x9FB21C651E98DF25L;
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
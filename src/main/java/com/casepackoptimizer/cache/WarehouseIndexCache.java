@@ -0,0 +1,68 @@
+package com.casepackoptimizer.cache;
+
+import com.casepackoptimizer.allocation.WarehouseKdTree;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of warehouse location indexes, so requests against the same warehouse set reuse one
+ * {@link WarehouseKdTree} instead of building their own. An index is reused only when the
+ * warehouse IDs, their order and their locations are all the same.
+ */
+public class WarehouseIndexCache {
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, WarehouseKdTree> entries;
+
+    public WarehouseIndexCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, WarehouseKdTree> eldest) {
+                return size() > WarehouseIndexCache.this.maxEntries;
+            }
+        };
+    }
+
+    public WarehouseKdTree get(String[] warehouseIds, double[] points) {
+        if (maxEntries <= 0) {
+            return WarehouseKdTree.build(points);
+        }
+        Key key = new Key(warehouseIds, points);
+        synchronized (entries) {
+            WarehouseKdTree index = entries.get(key);
+            if (index != null) {
+                return index;
+            }
+        }
+        // Built outside the lock; concurrent misses on one key build it twice, which is harmless
+        WarehouseKdTree index = WarehouseKdTree.build(points);
+        synchronized (entries) {
+            entries.put(key, index);
+        }
+        return index;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private record Key(String[] warehouseIds, double[] points) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key
+                    && Arrays.equals(warehouseIds, key.warehouseIds)
+                    && Arrays.equals(points, key.points);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(warehouseIds) + Arrays.hashCode(points);
+        }
+    }
+}
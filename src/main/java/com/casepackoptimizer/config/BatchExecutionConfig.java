@@ -0,0 +1,19 @@
+package com.casepackoptimizer.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class BatchExecutionConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool casepackBatchPool(CasepackOptimizerProperties properties) {
+        int parallelism = properties.getBatch().getParallelism();
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        return new ForkJoinPool(parallelism);
+    }
+}
@@ -0,0 +1,109 @@
+package com.casepackoptimizer.config;
+
+import com.casepackoptimizer.allocation.AllocationMode;
+import com.casepackoptimizer.allocation.WarehouseStrategy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "casepack")
+public class CasepackOptimizerProperties {
+
+    private Allocation allocation = new Allocation();
+    private Warehouse warehouse = new Warehouse();
+    private Batch batch = new Batch();
+    private Cache cache = new Cache();
+    private Session session = new Session();
+    private Parallel parallel = new Parallel();
+    private Bulk bulk = new Bulk();
+    private Admission admission = new Admission();
+    private Joint joint = new Joint();
+    private Sourcing sourcing = new Sourcing();
+
+    @Data
+    public static class Allocation {
+        // Used when a request does not name an allocation mode
+        private AllocationMode mode = AllocationMode.GREEDY;
+    }
+
+    @Data
+    public static class Warehouse {
+        // How allocated casepacks are split across warehouses
+        private WarehouseStrategy strategy = WarehouseStrategy.ROUND_ROBIN;
+    }
+
+    @Data
+    public static class Batch {
+        // Maximum number of SKU requests accepted in one batch call
+        private int maxSize = 1000;
+        // Worker threads used to optimize a batch; 0 means one per available processor
+        private int parallelism = 0;
+    }
+
+    @Data
+    public static class Cache {
+        // Repeated optimize requests are answered from memory while enabled
+        private boolean enabled = true;
+        // Upper bound on the estimated heap held by cached responses
+        private long maxBytes = 64L * 1024 * 1024;
+        // Cached responses older than this are recomputed
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Session {
+        // Sessions that receive no call for this long are discarded
+        private Duration idleTimeout = Duration.ofMinutes(30);
+        // Upper bound on the estimated heap held by all open sessions; the least recently used go first
+        private long maxBytes = 256L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Parallel {
+        // Requests with at least this many stores are optimized on all cores; 0 turns this off
+        private int threshold = 50_000;
+    }
+
+    @Data
+    public static class Bulk {
+        // Input files for a bulk run: sku,store,need / sku,warehouse,qty / sku,packs,ratios
+        private Path needs;
+        private Path stock;
+        private Path casepacks;
+        // Setting the output file turns the bulk run on
+        private Path output;
+    }
+
+    @Data
+    public static class Admission {
+        // Optimize calls are admitted against a shared cost budget while enabled
+        private boolean enabled = true;
+        // Budget in cost units; a request costs its stores plus warehouses plus the casepacks it can hand out
+        private int capacity = 2_000_000;
+        // Requests up to this cost first try the small lane, which never waits behind large ones
+        private int smallCost = 10_000;
+        // Small requests that can run at once in the small lane
+        private int smallConcurrency = 64;
+        // Requests allowed to wait for budget; beyond this they are rejected at once
+        private int queueSize = 100;
+        // Longest a request waits for budget before it is rejected
+        private Duration maxWait = Duration.ofSeconds(2);
+        // Sent as Retry-After on rejected requests
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Joint {
+        // Upper bound on how often the SKUs of a joint request are solved while capacity is re-offered
+        private int maxRounds = 8;
+    }
+
+    @Data
+    public static class Sourcing {
+        // Warehouse location indexes kept for requests with the same warehouses; 0 builds one per request
+        private int indexCacheSize = 32;
+    }
+}
\ No newline at end of file
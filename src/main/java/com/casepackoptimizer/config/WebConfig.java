@@ -0,0 +1,65 @@
+package com.casepackoptimizer.config;
+
+import com.casepackoptimizer.dto.CasepackBatchResponse;
+import com.casepackoptimizer.dto.CasepackJointResponse;
+import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import com.casepackoptimizer.json.CasepackOptimizerResponseSerializer;
+import com.casepackoptimizer.metrics.CasepackMetrics;
+import com.casepackoptimizer.web.CasepackBinaryHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.ContextAttributes;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    // Compact JSON without zero allocations, requested by Accept header or ?format=sparse
+    public static final MediaType SPARSE_JSON = MediaType.parseMediaType("application/vnd.casepack.sparse+json");
+
+    private final CasepackMetrics metrics;
+
+    @Override
+    public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
+        configurer.favorParameter(true)
+                .parameterName("format")
+                .mediaType("json", MediaType.APPLICATION_JSON)
+                .mediaType("sparse", SPARSE_JSON);
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2HttpMessageConverter jackson) {
+                registerSparseJson(jackson);
+            }
+        }
+        // Added after Jackson so JSON stays the default when the client accepts anything
+        converters.add(new CasepackBinaryHttpMessageConverter(metrics));
+    }
+
+    // The regular mapper is registered first so plain JSON still wins when the client accepts anything
+    private static void registerSparseJson(MappingJackson2HttpMessageConverter jackson) {
+        ObjectMapper json = jackson.getObjectMapper();
+        ObjectMapper sparse = json.copy()
+                .disable(SerializationFeature.INDENT_OUTPUT)
+                .setDefaultAttributes(ContextAttributes.getEmpty()
+                        .withSharedAttribute(CasepackOptimizerResponseSerializer.SPARSE, Boolean.TRUE));
+        for (Class<?> type : List.of(CasepackOptimizerResponse.class, CasepackBatchResponse.class,
+                CasepackJointResponse.class)) {
+            jackson.registerObjectMappersForType(type, mappers -> {
+                mappers.put(MediaType.APPLICATION_JSON, json);
+                mappers.put(SPARSE_JSON, sparse);
+            });
+        }
+    }
+}
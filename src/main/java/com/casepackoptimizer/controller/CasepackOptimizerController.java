@@ -1,22 +1,95 @@
 package com.casepackoptimizer.controller;
 
+import com.casepackoptimizer.dto.CasepackBatchRequest;
+import com.casepackoptimizer.dto.CasepackBatchResponse;
+import com.casepackoptimizer.dto.CasepackJointRequest;
+import com.casepackoptimizer.dto.CasepackJointResponse;
 import com.casepackoptimizer.dto.CasepackOptimizerRequest;
 import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import com.casepackoptimizer.dto.CasepackSessionDelta;
+import com.casepackoptimizer.dto.CasepackSessionResponse;
+import com.casepackoptimizer.service.CasepackAdmissionService;
+import com.casepackoptimizer.service.CasepackBatchService;
+import com.casepackoptimizer.service.CasepackJointService;
 import com.casepackoptimizer.service.CasepackOptimizerService;
+import com.casepackoptimizer.service.CasepackSessionService;
+import com.casepackoptimizer.service.CasepackStreamingService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 @RestController
 @RequestMapping("/api/v1/casepack")
 @RequiredArgsConstructor
 public class CasepackOptimizerController {
 
     private final CasepackOptimizerService casepackOptimizerService;
+    private final CasepackBatchService casepackBatchService;
+    private final CasepackJointService casepackJointService;
+    private final CasepackStreamingService casepackStreamingService;
+    private final CasepackSessionService casepackSessionService;
+    private final CasepackAdmissionService casepackAdmissionService;
 
     @PostMapping("/optimize")
     public ResponseEntity<CasepackOptimizerResponse> optimizeCasepacks(@RequestBody CasepackOptimizerRequest request) {
-        CasepackOptimizerResponse response = casepackOptimizerService.optimizeCasepacks(request);
+        CasepackOptimizerResponse response = casepackAdmissionService.admit(
+                CasepackAdmissionService.estimateCost(request),
+                () -> casepackOptimizerService.optimizeCasepacks(request));
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/optimize/batch")
+    public ResponseEntity<CasepackBatchResponse> optimizeBatch(@RequestBody CasepackBatchRequest request) {
+        CasepackBatchResponse response = casepackAdmissionService.admit(
+                CasepackAdmissionService.estimateCost(request),
+                () -> casepackBatchService.optimizeBatch(request));
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/optimize/joint")
+    public ResponseEntity<CasepackJointResponse> optimizeJoint(@RequestBody CasepackJointRequest request) {
+        CasepackJointResponse response = casepackAdmissionService.admit(
+                CasepackAdmissionService.estimateCost(request),
+                () -> casepackJointService.optimize(request));
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping(value = "/optimize/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void optimizeStream(InputStream requestBody, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        casepackStreamingService.optimizeStream(requestBody, response.getOutputStream());
+    }
+
+    @PostMapping("/sessions")
+    public ResponseEntity<CasepackSessionResponse> createSession(@RequestBody CasepackOptimizerRequest request) {
+        CasepackSessionResponse response = casepackAdmissionService.admit(
+                CasepackAdmissionService.estimateCost(request),
+                () -> casepackSessionService.create(request));
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @GetMapping("/sessions/{sessionId}")
+    public ResponseEntity<CasepackSessionResponse> getSession(@PathVariable String sessionId) {
+        return ResponseEntity.ok(casepackSessionService.get(sessionId));
+    }
+
+    @PatchMapping("/sessions/{sessionId}")
+    public ResponseEntity<CasepackSessionResponse> updateSession(@PathVariable String sessionId,
+                                                                 @RequestBody CasepackSessionDelta delta,
+                                                                 @RequestParam(defaultValue = "false") boolean changesOnly) {
+        CasepackSessionResponse response = casepackSessionService.update(sessionId, delta, changesOnly);
         return ResponseEntity.ok(response);
     }
+
+    @DeleteMapping("/sessions/{sessionId}")
+    public ResponseEntity<Void> deleteSession(@PathVariable String sessionId) {
+        casepackSessionService.delete(sessionId);
+        return ResponseEntity.noContent().build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.casepackoptimizer.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CasepackBatchRequest {
+
+    @JsonProperty("requests")
+    private List<CasepackOptimizerRequest> requests;
+}
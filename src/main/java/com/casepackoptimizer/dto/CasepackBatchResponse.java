@@ -0,0 +1,18 @@
+package com.casepackoptimizer.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CasepackBatchResponse {
+
+    // One entry per request, in the order the requests were sent
+    @JsonProperty("results")
+    private List<CasepackBatchResult> results;
+}
@@ -0,0 +1,25 @@
+package com.casepackoptimizer.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CasepackBatchResult {
+
+    @JsonProperty("index")
+    private int index;
+
+    // Set when the request was optimized successfully
+    @JsonProperty("response")
+    private CasepackOptimizerResponse response;
+
+    // Set instead of response when the request could not be optimized
+    @JsonProperty("error")
+    private String error;
+}
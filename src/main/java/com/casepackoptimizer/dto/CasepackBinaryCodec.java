@@ -0,0 +1,520 @@
+package com.casepackoptimizer.dto;
+
+import com.casepackoptimizer.allocation.AllocationMode;
+import com.casepackoptimizer.model.IndexedIntMap;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of the optimize DTOs, served as {@value #MEDIA_TYPE}.
+ *
+ * <p>Every message starts with the bytes {@code 'C' 'P' 'K'}, a format version and a message
+ * type. Then comes a string table: a varint count followed by length-prefixed UTF-8 strings.
+ * Every store and warehouse ID in the message is written once in that table and referenced by
+ * its varint position afterwards, so a batch that repeats the same stores across SKUs only
+ * carries each ID once. Counts and table references are unsigned varints. Quantities are
+ * zig-zag varints, so small negative values stay short. Nullable fields are written as
+ * {@code count + 1}, with 0 meaning null. A store or warehouse that appears twice in one
+ * quantity map keeps its first position and its last value, as in the JSON format.
+ *
+ * <p>Region groupings and store bounds are not part of the format; requests that use them are
+ * sent as JSON.
+ *
+ * <p>The codec only depends on the DTO classes and {@code java.io}, and it uses no reflection,
+ * so clients can copy it as it is.
+ */
+public final class CasepackBinaryCodec {
+
+    public static final String MEDIA_TYPE = "application/x-casepack";
+
+    private static final int VERSION = 1;
+    private static final int REQUEST = 1;
+    private static final int RESPONSE = 2;
+    private static final int BATCH_REQUEST = 3;
+    private static final int BATCH_RESPONSE = 4;
+    private static final AllocationMode[] MODES = AllocationMode.values();
+    // Counts come from the message, so nothing is pre-sized beyond this before it is read
+    private static final int MAX_PRESIZE = 1024;
+
+    private CasepackBinaryCodec() {
+    }
+
+    public static void writeRequest(CasepackOptimizerRequest request, OutputStream out) throws IOException {
+        Writer writer = new Writer(out);
+        writer.collectRequest(request);
+        writer.writeHeader(REQUEST);
+        writer.writeRequest(request);
+        writer.flush();
+    }
+
+    public static CasepackOptimizerRequest readRequest(InputStream in) throws IOException {
+        Reader reader = new Reader(in, REQUEST);
+        return reader.readRequest();
+    }
+
+    public static void writeResponse(CasepackOptimizerResponse response, OutputStream out) throws IOException {
+        Writer writer = new Writer(out);
+        writer.collectResponse(response);
+        writer.writeHeader(RESPONSE);
+        writer.writeResponse(response);
+        writer.flush();
+    }
+
+    public static CasepackOptimizerResponse readResponse(InputStream in) throws IOException {
+        Reader reader = new Reader(in, RESPONSE);
+        return reader.readResponse();
+    }
+
+    public static void writeBatchRequest(CasepackBatchRequest batch, OutputStream out) throws IOException {
+        Writer writer = new Writer(out);
+        if (batch.getRequests() != null) {
+            for (CasepackOptimizerRequest request : batch.getRequests()) {
+                writer.collectRequest(request);
+            }
+        }
+        writer.writeHeader(BATCH_REQUEST);
+        if (batch.getRequests() == null) {
+            writer.writeVarint(0);
+        } else {
+            writer.writeVarint(batch.getRequests().size() + 1L);
+            for (CasepackOptimizerRequest request : batch.getRequests()) {
+                writer.writeRequest(request);
+            }
+        }
+        writer.flush();
+    }
+
+    public static CasepackBatchRequest readBatchRequest(InputStream in) throws IOException {
+        Reader reader = new Reader(in, BATCH_REQUEST);
+        int count = reader.readNullableCount();
+        if (count < 0) {
+            return new CasepackBatchRequest(null);
+        }
+        List<CasepackOptimizerRequest> requests = new ArrayList<>(Math.min(count, MAX_PRESIZE));
+        for (int i = 0; i < count; i++) {
+            requests.add(reader.readRequest());
+        }
+        return new CasepackBatchRequest(requests);
+    }
+
+    public static void writeBatchResponse(CasepackBatchResponse batch, OutputStream out) throws IOException {
+        Writer writer = new Writer(out);
+        for (CasepackBatchResult result : batch.getResults()) {
+            if (result.getResponse() != null) {
+                writer.collectResponse(result.getResponse());
+            }
+        }
+        writer.writeHeader(BATCH_RESPONSE);
+        writer.writeVarint(batch.getResults().size());
+        for (CasepackBatchResult result : batch.getResults()) {
+            writer.writeVarint(result.getIndex());
+            if (result.getResponse() != null) {
+                writer.writeVarint(1);
+                writer.writeResponse(result.getResponse());
+            } else {
+                writer.writeVarint(2);
+                writer.writeString(result.getError() != null ? result.getError() : "");
+            }
+        }
+        writer.flush();
+    }
+
+    public static CasepackBatchResponse readBatchResponse(InputStream in) throws IOException {
+        Reader reader = new Reader(in, BATCH_RESPONSE);
+        int count = reader.readCount();
+        List<CasepackBatchResult> results = new ArrayList<>(Math.min(count, MAX_PRESIZE));
+        for (int i = 0; i < count; i++) {
+            CasepackBatchResult.CasepackBatchResultBuilder result = CasepackBatchResult.builder().index(reader.readCount());
+            int kind = reader.readCount();
+            if (kind == 1) {
+                result.response(reader.readResponse());
+            } else if (kind == 2) {
+                result.error(reader.readString());
+            } else {
+                throw new IOException("Unknown batch result kind " + kind);
+            }
+            results.add(result.build());
+        }
+        return new CasepackBatchResponse(results);
+    }
+
+    private static final class Writer {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[8192];
+        private final Map<String, Integer> positions = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private int length;
+
+        Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        void collectRequest(CasepackOptimizerRequest request) {
+            collectKeys(request.getNeedPerStore());
+            collectKeys(request.getWarehouseAvailableQty());
+        }
+
+        void collectResponse(CasepackOptimizerResponse response) {
+            collectKeys(response.getStores());
+            collectKeys(response.getStoreCasePacks());
+            collectKeys(response.getWarehouses());
+        }
+
+        void writeHeader(int messageType) throws IOException {
+            writeByte('C');
+            writeByte('P');
+            writeByte('K');
+            writeByte(VERSION);
+            writeByte(messageType);
+            writeVarint(strings.size());
+            for (String value : strings) {
+                writeString(value);
+            }
+        }
+
+        void writeRequest(CasepackOptimizerRequest request) throws IOException {
+            if (request.getRegions() != null
+                    || request.getMinPacksPerStore() != null
+                    || request.getMaxPacksPerStore() != null
+                    || request.getLanes() != null
+                    || request.getStoreLocations() != null
+                    || request.getWarehouseLocations() != null) {
+                throw new IllegalArgumentException("Regions, store bounds, lanes and locations cannot be sent in the binary format");
+            }
+            writeCasePacks(request.getCasePacks());
+            writeQuantities(request.getNeedPerStore());
+            writeQuantities(request.getWarehouseAvailableQty());
+            writeVarint(request.getAllocationMode() == null ? 0 : request.getAllocationMode().ordinal() + 1);
+        }
+
+        void writeResponse(CasepackOptimizerResponse response) throws IOException {
+            if (response.getSourcing() != null) {
+                throw new IllegalArgumentException("Sourcing cannot be sent in the binary format");
+            }
+            writeCasePacks(response.getCasePacks());
+            writeQuantities(response.getStores());
+            Map<String, List<Integer>> storeCasePacks = response.getStoreCasePacks();
+            if (storeCasePacks == null) {
+                writeVarint(0);
+            } else {
+                writeVarint(storeCasePacks.size() + 1L);
+                for (Map.Entry<String, List<Integer>> entry : storeCasePacks.entrySet()) {
+                    writeVarint(positions.get(entry.getKey()));
+                    writeVarint(entry.getValue().size());
+                    for (Integer packs : entry.getValue()) {
+                        writeZigZag(packs);
+                    }
+                }
+            }
+            writeQuantities(response.getWarehouses());
+            writeZigZag(response.getRemainingSupply());
+        }
+
+        private void collectKeys(Map<String, ?> map) {
+            if (map != null) {
+                for (String key : map.keySet()) {
+                    if (positions.putIfAbsent(key, strings.size()) == null) {
+                        strings.add(key);
+                    }
+                }
+            }
+        }
+
+        private void writeCasePacks(List<CasepackOptimizerRequest.CasePack> casePacks) throws IOException {
+            if (casePacks == null) {
+                writeVarint(0);
+                return;
+            }
+            writeVarint(casePacks.size() + 1L);
+            for (CasepackOptimizerRequest.CasePack casePack : casePacks) {
+                writeZigZag(casePack.getPacks());
+                List<CasepackOptimizerRequest.CasePack.SizeRatio> ratios = casePack.getSizeRatios();
+                if (ratios == null) {
+                    writeVarint(0);
+                    continue;
+                }
+                writeVarint(ratios.size() + 1L);
+                for (CasepackOptimizerRequest.CasePack.SizeRatio ratio : ratios) {
+                    writeZigZag(ratio.getQty());
+                }
+            }
+        }
+
+        private void writeQuantities(Map<String, Integer> quantities) throws IOException {
+            if (quantities == null) {
+                writeVarint(0);
+                return;
+            }
+            writeVarint(quantities.size() + 1L);
+            if (quantities instanceof IndexedIntMap indexed) {
+                String[] keys = indexed.keyArray();
+                int[] values = indexed.valueArray();
+                for (int i = 0; i < keys.length; i++) {
+                    writeVarint(positions.get(keys[i]));
+                    writeZigZag(values[i]);
+                }
+            } else {
+                for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                    writeVarint(positions.get(entry.getKey()));
+                    writeZigZag(entry.getValue());
+                }
+            }
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            for (byte b : bytes) {
+                writeByte(b);
+            }
+        }
+
+        void writeZigZag(int value) throws IOException {
+            writeVarint(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+        }
+
+        void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        private void writeByte(int value) throws IOException {
+            if (length == buffer.length) {
+                out.write(buffer, 0, length);
+                length = 0;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, length);
+            length = 0;
+            out.flush();
+        }
+    }
+
+    private static final class Reader {
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[8192];
+        private final String[] strings;
+        // First table index holding the same string, so duplicates in the table count as one key
+        private final int[] canonical;
+        // Position + 1 of each canonical string in the quantity map being read, 0 when not seen
+        private final int[] quantitySlots;
+        private int position;
+        private int limit;
+
+        Reader(InputStream in, int expectedType) throws IOException {
+            this.in = in;
+            if (readByte() != 'C' || readByte() != 'P' || readByte() != 'K') {
+                throw new IOException("Not a casepack binary message");
+            }
+            int version = readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported casepack binary version " + version);
+            }
+            int messageType = readByte();
+            if (messageType != expectedType) {
+                throw new IOException("Expected message type " + expectedType + " but found " + messageType);
+            }
+            int count = readCount();
+            String[] table = new String[Math.min(count, MAX_PRESIZE)];
+            int[] firsts = new int[table.length];
+            Map<String, Integer> seen = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                if (i == table.length) {
+                    int capacity = (int) Math.min(count, i * 2L);
+                    table = Arrays.copyOf(table, capacity);
+                    firsts = Arrays.copyOf(firsts, capacity);
+                }
+                table[i] = readString();
+                Integer first = seen.putIfAbsent(table[i], i);
+                firsts[i] = first != null ? first : i;
+            }
+            strings = table;
+            canonical = firsts;
+            quantitySlots = new int[count];
+        }
+
+        CasepackOptimizerRequest readRequest() throws IOException {
+            CasepackOptimizerRequest request = new CasepackOptimizerRequest();
+            request.setCasePacks(readCasePacks());
+            request.setNeedPerStore(readQuantities());
+            request.setWarehouseAvailableQty(readQuantities());
+            int mode = readCount();
+            if (mode > MODES.length) {
+                throw new IOException("Unknown allocation mode " + mode);
+            }
+            request.setAllocationMode(mode == 0 ? null : MODES[mode - 1]);
+            return request;
+        }
+
+        CasepackOptimizerResponse readResponse() throws IOException {
+            CasepackOptimizerResponse.CasepackOptimizerResponseBuilder response = CasepackOptimizerResponse.builder()
+                    .casePacks(readCasePacks())
+                    .stores(readQuantities());
+            int count = readNullableCount();
+            if (count >= 0) {
+                Map<String, List<Integer>> storeCasePacks = new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    String store = readReference();
+                    int types = readCount();
+                    List<Integer> mix = new ArrayList<>(Math.min(types, MAX_PRESIZE));
+                    for (int t = 0; t < types; t++) {
+                        mix.add(readZigZag());
+                    }
+                    storeCasePacks.put(store, mix);
+                }
+                response.storeCasePacks(storeCasePacks);
+            }
+            return response
+                    .warehouses(readQuantities())
+                    .remainingSupply(readZigZag())
+                    .build();
+        }
+
+        private List<CasepackOptimizerRequest.CasePack> readCasePacks() throws IOException {
+            int count = readNullableCount();
+            if (count < 0) {
+                return null;
+            }
+            List<CasepackOptimizerRequest.CasePack> casePacks = new ArrayList<>(Math.min(count, MAX_PRESIZE));
+            for (int i = 0; i < count; i++) {
+                int packs = readZigZag();
+                int ratioCount = readNullableCount();
+                List<CasepackOptimizerRequest.CasePack.SizeRatio> ratios = null;
+                if (ratioCount >= 0) {
+                    ratios = new ArrayList<>(Math.min(ratioCount, MAX_PRESIZE));
+                    for (int r = 0; r < ratioCount; r++) {
+                        ratios.add(new CasepackOptimizerRequest.CasePack.SizeRatio(readZigZag()));
+                    }
+                }
+                casePacks.add(new CasepackOptimizerRequest.CasePack(packs, ratios));
+            }
+            return casePacks;
+        }
+
+        private IndexedIntMap readQuantities() throws IOException {
+            int count = readNullableCount();
+            if (count < 0) {
+                return null;
+            }
+            String[] keys = new String[Math.min(count, MAX_PRESIZE)];
+            int[] values = new int[keys.length];
+            int[] references = new int[keys.length];
+            int size = 0;
+            try {
+                for (int i = 0; i < count; i++) {
+                    int reference = canonical[readReferenceIndex()];
+                    int value = readZigZag();
+                    int slot = quantitySlots[reference];
+                    if (slot != 0) {
+                        // Same key again: keep its first position and its last value
+                        values[slot - 1] = value;
+                        continue;
+                    }
+                    if (size == keys.length) {
+                        int capacity = (int) Math.min(count, size * 2L);
+                        keys = Arrays.copyOf(keys, capacity);
+                        values = Arrays.copyOf(values, capacity);
+                        references = Arrays.copyOf(references, capacity);
+                    }
+                    keys[size] = strings[reference];
+                    values[size] = value;
+                    references[size] = reference;
+                    quantitySlots[reference] = ++size;
+                }
+            } finally {
+                for (int i = 0; i < size; i++) {
+                    quantitySlots[references[i]] = 0;
+                }
+            }
+            if (size < keys.length) {
+                keys = Arrays.copyOf(keys, size);
+                values = Arrays.copyOf(values, size);
+            }
+            return new IndexedIntMap(keys, values);
+        }
+
+        private String readReference() throws IOException {
+            return strings[readReferenceIndex()];
+        }
+
+        private int readReferenceIndex() throws IOException {
+            int index = readCount();
+            if (index >= strings.length) {
+                throw new IOException("String reference " + index + " is outside the table");
+            }
+            return index;
+        }
+
+        String readString() throws IOException {
+            int length = readCount();
+            byte[] bytes = new byte[Math.min(length, buffer.length)];
+            for (int i = 0; i < length; i++) {
+                if (i == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, (int) Math.min(length, i * 2L));
+                }
+                bytes[i] = (byte) readByte();
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Returns -1 for null
+        int readNullableCount() throws IOException {
+            return readCount() - 1;
+        }
+
+        int readCount() throws IOException {
+            long value = readVarint();
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Count " + value + " is too large");
+            }
+            return (int) value;
+        }
+
+        int readZigZag() throws IOException {
+            int value = (int) readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private int readByte() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    throw new EOFException("Unexpected end of casepack binary message");
+                }
+            }
+            return buffer[position++] & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.casepackoptimizer.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CasepackJointRequest {
+
+    // One optimize request per SKU
+    @JsonProperty("skus")
+    private List<CasepackOptimizerRequest> skus;
+
+    // Casepacks each warehouse can ship across all SKUs; unlisted warehouses are only limited by stock
+    @JsonProperty("warehouseCapacity")
+    private Map<String, Integer> warehouseCapacity;
+}
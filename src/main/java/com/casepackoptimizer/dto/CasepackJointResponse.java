@@ -0,0 +1,29 @@
+package com.casepackoptimizer.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CasepackJointResponse {
+
+    // One entry per SKU, in the order the SKUs were sent
+    @JsonProperty("results")
+    private List<CasepackBatchResult> results;
+
+    // Casepacks shipped from each capacity-limited warehouse across all SKUs
+    @JsonProperty("warehouseLoad")
+    private Map<String, Integer> warehouseLoad;
+
+    // Times the SKUs were solved before the allotments settled
+    @JsonProperty("rounds")
+    private int rounds;
+}
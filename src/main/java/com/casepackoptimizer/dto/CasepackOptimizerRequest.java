@@ -1,5 +1,6 @@
 package com.casepackoptimizer.dto;
 
+import com.casepackoptimizer.allocation.AllocationMode;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,6 +23,32 @@ public class CasepackOptimizerRequest {
     @JsonProperty("warehouseAvailableQty")
     private Map<String, Integer> warehouseAvailableQty;
 
+    @JsonProperty("allocationMode")
+    private AllocationMode allocationMode;
+
+    // Optional region name to store IDs; packs are split across regions first, then across their stores
+    @JsonProperty("regions")
+    private Map<String, List<String>> regions;
+
+    // Optional casepacks every listed store receives before fair share, e.g. presentation stock
+    @JsonProperty("minPacksPerStore")
+    private Map<String, Integer> minPacksPerStore;
+
+    // Optional casepack caps per store, e.g. shelf capacity
+    @JsonProperty("maxPacksPerStore")
+    private Map<String, Integer> maxPacksPerStore;
+
+    // Optional store-warehouse lanes; when set the response says which warehouse ships to which store
+    @JsonProperty("lanes")
+    private List<Lane> lanes;
+
+    // Optional store and warehouse positions; without lanes, stores are sourced from their nearest warehouses
+    @JsonProperty("storeLocations")
+    private Map<String, Location> storeLocations;
+
+    @JsonProperty("warehouseLocations")
+    private Map<String, Location> warehouseLocations;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -36,4 +63,23 @@ public class CasepackOptimizerRequest {
             private int qty;
         }
     }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Lane {
+        private String store;
+        private String warehouse;
+        // Cost of shipping one casepack on this lane, in whole units such as cents
+        private long cost;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Location {
+        // Degrees
+        private double latitude;
+        private double longitude;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.casepackoptimizer.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,7 +13,7 @@ import java.util.Map;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class CasepackOptimizerResponse {
 
     @JsonProperty("casePacks")
@@ -21,9 +22,32 @@ public class CasepackOptimizerResponse {
     @JsonProperty("stores")
     private Map<String, Integer> stores;
 
+    // Packs per store for each entry of casePacks, only set when several casepacks were sent
+    @JsonProperty("storeCasePacks")
+    private Map<String, List<Integer>> storeCasePacks;
+
     @JsonProperty("warehouses")
     private Map<String, Integer> warehouses;
 
+    // Packs shipped on each used lane, only set when the request sent lanes or locations
+    @JsonProperty("sourcing")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Shipment> sourcing;
+
     @JsonProperty("remainingSupply")
     private int remainingSupply;
+
+    // Phase breakdown, only set for JSON responses to requests sent with X-Casepack-Profile: json
+    @JsonProperty("profile")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private CasepackProfile profile;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Shipment {
+        private String store;
+        private String warehouse;
+        private int packs;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.casepackoptimizer.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CasepackProfile {
+
+    // Keyed by phase; serialization is still running when this block is written, so it is absent
+    @JsonProperty("phases")
+    private Map<String, PhaseProfile> phases;
+
+    // Packs handed out one by one by the greedy allocator, when it ran
+    @JsonProperty("greedyIterations")
+    private Long greedyIterations;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PhaseProfile {
+        private double durationMs;
+        private long allocatedBytes;
+    }
+}
@@ -0,0 +1,22 @@
+package com.casepackoptimizer.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CasepackSessionDelta {
+
+    // New needs for the stores that changed; stores not listed keep their need
+    @JsonProperty("needPerStore")
+    private Map<String, Integer> needPerStore;
+
+    // New stock for the warehouses that changed
+    @JsonProperty("warehouseAvailableQty")
+    private Map<String, Integer> warehouseAvailableQty;
+}
@@ -0,0 +1,29 @@
+package com.casepackoptimizer.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CasepackSessionResponse {
+
+    @JsonProperty("sessionId")
+    private String sessionId;
+
+    // Every store and warehouse, or only those whose packs changed when changes were requested
+    @JsonProperty("stores")
+    private Map<String, Integer> stores;
+
+    @JsonProperty("warehouses")
+    private Map<String, Integer> warehouses;
+
+    @JsonProperty("remainingSupply")
+    private int remainingSupply;
+}
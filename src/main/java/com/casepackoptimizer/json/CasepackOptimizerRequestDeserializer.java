@@ -0,0 +1,116 @@
+package com.casepackoptimizer.json;
+
+import com.casepackoptimizer.allocation.AllocationMode;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import com.casepackoptimizer.metrics.CasepackMetrics;
+import com.casepackoptimizer.model.IndexedIntMap;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Reads {@link CasepackOptimizerRequest} token by token. The store and warehouse quantity objects,
+ * which make up almost all of a large payload, go straight into {@link IndexedIntMap} arrays
+ * instead of a boxed {@code LinkedHashMap}; the optimizer then uses those arrays as its model.
+ * Store IDs come from Jackson's field-name symbol table, so a store seen in an earlier request
+ * reuses the same String instance. The JSON shape is unchanged.
+ */
+@JsonComponent
+public class CasepackOptimizerRequestDeserializer extends StdDeserializer<CasepackOptimizerRequest> {
+
+    private static final JavaType CASE_PACK_LIST = TypeFactory.defaultInstance()
+            .constructCollectionType(List.class, CasepackOptimizerRequest.CasePack.class);
+    private static final JavaType LANE_LIST = TypeFactory.defaultInstance()
+            .constructCollectionType(List.class, CasepackOptimizerRequest.Lane.class);
+    private static final JavaType LOCATION_MAP = TypeFactory.defaultInstance()
+            .constructMapType(LinkedHashMap.class, String.class, CasepackOptimizerRequest.Location.class);
+    private static final JavaType REGION_MAP = TypeFactory.defaultInstance()
+            .constructMapType(LinkedHashMap.class, TypeFactory.defaultInstance().constructType(String.class),
+                    TypeFactory.defaultInstance().constructCollectionType(List.class, String.class));
+
+    private final CasepackMetrics metrics;
+
+    public CasepackOptimizerRequestDeserializer() {
+        this(CasepackMetrics.noop());
+    }
+
+    @Autowired
+    public CasepackOptimizerRequestDeserializer(CasepackMetrics metrics) {
+        super(CasepackOptimizerRequest.class);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public CasepackOptimizerRequest deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        long start = metrics.startPhase();
+        CasepackOptimizerRequest request = readRequest(p, ctxt);
+        metrics.recordPhase(CasepackMetrics.Phase.PARSE, start);
+        return request;
+    }
+
+    private CasepackOptimizerRequest readRequest(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
+
+        CasepackOptimizerRequest request = new CasepackOptimizerRequest();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "casePacks" -> request.setCasePacks(value == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, CASE_PACK_LIST));
+                case "needPerStore" -> request.setNeedPerStore(readQuantities(p, ctxt));
+                case "warehouseAvailableQty" -> request.setWarehouseAvailableQty(readQuantities(p, ctxt));
+                case "allocationMode" -> request.setAllocationMode(value == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, AllocationMode.class));
+                case "regions" -> request.setRegions(value == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, REGION_MAP));
+                case "minPacksPerStore" -> request.setMinPacksPerStore(readQuantities(p, ctxt));
+                case "maxPacksPerStore" -> request.setMaxPacksPerStore(readQuantities(p, ctxt));
+                case "lanes" -> request.setLanes(value == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, LANE_LIST));
+                case "storeLocations" -> request.setStoreLocations(value == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, LOCATION_MAP));
+                case "warehouseLocations" -> request.setWarehouseLocations(value == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, LOCATION_MAP));
+                default -> p.skipChildren();
+            }
+        }
+
+        if (token != JsonToken.END_OBJECT) {
+            return (CasepackOptimizerRequest) ctxt.handleUnexpectedToken(CasepackOptimizerRequest.class, p);
+        }
+        return request;
+    }
+
+    private IndexedIntMap readQuantities(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            return (IndexedIntMap) ctxt.handleUnexpectedToken(IndexedIntMap.class, p);
+        }
+
+        QuantityTableBuilder builder = QuantityTableBuilder.current();
+        for (JsonToken token = p.nextToken(); token != JsonToken.END_OBJECT; token = p.nextToken()) {
+            String id = p.currentName();
+            JsonToken value = p.nextToken();
+            if (value == JsonToken.VALUE_NUMBER_INT) {
+                builder.put(id, p.getIntValue());
+            } else {
+                // Rare shapes such as "12" or 12.0 get Jackson's usual coercion rules
+                Integer quantity = ctxt.readValue(p, Integer.class);
+                if (quantity == null) {
+                    ctxt.reportInputMismatch(this, "Quantity for '%s' cannot be null", id);
+                }
+                builder.put(id, quantity);
+            }
+        }
+        return builder.build();
+    }
+}
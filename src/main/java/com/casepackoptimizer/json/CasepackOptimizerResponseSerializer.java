@@ -0,0 +1,129 @@
+package com.casepackoptimizer.json;
+
+import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import com.casepackoptimizer.metrics.CasepackMetrics;
+import com.casepackoptimizer.model.IndexedIntMap;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes {@link CasepackOptimizerResponse} directly to the generator. Store and warehouse
+ * allocations backed by {@link IndexedIntMap} are written from their arrays without creating
+ * entry objects or boxing. Null fields are always left out on purpose; this serializer does not
+ * follow the mapper's property inclusion setting.
+ *
+ * <p>When the {@link #SPARSE} attribute is set, stores and warehouses allocated nothing are left
+ * out as well; clients read a missing key as zero.
+ */
+@JsonComponent
+public class CasepackOptimizerResponseSerializer extends StdSerializer<CasepackOptimizerResponse> {
+
+    public static final String SPARSE = "casepack.sparse";
+
+    private final CasepackMetrics metrics;
+
+    public CasepackOptimizerResponseSerializer() {
+        this(CasepackMetrics.noop());
+    }
+
+    @Autowired
+    public CasepackOptimizerResponseSerializer(CasepackMetrics metrics) {
+        super(CasepackOptimizerResponse.class);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void serialize(CasepackOptimizerResponse response, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        long start = metrics.startPhase();
+        boolean sparse = Boolean.TRUE.equals(provider.getAttribute(SPARSE));
+        gen.writeStartObject(response);
+        if (response.getCasePacks() != null) {
+            gen.writeFieldName("casePacks");
+            provider.defaultSerializeValue(response.getCasePacks(), gen);
+        }
+        writeQuantities(gen, "stores", response.getStores(), sparse);
+        if (response.getStoreCasePacks() != null) {
+            gen.writeFieldName("storeCasePacks");
+            if (sparse) {
+                writeNonZeroMixes(gen, response.getStoreCasePacks(), provider);
+            } else {
+                provider.defaultSerializeValue(response.getStoreCasePacks(), gen);
+            }
+        }
+        writeQuantities(gen, "warehouses", response.getWarehouses(), sparse);
+        if (response.getSourcing() != null) {
+            writeSourcing(gen, response.getSourcing());
+        }
+        gen.writeNumberField("remainingSupply", response.getRemainingSupply());
+        if (response.getProfile() != null) {
+            gen.writeFieldName("profile");
+            provider.defaultSerializeValue(response.getProfile(), gen);
+        }
+        gen.writeEndObject();
+        metrics.recordPhase(CasepackMetrics.Phase.SERIALIZATION, start);
+    }
+
+    // Only used lanes are listed, so sparse and full output are the same
+    private static void writeSourcing(JsonGenerator gen, List<CasepackOptimizerResponse.Shipment> sourcing)
+            throws IOException {
+        gen.writeArrayFieldStart("sourcing");
+        for (CasepackOptimizerResponse.Shipment shipment : sourcing) {
+            gen.writeStartObject();
+            gen.writeStringField("store", shipment.getStore());
+            gen.writeStringField("warehouse", shipment.getWarehouse());
+            gen.writeNumberField("packs", shipment.getPacks());
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+
+    static void writeQuantities(JsonGenerator gen, String field, Map<String, Integer> quantities, boolean sparse)
+            throws IOException {
+        if (quantities == null) {
+            return;
+        }
+        gen.writeObjectFieldStart(field);
+        if (quantities instanceof IndexedIntMap indexed) {
+            String[] keys = indexed.keyArray();
+            int[] values = indexed.valueArray();
+            for (int i = 0; i < keys.length; i++) {
+                if (!sparse || values[i] != 0) {
+                    gen.writeNumberField(keys[i], values[i]);
+                }
+            }
+        } else {
+            for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                if (sparse && (entry.getValue() == null || entry.getValue() == 0)) {
+                    continue;
+                }
+                gen.writeFieldName(entry.getKey());
+                if (entry.getValue() != null) {
+                    gen.writeNumber(entry.getValue());
+                } else {
+                    gen.writeNull();
+                }
+            }
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeNonZeroMixes(JsonGenerator gen, Map<String, List<Integer>> mixes,
+                                          SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        for (Map.Entry<String, List<Integer>> entry : mixes.entrySet()) {
+            List<Integer> mix = entry.getValue();
+            if (mix != null && mix.stream().anyMatch(packs -> packs != null && packs != 0)) {
+                gen.writeFieldName(entry.getKey());
+                provider.defaultSerializeValue(mix, gen);
+            }
+        }
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,162 @@
+package com.casepackoptimizer.json;
+
+import com.casepackoptimizer.model.IndexedIntMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Reusable scratch space for collecting {@code "id": quantity} pairs into parallel arrays.
+ * Keys are deduplicated through an open-addressing table over positions, keeping the first
+ * position and the last value like {@link java.util.LinkedHashMap#put}. One instance is kept
+ * per thread, so after warm-up a parse only allocates the two exact-size result arrays.
+ * A builder that grew past {@link #RETAINED_CAPACITY} keys for a large request goes back to the
+ * default size afterwards, so request threads do not each keep the largest table they have seen.
+ *
+ * <p>Ids with equal {@link String#hashCode} ("Aa" and "BB" and every concatenation of them) all
+ * land in one probe run, and a seed cannot tell them apart. Once a lookup probes
+ * {@link #MAX_PROBE} slots, the rest of the parse indexes positions in a {@link HashMap}, whose
+ * bins turn into trees of comparable keys and keep such requests from going quadratic.
+ */
+final class QuantityTableBuilder {
+
+    private static final ThreadLocal<QuantityTableBuilder> CURRENT = ThreadLocal.withInitial(QuantityTableBuilder::new);
+
+    private static final int DEFAULT_CAPACITY = 64;
+    static final int RETAINED_CAPACITY = 4096;
+    static final int MAX_PROBE = 16;
+
+    private String[] keys;
+    private int[] values;
+    // Table slot holding each position, so a reset only clears the slots that were used
+    private int[] slots;
+    private int[] table;
+    // Replaces the table for the rest of a parse once a probe ran too long
+    private HashMap<String, Integer> overflow;
+    private int size;
+
+    QuantityTableBuilder() {
+        allocate();
+    }
+
+    static QuantityTableBuilder current() {
+        QuantityTableBuilder builder = CURRENT.get();
+        // A parse that failed part way leaves its entries behind
+        builder.reset();
+        return builder;
+    }
+
+    void put(String key, int value) {
+        if (overflow != null) {
+            putOverflow(key, value);
+            return;
+        }
+        int mask = table.length - 1;
+        int slot = mix(key.hashCode()) & mask;
+        int probes = 0;
+        while (table[slot] != 0) {
+            int position = table[slot] - 1;
+            if (keys[position].equals(key)) {
+                values[position] = value;
+                return;
+            }
+            if (++probes == MAX_PROBE) {
+                overflow = new HashMap<>(size * 2);
+                for (position = 0; position < size; position++) {
+                    overflow.put(keys[position], position);
+                }
+                putOverflow(key, value);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        append(key, value, slot);
+        table[slot] = size;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+    }
+
+    boolean overflowed() {
+        return overflow != null;
+    }
+
+    IndexedIntMap build() {
+        IndexedIntMap result = new IndexedIntMap(Arrays.copyOf(keys, size), Arrays.copyOf(values, size));
+        reset();
+        return result;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    private void putOverflow(String key, int value) {
+        Integer position = overflow.putIfAbsent(key, size);
+        if (position != null) {
+            values[position] = value;
+        } else {
+            append(key, value, -1);
+        }
+    }
+
+    private void append(String key, int value, int slot) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        keys[size] = key;
+        values[size] = value;
+        slots[size] = slot;
+        size++;
+    }
+
+    private void reset() {
+        if (keys.length > RETAINED_CAPACITY) {
+            allocate();
+            return;
+        }
+        // Positions added after an overflow have no slot, so the whole table is cleared
+        boolean overflowed = overflow != null;
+        overflow = null;
+        if (overflowed) {
+            Arrays.fill(table, 0);
+        }
+        for (int position = 0; position < size; position++) {
+            // Drop key references so the request does not stay reachable from the thread
+            keys[position] = null;
+            if (!overflowed) {
+                table[slots[position]] = 0;
+            }
+        }
+        size = 0;
+    }
+
+    private void allocate() {
+        keys = new String[DEFAULT_CAPACITY];
+        values = new int[DEFAULT_CAPACITY];
+        slots = new int[DEFAULT_CAPACITY];
+        table = new int[DEFAULT_CAPACITY * 2];
+        overflow = null;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int position = 0; position < size; position++) {
+            int slot = mix(keys[position].hashCode()) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[position] = slot;
+            table[slot] = position + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
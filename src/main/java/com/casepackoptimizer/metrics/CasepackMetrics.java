@@ -0,0 +1,118 @@
+package com.casepackoptimizer.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the optimize pipeline. All meters are registered up front, so recording is a
+ * field read plus the meter update, cheap enough to leave on at any request rate.
+ */
+@Component
+public class CasepackMetrics {
+
+    public enum Phase {
+        PARSE("parse"),
+        STORE_ALLOCATION("store_allocation"),
+        WAREHOUSE_DISTRIBUTION("warehouse_distribution"),
+        SOURCING("sourcing"),
+        SERIALIZATION("serialization");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+    private final DistributionSummary storeCount;
+    private final DistributionSummary warehouseCount;
+    private final DistributionSummary casepacksAllocated;
+    private final Counter shortageBranch;
+    private final Counter surplusBranch;
+
+    public CasepackMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Phase phase : Phase.values()) {
+            phaseTimers.put(phase, Timer.builder("casepack.optimize.phase")
+                    .description("Time spent in each optimization phase")
+                    .tag("phase", phase.tag)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        storeCount = DistributionSummary.builder("casepack.optimize.stores")
+                .description("Stores per optimize request")
+                .publishPercentileHistogram()
+                .register(registry);
+        warehouseCount = DistributionSummary.builder("casepack.optimize.warehouses")
+                .description("Warehouses per optimize request")
+                .publishPercentileHistogram()
+                .register(registry);
+        casepacksAllocated = DistributionSummary.builder("casepack.optimize.casepacks.allocated")
+                .description("Casepacks allocated per optimize request")
+                .publishPercentileHistogram()
+                .register(registry);
+        shortageBranch = Counter.builder("casepack.optimize.branch")
+                .description("Requests by supply branch")
+                .tag("branch", "shortage")
+                .register(registry);
+        surplusBranch = Counter.builder("casepack.optimize.branch")
+                .description("Requests by supply branch")
+                .tag("branch", "surplus")
+                .register(registry);
+    }
+
+    /**
+     * Metrics that are recorded nowhere, for code constructed outside Spring.
+     */
+    public static CasepackMetrics noop() {
+        return new CasepackMetrics(new CompositeMeterRegistry());
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Start time to pass to {@link #recordPhase}; also marks the phase start of a profiled request.
+     */
+    public long startPhase() {
+        RequestProfile profile = RequestProfile.current();
+        if (profile != null) {
+            profile.beginPhase();
+        }
+        return System.nanoTime();
+    }
+
+    public void recordPhase(Phase phase, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        phaseTimers.get(phase).record(elapsed, TimeUnit.NANOSECONDS);
+        RequestProfile profile = RequestProfile.current();
+        if (profile != null) {
+            profile.endPhase(phase, elapsed);
+        }
+    }
+
+    public void recordShape(int stores, int warehouses, boolean shortage) {
+        storeCount.record(stores);
+        warehouseCount.record(warehouses);
+        (shortage ? shortageBranch : surplusBranch).increment();
+    }
+
+    public void recordAllocated(int casepacks) {
+        casepacksAllocated.record(casepacks);
+    }
+}
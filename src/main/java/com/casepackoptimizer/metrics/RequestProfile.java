@@ -0,0 +1,120 @@
+package com.casepackoptimizer.metrics;
+
+import com.casepackoptimizer.dto.CasepackProfile;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Phase breakdown of one profiled request, bound to the request thread. Profiling is opt-in per
+ * request; when no profile is bound, every hook is a single thread-local read.
+ *
+ * <p>The profile is a thread-local, so only phases that start and end on the request thread are
+ * recorded. Batch items and the parallel passes of joint requests run on the batch pool and are
+ * not profiled at all. The fork/join path of a single request is timed, because its phases
+ * start and end on the request thread. Its allocated bytes come from
+ * {@code ThreadMXBean.getCurrentThreadAllocatedBytes}, so they leave out what the pool threads
+ * allocate.
+ */
+public final class RequestProfile {
+
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private final boolean includeInBody;
+    private final long[] nanos = new long[CasepackMetrics.Phase.values().length];
+    private final long[] allocatedBytes = new long[CasepackMetrics.Phase.values().length];
+    private final boolean[] recorded = new boolean[CasepackMetrics.Phase.values().length];
+    private long phaseStartBytes;
+    private long greedyIterations = -1;
+
+    private RequestProfile(boolean includeInBody) {
+        this.includeInBody = includeInBody;
+    }
+
+    public static RequestProfile start(boolean includeInBody) {
+        RequestProfile profile = new RequestProfile(includeInBody);
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    public static RequestProfile current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static void recordGreedyIterations(long iterations) {
+        RequestProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.greedyIterations = Math.max(profile.greedyIterations, 0) + iterations;
+        }
+    }
+
+    public boolean isIncludeInBody() {
+        return includeInBody;
+    }
+
+    void beginPhase() {
+        phaseStartBytes = threadAllocatedBytes();
+    }
+
+    void endPhase(CasepackMetrics.Phase phase, long elapsedNanos) {
+        int index = phase.ordinal();
+        nanos[index] += elapsedNanos;
+        allocatedBytes[index] += threadAllocatedBytes() - phaseStartBytes;
+        recorded[index] = true;
+    }
+
+    /**
+     * Value for a {@code Server-Timing} header covering the phases recorded so far.
+     */
+    public String serverTiming() {
+        StringBuilder header = new StringBuilder();
+        for (CasepackMetrics.Phase phase : CasepackMetrics.Phase.values()) {
+            int index = phase.ordinal();
+            if (recorded[index]) {
+                if (header.length() > 0) {
+                    header.append(", ");
+                }
+                header.append(phase.getTag())
+                        .append(String.format(Locale.ROOT, ";dur=%.3f", nanos[index] / 1e6))
+                        .append(";desc=\"alloc ").append(allocatedBytes[index]).append(" B\"");
+            }
+        }
+        if (greedyIterations >= 0) {
+            if (header.length() > 0) {
+                header.append(", ");
+            }
+            header.append("greedy;desc=\"iterations ").append(greedyIterations).append('"');
+        }
+        return header.toString();
+    }
+
+    public CasepackProfile toDto() {
+        Map<String, CasepackProfile.PhaseProfile> phases = new LinkedHashMap<>();
+        for (CasepackMetrics.Phase phase : CasepackMetrics.Phase.values()) {
+            int index = phase.ordinal();
+            if (recorded[index]) {
+                phases.put(phase.getTag(), new CasepackProfile.PhaseProfile(nanos[index] / 1e6, allocatedBytes[index]));
+            }
+        }
+        return new CasepackProfile(phases, greedyIterations >= 0 ? greedyIterations : null);
+    }
+
+    private static long threadAllocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            return threads;
+        }
+        return null;
+    }
+}
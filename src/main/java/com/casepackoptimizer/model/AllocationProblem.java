@@ -0,0 +1,256 @@
+package com.casepackoptimizer.model;
+
+import com.casepackoptimizer.allocation.AllocationMode;
+import com.casepackoptimizer.allocation.MinCostSourcingFlow;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense, index-based view of an optimize request. Store {@code i} is {@code storeIds[i]} with
+ * need {@code storeNeeds[i]}, warehouse {@code w} is {@code warehouseIds[w]} holding
+ * {@code warehouseQty[w]} casepacks, and casepack type {@code t} carries
+ * {@code casepackUnits[t]} items with {@code casepackPacks[t]} packs available.
+ * Indices follow the iteration order of the request maps. The arrays may be shared with the
+ * request and response DTOs and are never modified.
+ *
+ * <p>When the request groups stores into regions, store {@code i} belongs to region
+ * {@code storeRegions[i]}. Regions are numbered by their first store, and stores that no region
+ * lists share one extra region, so equal groupings always produce equal arrays.
+ *
+ * <p>Store bounds are {@code storeMinPacks[i]} and {@code storeMaxPacks[i]} casepacks; each array
+ * is null when the request sets no such bound, and unlisted stores get 0 and
+ * {@link Integer#MAX_VALUE}.
+ *
+ * <p>{@code lanes} holds the request's store-warehouse lanes, or is null when it sent none.
+ * {@code locations} places every store and warehouse, or is null when the request has no locations.
+ */
+@Getter
+@RequiredArgsConstructor
+public class AllocationProblem {
+
+    private final String[] storeIds;
+    private final int[] storeNeeds;
+    private final String[] warehouseIds;
+    private final int[] warehouseQty;
+    private final int[] casepackUnits;
+    private final int[] casepackPacks;
+    // Null means the configured default
+    private final AllocationMode allocationMode;
+    // Null when the request has no regions
+    private final int[] storeRegions;
+    private final int[] storeMinPacks;
+    private final int[] storeMaxPacks;
+    private final SourcingLanes lanes;
+    private final SourcingLocations locations;
+
+    public static AllocationProblem from(CasepackOptimizerRequest request) {
+        IndexedIntMap needPerStore = indexed(request.getNeedPerStore());
+        IndexedIntMap warehouseAvailableQty = indexed(request.getWarehouseAvailableQty());
+
+        List<CasepackOptimizerRequest.CasePack> casePacks = request.getCasePacks();
+        int[] casepackUnits = new int[casePacks.size()];
+        int[] casepackPacks = new int[casePacks.size()];
+        for (int t = 0; t < casePacks.size(); t++) {
+            for (CasepackOptimizerRequest.CasePack.SizeRatio ratio : casePacks.get(t).getSizeRatios()) {
+                casepackUnits[t] += ratio.getQty();
+            }
+            casepackPacks[t] = casePacks.get(t).getPacks();
+        }
+
+        return new AllocationProblem(needPerStore.keyArray(), needPerStore.valueArray(),
+                warehouseAvailableQty.keyArray(), warehouseAvailableQty.valueArray(),
+                casepackUnits, casepackPacks, request.getAllocationMode(),
+                storeRegions(request.getRegions(), needPerStore),
+                storeBounds(request.getMinPacksPerStore(), needPerStore, 0, "minimum"),
+                storeBounds(request.getMaxPacksPerStore(), needPerStore, Integer.MAX_VALUE, "maximum"),
+                lanes(request.getLanes(), needPerStore, warehouseAvailableQty),
+                locations(request, needPerStore, warehouseAvailableQty));
+    }
+
+    private static SourcingLocations locations(CasepackOptimizerRequest request,
+                                               IndexedIntMap stores,
+                                               IndexedIntMap warehouses) {
+        if (request.getStoreLocations() == null && request.getWarehouseLocations() == null) {
+            return null;
+        }
+        if (request.getStoreLocations() == null || request.getWarehouseLocations() == null) {
+            throw new IllegalArgumentException("Store and warehouse locations must be given together");
+        }
+        if (request.getLanes() != null) {
+            throw new IllegalArgumentException("Lanes and locations cannot be combined");
+        }
+        return new SourcingLocations(points(request.getStoreLocations(), stores, "store"),
+                points(request.getWarehouseLocations(), warehouses, "warehouse"));
+    }
+
+    // Every site needs a location, since any store may end up served by any warehouse
+    private static double[] points(Map<String, CasepackOptimizerRequest.Location> locations,
+                                   IndexedIntMap sites, String kind) {
+        double[] points = new double[3 * sites.size()];
+        boolean[] located = new boolean[sites.size()];
+        for (Map.Entry<String, CasepackOptimizerRequest.Location> entry : locations.entrySet()) {
+            int index = sites.indexOf(entry.getKey());
+            if (index < 0) {
+                throw new IllegalArgumentException("Location given for unknown " + kind + " " + entry.getKey());
+            }
+            CasepackOptimizerRequest.Location location = entry.getValue();
+            if (location == null
+                    || !(Math.abs(location.getLatitude()) <= 90)
+                    || !(Math.abs(location.getLongitude()) <= 180)) {
+                throw new IllegalArgumentException("Location of " + kind + " " + entry.getKey()
+                        + " needs a latitude within 90 and a longitude within 180 degrees");
+            }
+            SourcingLocations.toPoint(location.getLatitude(), location.getLongitude(), points, index);
+            located[index] = true;
+        }
+        for (int i = 0; i < located.length; i++) {
+            if (!located[i]) {
+                throw new IllegalArgumentException("No location given for " + kind + " " + sites.keyArray()[i]);
+            }
+        }
+        return points;
+    }
+
+    private static SourcingLanes lanes(List<CasepackOptimizerRequest.Lane> lanes,
+                                       IndexedIntMap stores,
+                                       IndexedIntMap warehouses) {
+        if (lanes == null) {
+            return null;
+        }
+        int[] laneStores = new int[lanes.size()];
+        int[] laneWarehouses = new int[lanes.size()];
+        long[] costs = new long[lanes.size()];
+        long maxCost = MinCostSourcingFlow.maxLaneCost(stores.size(), warehouses.size());
+        for (int l = 0; l < laneStores.length; l++) {
+            CasepackOptimizerRequest.Lane lane = lanes.get(l);
+            if (lane == null) {
+                throw new IllegalArgumentException("Lane " + l + " is null");
+            }
+            laneStores[l] = stores.indexOf(lane.getStore());
+            if (laneStores[l] < 0) {
+                throw new IllegalArgumentException("Lane " + l + " names unknown store " + lane.getStore());
+            }
+            laneWarehouses[l] = warehouses.indexOf(lane.getWarehouse());
+            if (laneWarehouses[l] < 0) {
+                throw new IllegalArgumentException("Lane " + l + " names unknown warehouse " + lane.getWarehouse());
+            }
+            if (lane.getCost() < 0) {
+                throw new IllegalArgumentException("Lane " + l + " must not have a negative cost");
+            }
+            if (lane.getCost() > maxCost) {
+                // Larger costs would overflow the solver's scaled prices
+                throw new IllegalArgumentException("Lane " + l + " costs more than the limit of " + maxCost
+                        + " for " + stores.size() + " stores and " + warehouses.size() + " warehouses");
+            }
+            costs[l] = lane.getCost();
+        }
+        return new SourcingLanes(laneStores, laneWarehouses, costs);
+    }
+
+    private static int[] storeBounds(Map<String, Integer> bounds, IndexedIntMap stores, int unbounded, String kind) {
+        if (bounds == null) {
+            return null;
+        }
+        int[] values = new int[stores.size()];
+        Arrays.fill(values, unbounded);
+        for (Map.Entry<String, Integer> bound : bounds.entrySet()) {
+            int index = stores.indexOf(bound.getKey());
+            if (index < 0) {
+                throw new IllegalArgumentException("Store " + kind + " given for unknown store " + bound.getKey());
+            }
+            if (bound.getValue() == null || bound.getValue() < 0) {
+                throw new IllegalArgumentException("Store " + kind + " for " + bound.getKey() + " must not be negative");
+            }
+            values[index] = bound.getValue();
+        }
+        return values;
+    }
+
+    private static int[] storeRegions(Map<String, List<String>> regions, IndexedIntMap stores) {
+        if (regions == null) {
+            return null;
+        }
+        // Region positions in the request, -1 for stores no region lists
+        int[] listed = new int[stores.size()];
+        Arrays.fill(listed, -1);
+        int position = 0;
+        for (Map.Entry<String, List<String>> region : regions.entrySet()) {
+            if (region.getValue() == null) {
+                throw new IllegalArgumentException("Region " + region.getKey() + " has no store list");
+            }
+            for (String store : region.getValue()) {
+                int index = stores.indexOf(store);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Region " + region.getKey() + " lists unknown store " + store);
+                }
+                if (listed[index] >= 0) {
+                    throw new IllegalArgumentException("Store " + store + " is listed in more than one region");
+                }
+                listed[index] = position;
+            }
+            position++;
+        }
+
+        // Renumber in order of each region's first store
+        int[] renumbered = new int[position + 1];
+        Arrays.fill(renumbered, -1);
+        int[] storeRegions = new int[listed.length];
+        int regionCount = 0;
+        for (int i = 0; i < listed.length; i++) {
+            int original = listed[i] >= 0 ? listed[i] : position;
+            if (renumbered[original] < 0) {
+                renumbered[original] = regionCount++;
+            }
+            storeRegions[i] = renumbered[original];
+        }
+        return storeRegions;
+    }
+
+    // Requests parsed by the streaming deserializer are already array-backed
+    private static IndexedIntMap indexed(Map<String, Integer> quantities) {
+        if (quantities instanceof IndexedIntMap indexed) {
+            return indexed;
+        }
+        String[] keys = new String[quantities.size()];
+        int[] values = new int[quantities.size()];
+        int index = 0;
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            keys[index] = entry.getKey();
+            values[index++] = entry.getValue();
+        }
+        return new IndexedIntMap(keys, values);
+    }
+
+    // Same stores, casepacks and bounds against different warehouse stock
+    public AllocationProblem withWarehouseQty(int[] qty) {
+        return new AllocationProblem(storeIds, storeNeeds, warehouseIds, qty, casepackUnits, casepackPacks,
+                allocationMode, storeRegions, storeMinPacks, storeMaxPacks, lanes, locations);
+    }
+
+    public int storeCount() {
+        return storeIds.length;
+    }
+
+    public int warehouseCount() {
+        return warehouseIds.length;
+    }
+
+    public int casepackTypeCount() {
+        return casepackUnits.length;
+    }
+
+    public int regionCount() {
+        int count = 0;
+        if (storeRegions != null) {
+            for (int region : storeRegions) {
+                count = Math.max(count, region + 1);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,34 @@
+package com.casepackoptimizer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Outcome of solving an {@link AllocationProblem}, indexed the same way as the problem.
+ * {@code lanePacks[l]} is the number of casepacks shipped on lane {@code l} of {@code lanes}, which
+ * are the problem's lanes or the ones nearest-warehouse sourcing picked; both are null when the
+ * result has no sourcing.
+ */
+@Getter
+@RequiredArgsConstructor
+public class AllocationResult {
+
+    private final int[] storePacks;
+    // Packs per store and casepack type as [store * typeCount + type]; null for a single casepack
+    private final int[] storeCasepackMix;
+    private final int[] warehousePacks;
+    private final int totalAllocatedCasepacks;
+    private final int remainingSupply;
+    private final SourcingLanes lanes;
+    private final int[] lanePacks;
+
+    public AllocationResult(int[] storePacks, int[] storeCasepackMix, int[] warehousePacks,
+                            int totalAllocatedCasepacks, int remainingSupply) {
+        this(storePacks, storeCasepackMix, warehousePacks, totalAllocatedCasepacks, remainingSupply, null, null);
+    }
+
+    public AllocationResult withSourcing(SourcingLanes sourcingLanes, int[] packs) {
+        return new AllocationResult(storePacks, storeCasepackMix, warehousePacks, totalAllocatedCasepacks,
+                remainingSupply, sourcingLanes, packs);
+    }
+}
@@ -0,0 +1,115 @@
+package com.casepackoptimizer.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only {@code Map<String, Integer>} backed by a key array and a parallel {@code int[]}.
+ * Iteration follows array order. The arrays are shared, not copied, so the optimizer can hand
+ * its dense model straight to the DTOs and back; they must not be modified afterwards.
+ */
+public final class IndexedIntMap extends AbstractMap<String, Integer> {
+
+    private final String[] keys;
+    private final int[] values;
+    // Volatile so a map shared through the result cache is never seen half built
+    private volatile Map<String, Integer> positions;
+
+    public IndexedIntMap(String[] keys, int[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Keys and values must have the same length");
+        }
+        this.keys = keys;
+        this.values = values;
+    }
+
+    public String[] keyArray() {
+        return keys;
+    }
+
+    public int[] valueArray() {
+        return values;
+    }
+
+    public String keyAt(int index) {
+        return keys[index];
+    }
+
+    public int valueAt(int index) {
+        return values[index];
+    }
+
+    /**
+     * Position of {@code key} in the key array, or -1 when the map does not contain it.
+     */
+    public int indexOf(Object key) {
+        Integer position = positions().get(key);
+        return position != null ? position : -1;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public Integer get(Object key) {
+        Integer position = positions().get(key);
+        return position != null ? values[position] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return positions().containsKey(key);
+    }
+
+    @Override
+    public Set<Entry<String, Integer>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Integer>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < keys.length;
+                    }
+
+                    @Override
+                    public Entry<String, Integer> next() {
+                        if (next >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next++;
+                        return new SimpleImmutableEntry<>(keys[index], values[index]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    // Key lookups are rare on the hot path, so the index is only built when first needed.
+    // Threads racing here each build an identical index; whichever is published last stays.
+    private Map<String, Integer> positions() {
+        Map<String, Integer> result = positions;
+        if (result == null) {
+            result = new HashMap<>(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                result.put(keys[i], i);
+            }
+            positions = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,136 @@
+package com.casepackoptimizer.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Growable matrix of ints held outside the Java heap in direct buffers. Rows live in blocks, so
+ * the matrix grows a block at a time without copying and no buffer comes near the 2 GiB limit.
+ * The first block holds 64 KiB and each new block doubles in size up to 64 MiB, after which
+ * blocks stay at 64 MiB, so a small matrix only reserves what it uses. Tens of millions of cells
+ * cost the garbage collector nothing to trace.
+ *
+ * <p>Cells are read and written in place, either by absolute {@link #get}/{@link #set} or through
+ * a {@link Cursor} positioned on one row. A cursor belongs to one thread; different threads may
+ * read concurrently and write to different rows. Direct memory is bounded by
+ * {@code -XX:MaxDirectMemorySize}, not by {@code -Xmx}, and is released when the matrix becomes
+ * unreachable.
+ */
+public final class OffHeapIntMatrix {
+
+    private static final int FIRST_BLOCK_BYTES = 1 << 16;
+    private static final int BLOCK_BYTES = 1 << 26;
+
+    private final int columns;
+    private final int firstBlockRows;
+    private final int rowsPerBlock;
+    // Blocks before this one double in size; from it on every block holds rowsPerBlock rows
+    private final int fullBlock;
+    private final int fullBlockStart;
+    private final List<IntBuffer> blocks = new ArrayList<>();
+    private long capacity;
+    private int rows;
+
+    public OffHeapIntMatrix(int columns) {
+        this(columns, FIRST_BLOCK_BYTES, BLOCK_BYTES);
+    }
+
+    OffHeapIntMatrix(int columns, int firstBlockBytes, int blockBytes) {
+        if (columns <= 0 || columns > blockBytes / Integer.BYTES) {
+            throw new IllegalArgumentException("Column count out of range: " + columns);
+        }
+        this.columns = columns;
+        this.rowsPerBlock = blockBytes / Integer.BYTES / columns;
+        this.firstBlockRows = Math.max(1, Math.min(rowsPerBlock, firstBlockBytes / Integer.BYTES / columns));
+        int block = 0;
+        while ((long) firstBlockRows << block < rowsPerBlock) {
+            block++;
+        }
+        this.fullBlock = block;
+        this.fullBlockStart = (int) Math.min(Integer.MAX_VALUE, firstBlockRows * ((1L << block) - 1));
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * Appends a row of zeros and returns its index.
+     */
+    public int addRow() {
+        if (rows == capacity) {
+            int block = blocks.size();
+            int blockRows = block < fullBlock ? firstBlockRows << block : rowsPerBlock;
+            blocks.add(ByteBuffer.allocateDirect(blockRows * columns * Integer.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asIntBuffer());
+            capacity += blockRows;
+        }
+        return rows++;
+    }
+
+    public int get(int row, int column) {
+        int block = blockOf(row);
+        return blocks.get(block).get((row - blockStart(block)) * columns + column);
+    }
+
+    public void set(int row, int column, int value) {
+        int block = blockOf(row);
+        blocks.get(block).put((row - blockStart(block)) * columns + column, value);
+    }
+
+    int blockCount() {
+        return blocks.size();
+    }
+
+    private int blockOf(int row) {
+        if (row >= fullBlockStart) {
+            return fullBlock + (row - fullBlockStart) / rowsPerBlock;
+        }
+        // Doubling block k starts at firstBlockRows * (2^k - 1)
+        return 31 - Integer.numberOfLeadingZeros(row / firstBlockRows + 1);
+    }
+
+    private int blockStart(int block) {
+        if (block >= fullBlock) {
+            return fullBlockStart + (block - fullBlock) * rowsPerBlock;
+        }
+        return firstBlockRows * ((1 << block) - 1);
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Reusable view of one row; {@link #at} moves it without allocating.
+     */
+    public final class Cursor {
+
+        private IntBuffer block;
+        private int base;
+
+        public Cursor at(int row) {
+            int index = blockOf(row);
+            block = blocks.get(index);
+            base = (row - blockStart(index)) * columns;
+            return this;
+        }
+
+        public int get(int column) {
+            return block.get(base + column);
+        }
+
+        public Cursor set(int column, int value) {
+            block.put(base + column, value);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.casepackoptimizer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Dense store-warehouse lanes of an {@link AllocationProblem}. Lane {@code l} runs from warehouse
+ * {@code warehouses[l]} to store {@code stores[l]}, both problem indices, and costs
+ * {@code costs[l]} per casepack. Lanes keep the request order. Lanes picked by nearest-warehouse
+ * sourcing have no costs.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SourcingLanes {
+
+    private final int[] stores;
+    private final int[] warehouses;
+    private final long[] costs;
+
+    public int count() {
+        return stores.length;
+    }
+}
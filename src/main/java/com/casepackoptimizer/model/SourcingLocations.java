@@ -0,0 +1,27 @@
+package com.casepackoptimizer.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Store and warehouse positions of an {@link AllocationProblem} as points on the unit sphere:
+ * store {@code i} is at {@code stores[3 * i]}, {@code stores[3 * i + 1]},
+ * {@code stores[3 * i + 2]}, and warehouses likewise. Straight-line distance between such points
+ * orders sites the same way as distance along the earth's surface.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SourcingLocations {
+
+    private final double[] stores;
+    private final double[] warehouses;
+
+    // Writes the unit vector of a latitude and longitude in degrees at points[3 * index]
+    public static void toPoint(double latitude, double longitude, double[] points, int index) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        points[3 * index] = Math.cos(lat) * Math.cos(lon);
+        points[3 * index + 1] = Math.cos(lat) * Math.sin(lon);
+        points[3 * index + 2] = Math.sin(lat);
+    }
+}
@@ -0,0 +1,220 @@
+package com.casepackoptimizer.service;
+
+import com.casepackoptimizer.config.CasepackOptimizerProperties;
+import com.casepackoptimizer.dto.CasepackBatchRequest;
+import com.casepackoptimizer.dto.CasepackJointRequest;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of the optimize endpoints. Each call is charged an estimated cost
+ * against a shared budget, so a few very large requests cannot take every worker thread. Cheap
+ * requests first try a lane of their own and never wait behind large ones. A call that finds the
+ * wait queue full, or does not get budget within the wait limit, is rejected with 429 and
+ * {@code Retry-After}.
+ *
+ * <p>The request body has already been parsed when the cost is estimated; parsing is bounded by
+ * the servlet container's request size limits, not by this budget.
+ */
+@Service
+@Slf4j
+public class CasepackAdmissionService {
+
+    private final CasepackOptimizerProperties.Admission settings;
+    // Fair, so a large request that is waiting is not starved by smaller ones arriving later
+    private final Semaphore budget;
+    private final Semaphore smallLane;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter admittedSmall;
+    private final Counter admittedShared;
+    private final Counter queued;
+    private final Counter shedQueueFull;
+    private final Counter shedTimeout;
+
+    public CasepackAdmissionService(CasepackOptimizerProperties properties, MeterRegistry registry) {
+        this.settings = properties.getAdmission();
+        this.budget = new Semaphore(settings.getCapacity(), true);
+        this.smallLane = new Semaphore(settings.getSmallConcurrency());
+        admittedSmall = admitted(registry, "small");
+        admittedShared = admitted(registry, "shared");
+        queued = Counter.builder("casepack.admission.queued")
+                .description("Requests that had to wait for budget")
+                .register(registry);
+        shedQueueFull = shed(registry, "queue_full");
+        shedTimeout = shed(registry, "timeout");
+        Gauge.builder("casepack.admission.waiting", waiting, AtomicInteger::get)
+                .description("Requests currently waiting for budget")
+                .register(registry);
+        Gauge.builder("casepack.admission.cost.in.use", budget, b -> settings.getCapacity() - b.availablePermits())
+                .description("Cost units held by running requests")
+                .register(registry);
+    }
+
+    /**
+     * Runs {@code work} once {@code cost} units of budget are free. Costs above the capacity are
+     * capped, so a request larger than the whole budget still runs, alone.
+     */
+    public <T> T admit(long cost, Supplier<T> work) {
+        if (!settings.isEnabled()) {
+            return work.get();
+        }
+
+        int permits = (int) Math.max(1, Math.min(cost, settings.getCapacity()));
+        if (permits <= settings.getSmallCost() && smallLane.tryAcquire()) {
+            admittedSmall.increment();
+            try {
+                return work.get();
+            } finally {
+                smallLane.release();
+            }
+        }
+
+        acquire(permits);
+        admittedShared.increment();
+        try {
+            return work.get();
+        } finally {
+            budget.release(permits);
+        }
+    }
+
+    /**
+     * Stores plus warehouses plus the casepacks the request can hand out, which bounds the work
+     * of every allocation mode, plus one unit per sourcing lane.
+     */
+    public static long estimateCost(CasepackOptimizerRequest request) {
+        Map<String, Integer> stores = request.getNeedPerStore();
+        Map<String, Integer> warehouses = request.getWarehouseAvailableQty();
+        long availablePacks = sumPositive(warehouses);
+        long need = sumPositive(stores);
+        int itemsPerPack = smallestPack(request.getCasePacks());
+        long neededPacks = (need + itemsPerPack - 1) / itemsPerPack;
+        return (stores != null ? stores.size() : 0)
+                + (warehouses != null ? warehouses.size() : 0)
+                + Math.min(availablePacks, neededPacks)
+                + (request.getLanes() != null ? request.getLanes().size() : 0);
+    }
+
+    public static long estimateCost(CasepackBatchRequest batch) {
+        return estimateCost(batch.getRequests());
+    }
+
+    public static long estimateCost(CasepackJointRequest joint) {
+        // Every SKU is solved more than once, but later rounds run on reduced stock
+        return estimateCost(joint.getSkus());
+    }
+
+    private static long estimateCost(List<CasepackOptimizerRequest> requests) {
+        long cost = 0;
+        if (requests != null) {
+            for (CasepackOptimizerRequest request : requests) {
+                if (request != null) {
+                    cost += estimateCost(request);
+                }
+            }
+        }
+        return cost;
+    }
+
+    private void acquire(int permits) {
+        // The timed form with a zero wait honours fairness, the untimed tryAcquire would barge
+        try {
+            if (budget.tryAcquire(permits, 0, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+            if (waiting.incrementAndGet() > settings.getQueueSize()) {
+                waiting.decrementAndGet();
+                shedQueueFull.increment();
+                throw rejected("Too many requests are waiting");
+            }
+            queued.increment();
+            try {
+                if (!budget.tryAcquire(permits, settings.getMaxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+                    shedTimeout.increment();
+                    throw rejected("Server is at capacity");
+                }
+            } finally {
+                waiting.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw rejected("Interrupted while waiting for capacity");
+        }
+    }
+
+    private ResponseStatusException rejected(String reason) {
+        log.debug("Rejected request: {}", reason);
+        return new AdmissionRejectedException(reason, Math.max(1, settings.getRetryAfter().toSeconds()));
+    }
+
+    private static int smallestPack(List<CasepackOptimizerRequest.CasePack> casePacks) {
+        int smallest = Integer.MAX_VALUE;
+        if (casePacks != null) {
+            for (CasepackOptimizerRequest.CasePack casePack : casePacks) {
+                int items = 0;
+                if (casePack != null && casePack.getSizeRatios() != null) {
+                    for (CasepackOptimizerRequest.CasePack.SizeRatio ratio : casePack.getSizeRatios()) {
+                        items += Math.max(0, ratio.getQty());
+                    }
+                }
+                smallest = Math.min(smallest, items);
+            }
+        }
+        return Math.max(1, smallest == Integer.MAX_VALUE ? 1 : smallest);
+    }
+
+    private static long sumPositive(Map<String, Integer> quantities) {
+        long sum = 0;
+        if (quantities != null) {
+            for (Integer quantity : quantities.values()) {
+                if (quantity != null && quantity > 0) {
+                    sum += quantity;
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static Counter admitted(MeterRegistry registry, String lane) {
+        return Counter.builder("casepack.admission.admitted")
+                .description("Requests admitted by lane")
+                .tag("lane", lane)
+                .register(registry);
+    }
+
+    private static Counter shed(MeterRegistry registry, String reason) {
+        return Counter.builder("casepack.admission.shed")
+                .description("Requests rejected with 429")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    static class AdmissionRejectedException extends ResponseStatusException {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        AdmissionRejectedException(String reason, long retryAfterSeconds) {
+            super(HttpStatus.TOO_MANY_REQUESTS, reason);
+            headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.casepackoptimizer.service;
+
+import com.casepackoptimizer.config.CasepackOptimizerProperties;
+import com.casepackoptimizer.dto.CasepackBatchRequest;
+import com.casepackoptimizer.dto.CasepackBatchResponse;
+import com.casepackoptimizer.dto.CasepackBatchResult;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CasepackBatchService {
+
+    private final CasepackOptimizerService casepackOptimizerService;
+    private final CasepackOptimizerProperties properties;
+    private final ForkJoinPool casepackBatchPool;
+
+    public CasepackBatchResponse optimizeBatch(CasepackBatchRequest batchRequest) {
+        if (batchRequest.getRequests() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch requests cannot be null");
+        }
+
+        List<CasepackOptimizerRequest> requests = batchRequest.getRequests();
+        int maxSize = properties.getBatch().getMaxSize();
+        if (requests.size() > maxSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Batch contains " + requests.size() + " requests, the limit is " + maxSize);
+        }
+
+        // Ordered parallel stream inside the pool keeps results in input order
+        List<CasepackBatchResult> results = casepackBatchPool.submit(() -> IntStream.range(0, requests.size())
+                        .parallel()
+                        .mapToObj(index -> optimizeOne(index, requests.get(index)))
+                        .toList())
+                .join();
+
+        return new CasepackBatchResponse(results);
+    }
+
+    public CasepackBatchResult optimizeOne(int index, CasepackOptimizerRequest request) {
+        try {
+            return CasepackBatchResult.builder()
+                    .index(index)
+                    .response(casepackOptimizerService.optimizeCasepacks(request))
+                    .build();
+        } catch (RuntimeException e) {
+            log.debug("Batch request {} failed", index, e);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return CasepackBatchResult.builder()
+                    .index(index)
+                    .error(message)
+                    .build();
+        }
+    }
+}
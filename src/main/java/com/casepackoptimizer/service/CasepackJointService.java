@@ -0,0 +1,315 @@
+package com.casepackoptimizer.service;
+
+import com.casepackoptimizer.allocation.RegionApportionment;
+import com.casepackoptimizer.config.CasepackOptimizerProperties;
+import com.casepackoptimizer.dto.CasepackBatchResult;
+import com.casepackoptimizer.dto.CasepackJointRequest;
+import com.casepackoptimizer.dto.CasepackJointResponse;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import com.casepackoptimizer.model.AllocationProblem;
+import com.casepackoptimizer.model.AllocationResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Optimizes several SKUs that ship from warehouses whose casepack capacity they share.
+ *
+ * <p>Capacity is priced by rationing. Every SKU is first solved on its own, and the packs it
+ * would ship from each warehouse are its claims. When any warehouse is over-subscribed, every
+ * warehouse with a shared limit splits its capacity across the SKUs in proportion to their
+ * claims, so a SKU cut at one warehouse cannot move the packs onto another. The SKUs are then
+ * solved again, in parallel, against their allotments, so store fair shares follow the supply a
+ * SKU can actually ship instead of being trimmed afterwards. Capacity left unused is offered to
+ * the SKUs that shipped their whole allotment and still claim more, until none can be placed or
+ * the round limit is reached. A SKU never ships more than its allotment and allotments never
+ * exceed capacity; a round that still ends over a limit is rationed again from what it shipped.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CasepackJointService {
+
+    private final CasepackOptimizerService casepackOptimizerService;
+    private final CasepackOptimizerProperties properties;
+    private final ForkJoinPool casepackBatchPool;
+
+    public CasepackJointResponse optimize(CasepackJointRequest request) {
+        if (request.getSkus() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Joint SKUs cannot be null");
+        }
+        if (request.getWarehouseCapacity() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Warehouse capacity cannot be null");
+        }
+        List<CasepackOptimizerRequest> skus = request.getSkus();
+        int maxSize = properties.getBatch().getMaxSize();
+        if (skus.size() > maxSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Joint request contains " + skus.size() + " SKUs, the limit is " + maxSize);
+        }
+
+        String[] capacityIds = new String[request.getWarehouseCapacity().size()];
+        int[] capacity = new int[capacityIds.length];
+        Map<String, Integer> capacityIndex = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : request.getWarehouseCapacity().entrySet()) {
+            if (entry.getValue() == null || entry.getValue() < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Capacity for warehouse " + entry.getKey() + " must not be negative");
+            }
+            int c = capacityIndex.size();
+            capacityIds[c] = entry.getKey();
+            capacity[c] = entry.getValue();
+            capacityIndex.put(entry.getKey(), c);
+        }
+
+        // SKUs that cannot be read are reported and claim no capacity
+        int skuCount = skus.size();
+        AllocationProblem[] problems = new AllocationProblem[skuCount];
+        String[] errors = new String[skuCount];
+        // Capacity index of each SKU warehouse, -1 where the warehouse has no shared limit
+        int[][] limits = new int[skuCount][];
+        for (int s = 0; s < skuCount; s++) {
+            try {
+                problems[s] = toProblem(skus.get(s));
+            } catch (RuntimeException e) {
+                errors[s] = fail(s, e);
+                continue;
+            }
+            String[] warehouseIds = problems[s].getWarehouseIds();
+            limits[s] = new int[warehouseIds.length];
+            for (int w = 0; w < warehouseIds.length; w++) {
+                limits[s][w] = capacityIndex.getOrDefault(warehouseIds[w], -1);
+            }
+        }
+
+        AllocationResult[] results = new AllocationResult[skuCount];
+        int[][] allotments = new int[skuCount][];
+        for (int s = 0; s < skuCount; s++) {
+            allotments[s] = problems[s] != null ? problems[s].getWarehouseQty() : null;
+        }
+        solveAll(problems, allotments, results, errors);
+        int rounds = 1;
+        int[][] claims = shipped(results);
+
+        int[] load = load(results, limits, capacity.length);
+        if (overloaded(load, capacity)) {
+            for (int s = 0; s < skuCount; s++) {
+                allotments[s] = allotments[s] != null ? allotments[s].clone() : null;
+            }
+            for (int c = 0; c < capacity.length; c++) {
+                share(c, capacity[c], claims, limits, allotments, false);
+            }
+            int maxRounds = Math.max(properties.getJoint().getMaxRounds(), 2);
+            boolean again;
+            do {
+                solveAll(problems, allotments, results, errors);
+                rounds++;
+                load = load(results, limits, capacity.length);
+                if (overloaded(load, capacity)) {
+                    // Never left over a limit, whatever the round count
+                    ration(load, capacity, shipped(results), limits, allotments);
+                    again = true;
+                } else {
+                    again = rounds < maxRounds && offerSlack(capacity, claims, limits, allotments, shipped(results));
+                }
+            } while (again);
+        }
+        log.debug("Joint allocation of {} SKUs settled after {} rounds", skuCount, rounds);
+
+        List<CasepackBatchResult> skuResults = new ArrayList<>(skuCount);
+        for (int s = 0; s < skuCount; s++) {
+            if (errors[s] != null) {
+                skuResults.add(CasepackBatchResult.builder().index(s).error(errors[s]).build());
+                continue;
+            }
+            // Remaining supply is counted against stock, not against the allotment
+            AllocationResult result = results[s];
+            AllocationResult reported = new AllocationResult(result.getStorePacks(), result.getStoreCasepackMix(),
+                    result.getWarehousePacks(), result.getTotalAllocatedCasepacks(),
+                    IntStream.of(problems[s].getWarehouseQty()).sum() - result.getTotalAllocatedCasepacks(),
+                    result.getLanes(), result.getLanePacks());
+            skuResults.add(CasepackBatchResult.builder()
+                    .index(s)
+                    .response(casepackOptimizerService.toResponse(skus.get(s), problems[s], reported))
+                    .build());
+        }
+
+        Map<String, Integer> warehouseLoad = new LinkedHashMap<>();
+        for (int c = 0; c < capacityIds.length; c++) {
+            warehouseLoad.put(capacityIds[c], load[c]);
+        }
+        return CasepackJointResponse.builder()
+                .results(skuResults)
+                .warehouseLoad(warehouseLoad)
+                .rounds(rounds)
+                .build();
+    }
+
+    private AllocationProblem toProblem(CasepackOptimizerRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("SKU request cannot be null");
+        }
+        if (request.getCasePacks() == null || request.getCasePacks().isEmpty()) {
+            throw new IllegalArgumentException("Casepacks cannot be null or empty");
+        }
+        if (request.getCasePacks().size() > 1) {
+            throw new IllegalArgumentException("Joint allocation supports one casepack per SKU");
+        }
+        return AllocationProblem.from(request);
+    }
+
+    // Solves every SKU still in play against its allotment; failures drop the SKU for good
+    private void solveAll(AllocationProblem[] problems, int[][] allotments, AllocationResult[] results,
+                          String[] errors) {
+        casepackBatchPool.submit(() -> IntStream.range(0, problems.length)
+                        .parallel()
+                        .filter(s -> errors[s] == null)
+                        .forEach(s -> {
+                            try {
+                                results[s] = casepackOptimizerService.solve(problems[s].withWarehouseQty(allotments[s]));
+                            } catch (RuntimeException e) {
+                                results[s] = null;
+                                errors[s] = fail(s, e);
+                            }
+                        }))
+                .join();
+    }
+
+    private static String fail(int index, RuntimeException e) {
+        log.debug("Joint SKU {} failed", index, e);
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private static int[][] shipped(AllocationResult[] results) {
+        int[][] shipped = new int[results.length][];
+        for (int s = 0; s < results.length; s++) {
+            shipped[s] = results[s] != null ? results[s].getWarehousePacks() : null;
+        }
+        return shipped;
+    }
+
+    private static int[] load(AllocationResult[] results, int[][] limits, int capacityCount) {
+        int[] load = new int[capacityCount];
+        for (int s = 0; s < results.length; s++) {
+            if (results[s] == null) {
+                continue;
+            }
+            int[] packs = results[s].getWarehousePacks();
+            for (int w = 0; w < packs.length; w++) {
+                if (limits[s][w] >= 0) {
+                    load[limits[s][w]] += packs[w];
+                }
+            }
+        }
+        return load;
+    }
+
+    private static boolean overloaded(int[] load, int[] capacity) {
+        for (int c = 0; c < load.length; c++) {
+            if (load[c] > capacity[c]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Splits each over-subscribed warehouse's capacity in proportion to the SKU claims on it
+    private static void ration(int[] load, int[] capacity, int[][] claims, int[][] limits, int[][] allotments) {
+        for (int c = 0; c < capacity.length; c++) {
+            if (load[c] > capacity[c]) {
+                share(c, capacity[c], claims, limits, allotments, false);
+            }
+        }
+    }
+
+    /**
+     * Hands each warehouse's unused capacity to the SKUs that shipped all they were allotted there
+     * and claim more. Those SKUs keep what they shipped plus their share of the slack; the others
+     * give their unused allotment back.
+     *
+     * @return whether any SKU was offered more
+     */
+    private static boolean offerSlack(int[] capacity, int[][] claims, int[][] limits, int[][] allotments,
+                                      int[][] shipped) {
+        int[] used = new int[capacity.length];
+        boolean[] wanted = new boolean[capacity.length];
+        for (int s = 0; s < limits.length; s++) {
+            if (shipped[s] == null) {
+                // A SKU that failed in the last round no longer claims anything
+                claims[s] = null;
+                continue;
+            }
+            for (int w = 0; w < limits[s].length; w++) {
+                int c = limits[s][w];
+                if (c >= 0) {
+                    used[c] += shipped[s][w];
+                    wanted[c] |= shipped[s][w] == allotments[s][w] && allotments[s][w] < claims[s][w];
+                }
+            }
+        }
+
+        boolean offered = false;
+        for (int c = 0; c < capacity.length; c++) {
+            if (used[c] < capacity[c] && wanted[c]) {
+                // Settle every SKU at what it shipped, then share the slack by unmet claim
+                for (int s = 0; s < limits.length; s++) {
+                    if (shipped[s] == null) {
+                        continue;
+                    }
+                    for (int w = 0; w < limits[s].length; w++) {
+                        if (limits[s][w] == c) {
+                            allotments[s][w] = shipped[s][w];
+                        }
+                    }
+                }
+                offered |= share(c, capacity[c] - used[c], claims, limits, allotments, true);
+            }
+        }
+        return offered;
+    }
+
+    // Capped proportional split of the packs at capacity index c, the same rule regions use
+    private static boolean share(int c, int packs, int[][] claims, int[][] limits, int[][] allotments,
+                                 boolean unmetOnly) {
+        List<int[]> slots = new ArrayList<>();
+        for (int s = 0; s < limits.length; s++) {
+            if (claims[s] == null) {
+                continue;
+            }
+            for (int w = 0; w < limits[s].length; w++) {
+                if (limits[s][w] == c) {
+                    slots.add(new int[]{s, w});
+                }
+            }
+        }
+        double[] targets = new double[slots.size()];
+        long[] caps = new long[slots.size()];
+        for (int i = 0; i < slots.size(); i++) {
+            int s = slots.get(i)[0];
+            int w = slots.get(i)[1];
+            int want = unmetOnly ? claims[s][w] - allotments[s][w] : claims[s][w];
+            caps[i] = Math.max(want, 0);
+            targets[i] = caps[i];
+        }
+
+        int[] shares = RegionApportionment.apportion(targets, caps, packs);
+        boolean any = false;
+        for (int i = 0; i < slots.size(); i++) {
+            int s = slots.get(i)[0];
+            int w = slots.get(i)[1];
+            allotments[s][w] = unmetOnly ? allotments[s][w] + shares[i] : shares[i];
+            any |= shares[i] > 0;
+        }
+        return any;
+    }
+}
@@ -1,196 +1,544 @@
 package com.casepackoptimizer.service;
 
+import com.casepackoptimizer.allocation.AllocationMode;
+import com.casepackoptimizer.allocation.GreedyStoreAllocator;
+import com.casepackoptimizer.allocation.LargestRemainderStoreAllocator;
+import com.casepackoptimizer.allocation.LargestRemainderWarehouseDistributor;
+import com.casepackoptimizer.allocation.MinCostSourcingFlow;
+import com.casepackoptimizer.allocation.MixedCasepackSolver;
+import com.casepackoptimizer.allocation.ParallelGreedyStoreAllocator;
+import com.casepackoptimizer.allocation.ParallelLargestRemainderStoreAllocator;
+import com.casepackoptimizer.allocation.RegionApportionment;
+import com.casepackoptimizer.allocation.RoundRobinWarehouseDistributor;
+import com.casepackoptimizer.allocation.StoreAllocator;
+import com.casepackoptimizer.allocation.WarehouseDistributor;
+import com.casepackoptimizer.allocation.WarehouseKdTree;
+import com.casepackoptimizer.allocation.WarehouseStrategy;
+import com.casepackoptimizer.cache.CasepackResultCache;
+import com.casepackoptimizer.cache.RequestFingerprint;
+import com.casepackoptimizer.cache.WarehouseIndexCache;
+import com.casepackoptimizer.config.CasepackOptimizerProperties;
 import com.casepackoptimizer.dto.CasepackOptimizerRequest;
 import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import com.casepackoptimizer.metrics.CasepackMetrics;
+import com.casepackoptimizer.metrics.RequestProfile;
+import com.casepackoptimizer.model.AllocationProblem;
+import com.casepackoptimizer.model.AllocationResult;
+import com.casepackoptimizer.model.IndexedIntMap;
+import com.casepackoptimizer.model.SourcingLanes;
+import com.casepackoptimizer.model.SourcingLocations;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @Slf4j
 public class CasepackOptimizerService {
 
+    private final CasepackOptimizerProperties properties;
+    private final CasepackMetrics metrics;
+    private final CasepackResultCache resultCache;
+    private final WarehouseIndexCache warehouseIndexes;
+    private final Map<AllocationMode, StoreAllocator> storeAllocators = new EnumMap<>(AllocationMode.class);
+    private final Map<AllocationMode, StoreAllocator> parallelStoreAllocators = new EnumMap<>(AllocationMode.class);
+    private final Map<WarehouseStrategy, WarehouseDistributor> warehouseDistributors = new EnumMap<>(WarehouseStrategy.class);
+
+    public CasepackOptimizerService() {
+        this(new CasepackOptimizerProperties(), CasepackMetrics.noop(), CasepackResultCache.disabled());
+    }
+
+    @Autowired
+    public CasepackOptimizerService(CasepackOptimizerProperties properties,
+                                    CasepackMetrics metrics,
+                                    CasepackResultCache resultCache) {
+        this.properties = properties;
+        this.metrics = metrics;
+        this.resultCache = resultCache;
+        this.warehouseIndexes = new WarehouseIndexCache(properties.getSourcing().getIndexCacheSize());
+        storeAllocators.put(AllocationMode.GREEDY, new GreedyStoreAllocator());
+        storeAllocators.put(AllocationMode.LARGEST_REMAINDER, new LargestRemainderStoreAllocator());
+        parallelStoreAllocators.put(AllocationMode.GREEDY, new ParallelGreedyStoreAllocator());
+        parallelStoreAllocators.put(AllocationMode.LARGEST_REMAINDER, new ParallelLargestRemainderStoreAllocator());
+        warehouseDistributors.put(WarehouseStrategy.ROUND_ROBIN, new RoundRobinWarehouseDistributor());
+        warehouseDistributors.put(WarehouseStrategy.LARGEST_REMAINDER, new LargestRemainderWarehouseDistributor());
+    }
+
     public CasepackOptimizerResponse optimizeCasepacks(CasepackOptimizerRequest request) {
         // Validate input
         if (request.getCasePacks() == null || request.getCasePacks().isEmpty()) {
             throw new IllegalArgumentException("Casepacks cannot be null or empty");
         }
 
+        // All calculations run on dense arrays; maps are only rebuilt for the response
+        AllocationProblem problem = AllocationProblem.from(request);
+        if (!resultCache.isEnabled()) {
+            return toResponse(request, problem, solve(problem));
+        }
+
+        // Identical requests, in the same map order, share one cached response
+        RequestFingerprint fingerprint = RequestFingerprint.of(problem, request.getCasePacks(), resolveMode(problem));
+        return resultCache.get(fingerprint, () -> toResponse(request, problem, solve(problem)));
+    }
+
+    public AllocationResult solve(AllocationProblem problem) {
+        AllocationResult result = allocate(problem);
+        if (problem.getLanes() != null) {
+            return source(problem, result);
+        }
+        return problem.getLocations() != null ? sourceNearest(problem, result) : result;
+    }
+
+    private AllocationResult allocate(AllocationProblem problem) {
+        // Large requests spread every per-store pass over the fork/join pool
+        boolean parallel = isParallel(problem);
+
+        // Several casepack configurations are solved together
+        if (problem.casepackTypeCount() > 1) {
+            return solveMixedCasepacks(problem, parallel);
+        }
+
         // Calculate total items per casepack (generic for any ratio)
-        int itemsPerCasepack = calculateItemsPerCasepack(request.getCasePacks().get(0));
+        int itemsPerCasepack = problem.getCasepackUnits()[0];
 
         // Calculate total available casepacks and items from all warehouses
-        int totalAvailableCasepacks = request.getWarehouseAvailableQty().values().stream()
-                .mapToInt(Integer::intValue)
-                .sum();
-        int totalAvailableItems = totalAvailableCasepacks * itemsPerCasepack;
+        int totalAvailableCasepacks = sum(problem.getWarehouseQty());
+
+        // Store minimums are set aside first; fair share covers the need they leave open
+        boolean bounded = problem.getStoreMinPacks() != null || problem.getStoreMaxPacks() != null;
+        int reservedCasepacks = bounded ? reserveMinimums(problem, totalAvailableCasepacks) : 0;
+        int[] needs = reservedCasepacks > 0
+                ? needsAfterMinimums(problem.getStoreNeeds(), problem.getStoreMinPacks(), itemsPerCasepack)
+                : problem.getStoreNeeds();
+        int[] caps = bounded ? packCaps(problem) : null;
+        int totalAvailableItems = (totalAvailableCasepacks - reservedCasepacks) * itemsPerCasepack;
 
         // Calculate total need from all stores
-        int totalNeed = request.getNeedPerStore().values().stream()
-                .filter(need -> need > 0) // Only consider stores with positive needs
-                .mapToInt(Integer::intValue)
-                .sum();
+        int totalNeed = parallel ? parallelSumPositive(needs) : sumPositive(needs);
 
-        log.info("Items per casepack: {}, Total available casepacks: {}, Total available items: {}, Total need: {}",
+        log.debug("Items per casepack: {}, Total available casepacks: {}, Total available items: {}, Total need: {}",
                 itemsPerCasepack, totalAvailableCasepacks, totalAvailableItems, totalNeed);
+        metrics.recordShape(problem.storeCount(), problem.warehouseCount(), totalAvailableItems < totalNeed);
 
         // Calculate store allocations
-        Map<String, Integer> storeAllocations = calculateStoreAllocations(
-                request.getNeedPerStore(),
-                totalAvailableItems,
-                totalNeed,
-                itemsPerCasepack
-        );
+        long phaseStart = metrics.startPhase();
+        AllocationMode allocationMode = resolveMode(problem);
+        double[] expectedAllocations = calculateExpectedAllocations(needs, totalAvailableItems, totalNeed, parallel);
+        if (caps != null && totalAvailableItems < totalNeed) {
+            capFairShares(expectedAllocations, needs, caps, itemsPerCasepack, totalAvailableItems, totalNeed);
+        }
+        int[] storePacks = problem.getStoreRegions() != null
+                ? allocateByRegion(problem, expectedAllocations, totalAvailableItems / itemsPerCasepack,
+                        itemsPerCasepack, allocationMode, caps)
+                : (parallel ? parallelStoreAllocators : storeAllocators).get(allocationMode)
+                        .allocate(expectedAllocations, totalAvailableItems / itemsPerCasepack, itemsPerCasepack, caps);
+        if (reservedCasepacks > 0) {
+            int[] minPacks = problem.getStoreMinPacks();
+            for (int i = 0; i < storePacks.length; i++) {
+                storePacks[i] += minPacks[i];
+            }
+        }
+        metrics.recordPhase(CasepackMetrics.Phase.STORE_ALLOCATION, phaseStart);
 
         // Calculate total allocated casepacks
-        int totalAllocatedCasepacks = storeAllocations.values().stream()
-                .mapToInt(Integer::intValue)
-                .sum();
+        int totalAllocatedCasepacks = parallel ? IntStream.of(storePacks).parallel().sum() : sum(storePacks);
+        metrics.recordAllocated(totalAllocatedCasepacks);
+        if (allocationMode == AllocationMode.GREEDY && !parallel && problem.getStoreRegions() == null) {
+            // The greedy loop runs once per pack handed out beyond the minimums
+            RequestProfile.recordGreedyIterations(totalAllocatedCasepacks - reservedCasepacks);
+        }
 
         // Calculate warehouse distributions based on fair share
-        Map<String, Integer> warehouseDistributions = calculateWarehouseDistributions(
-                request.getWarehouseAvailableQty(),
-                totalAllocatedCasepacks
-        );
+        phaseStart = metrics.startPhase();
+        int[] warehousePacks = calculateWarehouseDistributions(problem.getWarehouseIds(), problem.getWarehouseQty(),
+                totalAllocatedCasepacks);
+        metrics.recordPhase(CasepackMetrics.Phase.WAREHOUSE_DISTRIBUTION, phaseStart);
 
         // Calculate remaining supply
         int remainingSupply = totalAvailableCasepacks - totalAllocatedCasepacks;
 
-        return CasepackOptimizerResponse.builder()
-                .casePacks(request.getCasePacks())
-                .stores(storeAllocations)
-                .warehouses(warehouseDistributions)
-                .remainingSupply(remainingSupply)
-                .build();
+        return new AllocationResult(storePacks, null, warehousePacks, totalAllocatedCasepacks, remainingSupply);
     }
 
-    private int calculateItemsPerCasepack(CasepackOptimizerRequest.CasePack casePack) {
-        return casePack.getSizeRatios().stream()
-                .mapToInt(ratio -> ratio.getQty())
-                .sum();
+    // Ships the store totals from the warehouse totals over the cheapest lanes
+    private AllocationResult source(AllocationProblem problem, AllocationResult result) {
+        long phaseStart = metrics.startPhase();
+        SourcingLanes lanes = problem.getLanes();
+        int[] lanePacks = MinCostSourcingFlow.solve(result.getStorePacks(), result.getWarehousePacks(),
+                lanes.getStores(), lanes.getWarehouses(), lanes.getCosts());
+        metrics.recordPhase(CasepackMetrics.Phase.SOURCING, phaseStart);
+
+        int sourced = sum(lanePacks);
+        if (sourced < result.getTotalAllocatedCasepacks()) {
+            throw new InfeasibleAllocationException("Lanes can carry only " + sourced + " of the "
+                    + result.getTotalAllocatedCasepacks() + " allocated casepacks");
+        }
+        return result.withSourcing(lanes, lanePacks);
     }
 
-    private Map<String, Integer> calculateStoreAllocations(Map<String, Integer> needPerStore,
-                                                           int totalAvailableItems,
-                                                           int totalNeed,
-                                                           int itemsPerCasepack) {
-        Map<String, Integer> allocations = new LinkedHashMap<>();
-        Map<String, Double> expectedAllocations = new HashMap<>();
-
-        // Handle edge case where total need is 0
-        if (totalNeed == 0) {
-            for (String store : needPerStore.keySet()) {
-                allocations.put(store, 0);
+    // Ships each store's packs from the nearest warehouses that still have some of the warehouse totals
+    private AllocationResult sourceNearest(AllocationProblem problem, AllocationResult result) {
+        long phaseStart = metrics.startPhase();
+        SourcingLocations locations = problem.getLocations();
+        WarehouseKdTree index = warehouseIndexes.get(problem.getWarehouseIds(), locations.getWarehouses());
+        WarehouseKdTree.Stock stock = index.stock(result.getWarehousePacks());
+
+        int[] storePacks = result.getStorePacks();
+        double[] points = locations.getStores();
+        // Most stores are served by one warehouse; the arrays grow when a warehouse runs dry
+        int[] laneStores = new int[storePacks.length];
+        int[] laneWarehouses = new int[storePacks.length];
+        int[] lanePacks = new int[storePacks.length];
+        int lanes = 0;
+        for (int i = 0; i < storePacks.length; i++) {
+            int open = storePacks[i];
+            while (open > 0) {
+                int warehouse = stock.nearest(points[3 * i], points[3 * i + 1], points[3 * i + 2]);
+                if (warehouse < 0) {
+                    throw new IllegalStateException("Warehouse totals fall short of the store totals");
+                }
+                if (lanes == laneStores.length) {
+                    int grown = laneStores.length + (laneStores.length >> 1) + 1;
+                    laneStores = Arrays.copyOf(laneStores, grown);
+                    laneWarehouses = Arrays.copyOf(laneWarehouses, grown);
+                    lanePacks = Arrays.copyOf(lanePacks, grown);
+                }
+                int packs = stock.take(warehouse, open);
+                laneStores[lanes] = i;
+                laneWarehouses[lanes] = warehouse;
+                lanePacks[lanes++] = packs;
+                open -= packs;
             }
-            return allocations;
         }
+        metrics.recordPhase(CasepackMetrics.Phase.SOURCING, phaseStart);
 
-        if (totalAvailableItems < totalNeed) {
-            // Fair share scenario - allocate proportionally
-            for (Map.Entry<String, Integer> entry : needPerStore.entrySet()) {
-                if (entry.getValue() > 0) {
-                    double fairShareItems = (double) entry.getValue() * totalAvailableItems / totalNeed;
-                    expectedAllocations.put(entry.getKey(), fairShareItems);
-                } else {
-                    expectedAllocations.put(entry.getKey(), 0.0);
-                }
+        SourcingLanes picked = new SourcingLanes(Arrays.copyOf(laneStores, lanes),
+                Arrays.copyOf(laneWarehouses, lanes), null);
+        return result.withSourcing(picked, Arrays.copyOf(lanePacks, lanes));
+    }
+
+    private AllocationResult solveMixedCasepacks(AllocationProblem problem, boolean parallel) {
+        if (problem.getStoreRegions() != null) {
+            throw new IllegalArgumentException("Regions are only supported with a single casepack");
+        }
+        if (problem.getStoreMinPacks() != null || problem.getStoreMaxPacks() != null) {
+            throw new IllegalArgumentException("Store bounds are only supported with a single casepack");
+        }
+        int[] units = problem.getCasepackUnits();
+        int[] availablePacks = problem.getCasepackPacks();
+        long totalTypePacks = 0;
+        long totalTypeItems = 0;
+
+        for (int t = 0; t < units.length; t++) {
+            if (units[t] <= 0) {
+                throw new IllegalArgumentException("Casepack " + t + " must contain at least one item");
             }
-        } else {
-            // Sufficient supply scenario - satisfy all needs
-            for (Map.Entry<String, Integer> entry : needPerStore.entrySet()) {
-                expectedAllocations.put(entry.getKey(), (double) entry.getValue());
+            if (availablePacks[t] <= 0) {
+                throw new IllegalArgumentException("Casepack " + t + " needs a positive packs count when several casepacks are sent");
             }
+            totalTypePacks += availablePacks[t];
+            totalTypeItems += (long) availablePacks[t] * units[t];
         }
 
-        // Convert expected items to casepacks using a greedy approach
-        Map<String, Double> remainingNeeds = new HashMap<>(expectedAllocations);
-        int remainingCasepacks = totalAvailableItems / itemsPerCasepack;
+        // Warehouses hold packs of any type, so they cap the total number of packs handed out
+        int totalAvailableCasepacks = sum(problem.getWarehouseQty());
+        int packLimit = (int) Math.min(totalTypePacks, totalAvailableCasepacks);
+        int totalAvailableItems = (int) (totalTypeItems * packLimit / totalTypePacks);
+        int totalNeed = parallel ? parallelSumPositive(problem.getStoreNeeds()) : sumPositive(problem.getStoreNeeds());
+
+        log.debug("Casepack types: {}, Pack limit: {}, Total available items: {}, Total need: {}",
+                units.length, packLimit, totalAvailableItems, totalNeed);
+        metrics.recordShape(problem.storeCount(), problem.warehouseCount(), totalAvailableItems < totalNeed);
+
+        long phaseStart = metrics.startPhase();
+        double[] expectedAllocations = calculateExpectedAllocations(problem.getStoreNeeds(), totalAvailableItems,
+                totalNeed, parallel);
+        double maxTarget = 0;
+        for (double target : expectedAllocations) {
+            maxTarget = Math.max(maxTarget, target);
+        }
+        int[] mixes = new MixedCasepackSolver(units, maxTarget).allocate(expectedAllocations, availablePacks, packLimit);
 
-        // Initialize all stores with 0 casepacks
-        for (String store : needPerStore.keySet()) {
-            allocations.put(store, 0);
+        int[] storePacks = new int[problem.storeCount()];
+        for (int i = 0; i < mixes.length; i++) {
+            storePacks[i / units.length] += mixes[i];
         }
+        int totalAllocatedCasepacks = sum(storePacks);
+        metrics.recordPhase(CasepackMetrics.Phase.STORE_ALLOCATION, phaseStart);
+        metrics.recordAllocated(totalAllocatedCasepacks);
 
-        // Allocate casepacks to minimize total deviation
-        while (remainingCasepacks > 0) {
-            String bestStore = null;
-            double maxPriority = Double.NEGATIVE_INFINITY;
+        phaseStart = metrics.startPhase();
+        int[] warehousePacks = calculateWarehouseDistributions(problem.getWarehouseIds(), problem.getWarehouseQty(),
+                totalAllocatedCasepacks);
+        metrics.recordPhase(CasepackMetrics.Phase.WAREHOUSE_DISTRIBUTION, phaseStart);
 
-            for (Map.Entry<String, Double> entry : remainingNeeds.entrySet()) {
-                String store = entry.getKey();
-                double remaining = entry.getValue();
+        return new AllocationResult(storePacks, mixes, warehousePacks, totalAllocatedCasepacks,
+                totalAvailableCasepacks - totalAllocatedCasepacks);
+    }
 
-                if (remaining > 0) {
-                    // Priority based on how much this store needs relative to a casepack
-                    double priority = remaining / itemsPerCasepack;
+    /**
+     * Splits the casepacks across regions by their summed targets, then allocates each region's
+     * stores on its own, regions in parallel. The total handed out equals the flat allocation;
+     * within a region the configured mode decides which stores get the packs, so the work per
+     * task grows with the largest region rather than with all stores.
+     */
+    private int[] allocateByRegion(AllocationProblem problem, double[] targets, int casepacks,
+                                   int itemsPerCasepack, AllocationMode allocationMode, int[] caps) {
+        int[] storeRegions = problem.getStoreRegions();
+        int regionCount = problem.regionCount();
+
+        // Store indices grouped by region, request order kept within each region
+        int[] starts = new int[regionCount + 1];
+        for (int region : storeRegions) {
+            starts[region + 1]++;
+        }
+        for (int r = 0; r < regionCount; r++) {
+            starts[r + 1] += starts[r];
+        }
+        int[] members = new int[storeRegions.length];
+        int[] next = Arrays.copyOf(starts, regionCount);
+        double[] regionTargets = new double[regionCount];
+        long[] regionCapacities = new long[regionCount];
+        for (int i = 0; i < storeRegions.length; i++) {
+            int region = storeRegions[i];
+            members[next[region]++] = i;
+            if (targets[i] > 0) {
+                regionTargets[region] += targets[i];
+                // Both allocators stop once a store is rounded up to a whole casepack or at its cap
+                long capacity = (long) Math.ceil(targets[i] / itemsPerCasepack);
+                regionCapacities[region] += caps != null ? Math.min(capacity, caps[i]) : capacity;
+            }
+        }
 
-                    if (priority > maxPriority) {
-                        maxPriority = priority;
-                        bestStore = store;
-                    }
+        int[] regionPacks = RegionApportionment.apportion(regionTargets, regionCapacities, casepacks);
+        StoreAllocator allocator = storeAllocators.get(allocationMode);
+        int[] storePacks = new int[storeRegions.length];
+        // Each region writes only its own stores
+        IntStream.range(0, regionCount).parallel().forEach(r -> {
+            double[] regionStoreTargets = new double[starts[r + 1] - starts[r]];
+            int[] regionStoreCaps = caps != null ? new int[regionStoreTargets.length] : null;
+            for (int j = 0; j < regionStoreTargets.length; j++) {
+                regionStoreTargets[j] = targets[members[starts[r] + j]];
+                if (caps != null) {
+                    regionStoreCaps[j] = caps[members[starts[r] + j]];
                 }
             }
+            int[] packs = allocator.allocate(regionStoreTargets, regionPacks[r], itemsPerCasepack, regionStoreCaps);
+            for (int j = 0; j < packs.length; j++) {
+                storePacks[members[starts[r] + j]] = packs[j];
+            }
+        });
+        return storePacks;
+    }
 
-            if (bestStore == null) {
+    // Checks the bounds against each other and the supply, and returns the casepacks the minimums take
+    private static int reserveMinimums(AllocationProblem problem, int totalAvailableCasepacks) {
+        int[] minPacks = problem.getStoreMinPacks();
+        int[] maxPacks = problem.getStoreMaxPacks();
+        long reserved = 0;
+        for (int i = 0; i < problem.storeCount(); i++) {
+            int min = minPacks != null ? minPacks[i] : 0;
+            if (maxPacks != null && min > maxPacks[i]) {
+                throw new InfeasibleAllocationException("Store " + problem.getStoreIds()[i] + " has a minimum of "
+                        + min + " casepacks above its maximum of " + maxPacks[i]);
+            }
+            reserved += min;
+        }
+        if (reserved > totalAvailableCasepacks) {
+            throw new InfeasibleAllocationException("Store minimums need " + reserved + " casepacks but only "
+                    + totalAvailableCasepacks + " are available");
+        }
+        return (int) reserved;
+    }
+
+    /**
+     * Re-shares the supply that capped stores cannot take. A store is held at its cap when its
+     * fair share exceeds it; each such store raises the rate for the others, so stores are
+     * checked by ascending cap-to-need ratio until one is no longer bound.
+     */
+    private static void capFairShares(double[] targets, int[] needs, int[] caps, int itemsPerCasepack,
+                                      int totalAvailableItems, int totalNeed) {
+        double[] capItems = new double[needs.length];
+        List<Integer> capped = new ArrayList<>();
+        for (int i = 0; i < needs.length; i++) {
+            capItems[i] = (double) caps[i] * itemsPerCasepack;
+            if (needs[i] > 0 && capItems[i] < needs[i]) {
+                capped.add(i);
+            }
+        }
+        capped.sort(Comparator.comparingDouble(i -> capItems[i] / needs[i]));
+
+        double available = totalAvailableItems;
+        double need = totalNeed;
+        boolean[] held = new boolean[needs.length];
+        int heldCount = 0;
+        for (int store : capped) {
+            if (capItems[store] * need >= available * needs[store]) {
                 break;
             }
+            held[store] = true;
+            heldCount++;
+            available -= capItems[store];
+            need -= needs[store];
+        }
+        if (heldCount == 0) {
+            return;
+        }
+
+        for (int i = 0; i < needs.length; i++) {
+            if (held[i]) {
+                targets[i] = capItems[i];
+            } else if (needs[i] > 0 && need > 0) {
+                targets[i] = needs[i] * available / need;
+            }
+        }
+    }
+
+    private static int[] needsAfterMinimums(int[] needs, int[] minPacks, int itemsPerCasepack) {
+        int[] remaining = new int[needs.length];
+        for (int i = 0; i < needs.length; i++) {
+            remaining[i] = (int) Math.max(0, needs[i] - (long) minPacks[i] * itemsPerCasepack);
+        }
+        return remaining;
+    }
 
-            // Allocate one casepack to the best store
-            allocations.put(bestStore, allocations.get(bestStore) + 1);
-            remainingNeeds.put(bestStore, remainingNeeds.get(bestStore) - itemsPerCasepack);
-            remainingCasepacks--;
+    // Casepacks each store may still take on top of its minimum; null when no store has a maximum
+    private static int[] packCaps(AllocationProblem problem) {
+        int[] maxPacks = problem.getStoreMaxPacks();
+        if (maxPacks == null) {
+            return null;
+        }
+        int[] minPacks = problem.getStoreMinPacks();
+        int[] caps = maxPacks.clone();
+        if (minPacks != null) {
+            for (int i = 0; i < caps.length; i++) {
+                caps[i] -= minPacks[i];
+            }
         }
+        return caps;
+    }
+
+    private boolean isParallel(AllocationProblem problem) {
+        int threshold = properties.getParallel().getThreshold();
+        return threshold > 0 && problem.storeCount() >= threshold;
+    }
 
-        return allocations;
+    private AllocationMode resolveMode(AllocationProblem problem) {
+        return problem.getAllocationMode() != null
+                ? problem.getAllocationMode()
+                : properties.getAllocation().getMode();
     }
 
-    private Map<String, Integer> calculateWarehouseDistributions(Map<String, Integer> warehouseAvailableQty,
-                                                                 int totalAllocatedCasepacks) {
-        Map<String, Integer> distributions = new LinkedHashMap<>();
-        int totalAvailable = warehouseAvailableQty.values().stream()
-                .mapToInt(Integer::intValue)
-                .sum();
+    CasepackOptimizerResponse toResponse(CasepackOptimizerRequest request,
+                                         AllocationProblem problem,
+                                         AllocationResult result) {
+        String[] storeIds = problem.getStoreIds();
+
+        Map<String, List<Integer>> storeCasePacks = null;
+        int[] mixes = result.getStoreCasepackMix();
+        if (mixes != null) {
+            int typeCount = problem.casepackTypeCount();
+            storeCasePacks = new LinkedHashMap<>();
+            for (int i = 0; i < storeIds.length; i++) {
+                List<Integer> mix = new ArrayList<>(typeCount);
+                for (int t = 0; t < typeCount; t++) {
+                    mix.add(mixes[i * typeCount + t]);
+                }
+                storeCasePacks.put(storeIds[i], mix);
+            }
+        }
 
-        if (totalAllocatedCasepacks >= totalAvailable) {
-            // Use all warehouse inventory
-            return new LinkedHashMap<>(warehouseAvailableQty);
+        List<CasepackOptimizerResponse.Shipment> sourcing = null;
+        int[] lanePacks = result.getLanePacks();
+        if (lanePacks != null) {
+            SourcingLanes lanes = result.getLanes();
+            sourcing = new ArrayList<>();
+            for (int l = 0; l < lanePacks.length; l++) {
+                if (lanePacks[l] > 0) {
+                    sourcing.add(new CasepackOptimizerResponse.Shipment(storeIds[lanes.getStores()[l]],
+                            problem.getWarehouseIds()[lanes.getWarehouses()[l]], lanePacks[l]));
+                }
+            }
         }
 
-        // Fair share distribution across warehouses
-        int remaining = totalAllocatedCasepacks;
-        List<Map.Entry<String, Integer>> sortedWarehouses = warehouseAvailableQty.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .collect(Collectors.toList());
+        return CasepackOptimizerResponse.builder()
+                .casePacks(request.getCasePacks())
+                .stores(new IndexedIntMap(storeIds, result.getStorePacks()))
+                .storeCasePacks(storeCasePacks)
+                .warehouses(new IndexedIntMap(problem.getWarehouseIds(), result.getWarehousePacks()))
+                .sourcing(sourcing)
+                .remainingSupply(result.getRemainingSupply())
+                .build();
+    }
 
-        for (Map.Entry<String, Integer> entry : sortedWarehouses) {
-            String warehouse = entry.getKey();
-            int available = entry.getValue();
+    // Expected items per store
+    double[] calculateExpectedAllocations(int[] needs, int totalAvailableItems, int totalNeed) {
+        return calculateExpectedAllocations(needs, totalAvailableItems, totalNeed, false);
+    }
 
-            // Calculate fair share for this warehouse
-            double fairShare = (double) available * totalAllocatedCasepacks / totalAvailable;
-            int allocation = Math.min((int) Math.round(fairShare), available);
-            allocation = Math.min(allocation, remaining);
+    double[] calculateExpectedAllocations(int[] needs, int totalAvailableItems, int totalNeed, boolean parallel) {
+        double[] expectedAllocations = new double[needs.length];
 
-            distributions.put(warehouse, allocation);
-            remaining -= allocation;
+        // Handle edge case where total need is 0
+        if (totalNeed == 0) {
+            return expectedAllocations;
         }
 
-        // Distribute any remaining casepacks
-        while (remaining > 0) {
-            for (Map.Entry<String, Integer> entry : sortedWarehouses) {
-                String warehouse = entry.getKey();
-                int available = entry.getValue();
-                int allocated = distributions.get(warehouse);
+        if (parallel) {
+            // Same per-store expressions as below, computed in chunks on the fork/join pool
+            if (totalAvailableItems < totalNeed) {
+                Arrays.parallelSetAll(expectedAllocations,
+                        i -> needs[i] > 0 ? (double) needs[i] * totalAvailableItems / totalNeed : 0);
+            } else {
+                Arrays.parallelSetAll(expectedAllocations, i -> needs[i]);
+            }
+            return expectedAllocations;
+        }
 
-                if (allocated < available && remaining > 0) {
-                    distributions.put(warehouse, allocated + 1);
-                    remaining--;
+        if (totalAvailableItems < totalNeed) {
+            // Fair share scenario - allocate proportionally
+            for (int i = 0; i < needs.length; i++) {
+                if (needs[i] > 0) {
+                    expectedAllocations[i] = (double) needs[i] * totalAvailableItems / totalNeed;
                 }
             }
+        } else {
+            // Sufficient supply scenario - satisfy all needs
+            for (int i = 0; i < needs.length; i++) {
+                expectedAllocations[i] = needs[i];
+            }
+        }
+
+        return expectedAllocations;
+    }
+
+    int[] calculateWarehouseDistributions(String[] warehouseIds, int[] available, int totalAllocatedCasepacks) {
+        return warehouseDistributors.get(properties.getWarehouse().getStrategy())
+                .distribute(warehouseIds, available, totalAllocatedCasepacks);
+    }
+
+    static int sum(int[] values) {
+        int total = 0;
+        for (int value : values) {
+            total += value;
         }
+        return total;
+    }
+
+    // int addition wraps the same way in any order, so this always equals sumPositive
+    private static int parallelSumPositive(int[] values) {
+        return IntStream.of(values).parallel().filter(value -> value > 0).sum();
+    }
 
-        return distributions;
+    static int sumPositive(int[] values) {
+        int total = 0;
+        for (int value : values) {
+            if (value > 0) {
+                total += value;
+            }
+        }
+        return total;
     }
-}
\ No newline at end of file
+}
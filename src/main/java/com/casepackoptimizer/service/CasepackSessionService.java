@@ -0,0 +1,317 @@
+package com.casepackoptimizer.service;
+
+import com.casepackoptimizer.allocation.AllocationMode;
+import com.casepackoptimizer.allocation.IncrementalGreedyAllocation;
+import com.casepackoptimizer.config.CasepackOptimizerProperties;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import com.casepackoptimizer.dto.CasepackSessionDelta;
+import com.casepackoptimizer.dto.CasepackSessionResponse;
+import com.casepackoptimizer.model.AllocationProblem;
+import com.casepackoptimizer.model.IndexedIntMap;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps optimized allocations in memory so planners can send small changes instead of whole
+ * requests. A session is created from a regular single-casepack greedy request and then accepts
+ * deltas of store needs and warehouse stock, and always returns what a full optimize of the
+ * updated request would.
+ *
+ * <p>While the fair-share rate (available items over total need) stays the same, only the changed
+ * stores and the packs they displace are recomputed. That covers every delta while stock covers
+ * the total need, and need changes that leave the total as it was. A delta that moves the rate
+ * in a shortage changes every store's fair share, so the allocation is rebuilt from scratch.
+ */
+@Service
+@Slf4j
+public class CasepackSessionService {
+
+    private final CasepackOptimizerService casepackOptimizerService;
+    private final CasepackOptimizerProperties.Session settings;
+    // Access order, so the eldest entry is the least recently used session
+    private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    public CasepackSessionService(CasepackOptimizerService casepackOptimizerService,
+                                  CasepackOptimizerProperties properties,
+                                  MeterRegistry registry) {
+        this.casepackOptimizerService = casepackOptimizerService;
+        this.settings = properties.getSession();
+        Gauge.builder("casepack.sessions.active", this, CasepackSessionService::size).register(registry);
+    }
+
+    public CasepackSessionResponse create(CasepackOptimizerRequest request) {
+        if (request.getCasePacks() == null || request.getCasePacks().size() != 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sessions need exactly one casepack");
+        }
+        if (request.getRegions() != null || request.getMinPacksPerStore() != null
+                || request.getMaxPacksPerStore() != null || request.getLanes() != null
+                || request.getStoreLocations() != null || request.getWarehouseLocations() != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Sessions do not support regions, store bounds, lanes or locations");
+        }
+        AllocationProblem problem = AllocationProblem.from(request);
+        if (problem.getAllocationMode() != null && problem.getAllocationMode() != AllocationMode.GREEDY) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sessions only support greedy allocation");
+        }
+        int itemsPerCasepack = problem.getCasepackUnits()[0];
+        if (itemsPerCasepack <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Casepack must contain at least one item");
+        }
+
+        Session session = new Session(UUID.randomUUID().toString(), problem, itemsPerCasepack);
+        if (session.bytes > settings.getMaxBytes()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Request is too large to keep as a session");
+        }
+
+        synchronized (this) {
+            evictExpired();
+            // Least recently used sessions make room for the new one
+            Iterator<Session> eldest = sessions.values().iterator();
+            while (usedBytes + session.bytes > settings.getMaxBytes() && eldest.hasNext()) {
+                Session evicted = eldest.next();
+                eldest.remove();
+                usedBytes -= evicted.bytes;
+                log.debug("Evicted session {} to stay under the memory limit", evicted.id);
+            }
+            sessions.put(session.id, session);
+            usedBytes += session.bytes;
+        }
+
+        synchronized (session) {
+            return session.response(false);
+        }
+    }
+
+    public CasepackSessionResponse get(String sessionId) {
+        Session session = find(sessionId);
+        synchronized (session) {
+            return session.response(false);
+        }
+    }
+
+    public CasepackSessionResponse update(String sessionId, CasepackSessionDelta delta, boolean changesOnly) {
+        Session session = find(sessionId);
+        synchronized (session) {
+            session.apply(delta);
+            return session.response(changesOnly);
+        }
+    }
+
+    public void delete(String sessionId) {
+        synchronized (this) {
+            Session session = sessions.remove(sessionId);
+            if (session == null) {
+                throw notFound(sessionId);
+            }
+            usedBytes -= session.bytes;
+        }
+    }
+
+    synchronized int size() {
+        return sessions.size();
+    }
+
+    private synchronized Session find(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            throw notFound(sessionId);
+        }
+        long now = System.nanoTime();
+        if (now - session.lastAccessNanos > settings.getIdleTimeout().toNanos()) {
+            sessions.remove(sessionId);
+            usedBytes -= session.bytes;
+            throw notFound(sessionId);
+        }
+        session.lastAccessNanos = now;
+        return session;
+    }
+
+    private void evictExpired() {
+        long idleNanos = settings.getIdleTimeout().toNanos();
+        long now = System.nanoTime();
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            Session session = iterator.next();
+            if (now - session.lastAccessNanos > idleNanos) {
+                iterator.remove();
+                usedBytes -= session.bytes;
+            }
+        }
+    }
+
+    private static ResponseStatusException notFound(String sessionId) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Session " + sessionId + " does not exist or has expired");
+    }
+
+    private final class Session {
+
+        private final String id;
+        private final IndexedIntMap stores;
+        private final IndexedIntMap warehouses;
+        private final int[] needs;
+        private final int[] warehouseQty;
+        private final int itemsPerCasepack;
+        // Fair-share inputs of the current allocation
+        private int totalAvailableItems;
+        private int totalNeed;
+        private IncrementalGreedyAllocation allocation;
+        // Store packs before the last delta when that delta rebuilt the allocation, otherwise null
+        private int[] rebuiltFrom;
+        private int[] warehousePacks;
+        private int[] previousWarehousePacks;
+        private final long bytes;
+        private long lastAccessNanos = System.nanoTime();
+
+        private Session(String id, AllocationProblem problem, int itemsPerCasepack) {
+            this.id = id;
+            this.stores = new IndexedIntMap(problem.getStoreIds(), problem.getStoreNeeds());
+            this.warehouses = new IndexedIntMap(problem.getWarehouseIds(), problem.getWarehouseQty());
+            this.needs = problem.getStoreNeeds().clone();
+            this.warehouseQty = problem.getWarehouseQty().clone();
+            this.itemsPerCasepack = itemsPerCasepack;
+
+            this.totalAvailableItems = CasepackOptimizerService.sum(warehouseQty) * itemsPerCasepack;
+            this.totalNeed = CasepackOptimizerService.sumPositive(needs);
+            this.allocation = solve();
+            this.warehousePacks = distributeWarehouses();
+            this.previousWarehousePacks = warehousePacks;
+            this.bytes = 1024 + 72L * problem.storeCount() + 48L * problem.warehouseCount();
+        }
+
+        private void apply(CasepackSessionDelta delta) {
+            // Resolve every key before changing anything, so a bad delta leaves the session untouched
+            int[] warehouseIndices = indicesOf(warehouses, "warehouse", delta.getWarehouseAvailableQty());
+            int[] storeIndices = indicesOf(stores, "store", delta.getNeedPerStore());
+
+            allocation.clearChanges();
+            rebuiltFrom = null;
+            previousWarehousePacks = warehousePacks;
+
+            if (warehouseIndices.length > 0) {
+                int i = 0;
+                for (Integer qty : delta.getWarehouseAvailableQty().values()) {
+                    warehouseQty[warehouseIndices[i++]] = qty;
+                }
+            }
+            int newNeed = totalNeed;
+            if (storeIndices.length > 0) {
+                int i = 0;
+                for (Integer need : delta.getNeedPerStore().values()) {
+                    int store = storeIndices[i++];
+                    newNeed += Math.max(need, 0) - Math.max(needs[store], 0);
+                    needs[store] = need;
+                }
+            }
+            int casepacks = CasepackOptimizerService.sum(warehouseQty);
+            int newAvailable = casepacks * itemsPerCasepack;
+
+            boolean sameRate = (covered(totalAvailableItems, totalNeed) && covered(newAvailable, newNeed))
+                    || (newAvailable == totalAvailableItems && newNeed == totalNeed);
+            totalAvailableItems = newAvailable;
+            totalNeed = newNeed;
+            if (sameRate) {
+                if (warehouseIndices.length > 0) {
+                    allocation.updateCasepacks(casepacks);
+                }
+                for (int store : storeIndices) {
+                    allocation.updateTarget(store, target(needs[store]));
+                }
+            } else {
+                rebuiltFrom = allocation.allocations();
+                allocation = solve();
+            }
+            warehousePacks = distributeWarehouses();
+        }
+
+        // Every store's target equals its need when stock covers the total need
+        private static boolean covered(int availableItems, int need) {
+            return need == 0 || availableItems >= need;
+        }
+
+        private IncrementalGreedyAllocation solve() {
+            double[] targets = casepackOptimizerService.calculateExpectedAllocations(needs, totalAvailableItems,
+                    totalNeed);
+            return new IncrementalGreedyAllocation(targets, totalAvailableItems / itemsPerCasepack, itemsPerCasepack);
+        }
+
+        // Same expression as CasepackOptimizerService.calculateExpectedAllocations at the current rate
+        private double target(int need) {
+            if (covered(totalAvailableItems, totalNeed)) {
+                return need;
+            }
+            return need > 0 ? (double) need * totalAvailableItems / totalNeed : 0;
+        }
+
+        private int[] distributeWarehouses() {
+            return casepackOptimizerService.calculateWarehouseDistributions(warehouses.keyArray(), warehouseQty,
+                    allocation.allocated());
+        }
+
+        private CasepackSessionResponse response(boolean changesOnly) {
+            Map<String, Integer> storePacks;
+            Map<String, Integer> warehouseResult;
+            if (changesOnly) {
+                storePacks = new LinkedHashMap<>();
+                for (int store : changedStores()) {
+                    storePacks.put(stores.keyAt(store), allocation.allocationAt(store));
+                }
+                warehouseResult = new LinkedHashMap<>();
+                for (int w = 0; w < warehousePacks.length; w++) {
+                    if (warehousePacks[w] != previousWarehousePacks[w]) {
+                        warehouseResult.put(warehouses.keyAt(w), warehousePacks[w]);
+                    }
+                }
+            } else {
+                storePacks = new IndexedIntMap(stores.keyArray(), allocation.allocations());
+                warehouseResult = new IndexedIntMap(warehouses.keyArray(), warehousePacks.clone());
+            }
+
+            return CasepackSessionResponse.builder()
+                    .sessionId(id)
+                    .stores(storePacks)
+                    .warehouses(warehouseResult)
+                    .remainingSupply(CasepackOptimizerService.sum(warehouseQty) - allocation.allocated())
+                    .build();
+        }
+
+        private int[] changedStores() {
+            if (rebuiltFrom == null) {
+                return allocation.changedStores();
+            }
+            return IntStream.range(0, rebuiltFrom.length)
+                    .filter(store -> allocation.allocationAt(store) != rebuiltFrom[store])
+                    .toArray();
+        }
+
+        private int[] indicesOf(IndexedIntMap keys, String kind, Map<String, Integer> quantities) {
+            if (quantities == null) {
+                return new int[0];
+            }
+            int[] indices = new int[quantities.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                int index = keys.indexOf(entry.getKey());
+                if (index < 0) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown " + kind + " " + entry.getKey());
+                }
+                if (entry.getValue() == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Quantity for " + kind + " " + entry.getKey() + " cannot be null");
+                }
+                indices[i++] = index;
+            }
+            return indices;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.casepackoptimizer.service;
+
+import com.casepackoptimizer.dto.CasepackBatchResult;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Optimizes newline-delimited JSON requests one at a time, writing each result line as soon as
+ * it is ready. Only the request being processed is held in memory, and a slow reader blocks the
+ * writes, which in turn stops further requests from being read. Each request is admitted on its
+ * own through {@link CasepackAdmissionService}, so a stream of large requests shares the same
+ * budget as the other optimize endpoints.
+ */
+@Service
+@Slf4j
+public class CasepackStreamingService {
+
+    private final CasepackBatchService casepackBatchService;
+    private final CasepackAdmissionService casepackAdmissionService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader requestReader;
+    private final ObjectWriter lineWriter;
+
+    public CasepackStreamingService(CasepackBatchService casepackBatchService,
+                                    CasepackAdmissionService casepackAdmissionService,
+                                    ObjectMapper objectMapper) {
+        this.casepackBatchService = casepackBatchService;
+        this.casepackAdmissionService = casepackAdmissionService;
+        this.objectMapper = objectMapper;
+        this.requestReader = objectMapper.readerFor(CasepackOptimizerRequest.class);
+        this.lineWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Writes one line per input request: the response on success, otherwise
+     * {@code {"index":n,"error":"..."}}. A request rejected by admission control gets an error
+     * line and the stream goes on. Malformed JSON ends the stream after an error line.
+     */
+    public void optimizeStream(InputStream input, OutputStream output) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            int index = 0;
+            while (true) {
+                CasepackOptimizerRequest request;
+                try {
+                    JsonToken token = parser.nextToken();
+                    if (token == null) {
+                        break;
+                    }
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new IOException("Expected a JSON object at line " + parser.currentLocation().getLineNr());
+                    }
+                    request = requestReader.readValue(parser);
+                } catch (IOException e) {
+                    log.debug("Stopping stream at request {}", index, e);
+                    writeLine(generator, CasepackBatchResult.builder().index(index).error(e.getMessage()).build());
+                    return;
+                }
+
+                CasepackBatchResult result = admit(index, request);
+                writeLine(generator, result.getResponse() != null ? result.getResponse() : result);
+                index++;
+            }
+        }
+    }
+
+    private CasepackBatchResult admit(int index, CasepackOptimizerRequest request) {
+        try {
+            return casepackAdmissionService.admit(CasepackAdmissionService.estimateCost(request),
+                    () -> casepackBatchService.optimizeOne(index, request));
+        } catch (CasepackAdmissionService.AdmissionRejectedException e) {
+            return CasepackBatchResult.builder().index(index).error(e.getReason()).build();
+        }
+    }
+
+    private void writeLine(JsonGenerator generator, Object value) throws IOException {
+        lineWriter.writeValue(generator, value);
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+}
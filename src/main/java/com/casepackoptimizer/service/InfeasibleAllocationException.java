@@ -0,0 +1,16 @@
+package com.casepackoptimizer.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The request is well formed but its store bounds cannot all be met with the available supply, or
+ * its lanes cannot carry the casepacks allocated to the stores.
+ */
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class InfeasibleAllocationException extends IllegalArgumentException {
+
+    public InfeasibleAllocationException(String message) {
+        super(message);
+    }
+}
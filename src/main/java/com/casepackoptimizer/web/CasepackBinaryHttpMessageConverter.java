@@ -0,0 +1,78 @@
+package com.casepackoptimizer.web;
+
+import com.casepackoptimizer.dto.CasepackBatchRequest;
+import com.casepackoptimizer.dto.CasepackBatchResponse;
+import com.casepackoptimizer.dto.CasepackBinaryCodec;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import com.casepackoptimizer.metrics.CasepackMetrics;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes the optimize and batch DTOs as {@link CasepackBinaryCodec#MEDIA_TYPE}.
+ */
+public class CasepackBinaryHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(CasepackBinaryCodec.MEDIA_TYPE);
+
+    private final CasepackMetrics metrics;
+
+    public CasepackBinaryHttpMessageConverter(CasepackMetrics metrics) {
+        super(MEDIA_TYPE);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == CasepackOptimizerRequest.class
+                || clazz == CasepackOptimizerResponse.class
+                || clazz == CasepackBatchRequest.class
+                || clazz == CasepackBatchResponse.class;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        long start = metrics.startPhase();
+        try {
+            return decode(clazz, inputMessage);
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Invalid casepack binary message: " + e.getMessage(), e, inputMessage);
+        } finally {
+            metrics.recordPhase(CasepackMetrics.Phase.PARSE, start);
+        }
+    }
+
+    private Object decode(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        if (clazz == CasepackOptimizerRequest.class) {
+            return CasepackBinaryCodec.readRequest(inputMessage.getBody());
+        }
+        if (clazz == CasepackBatchRequest.class) {
+            return CasepackBinaryCodec.readBatchRequest(inputMessage.getBody());
+        }
+        if (clazz == CasepackOptimizerResponse.class) {
+            return CasepackBinaryCodec.readResponse(inputMessage.getBody());
+        }
+        return CasepackBinaryCodec.readBatchResponse(inputMessage.getBody());
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        long start = metrics.startPhase();
+        if (value instanceof CasepackOptimizerResponse response) {
+            CasepackBinaryCodec.writeResponse(response, outputMessage.getBody());
+        } else if (value instanceof CasepackBatchResponse batch) {
+            CasepackBinaryCodec.writeBatchResponse(batch, outputMessage.getBody());
+        } else if (value instanceof CasepackOptimizerRequest request) {
+            CasepackBinaryCodec.writeRequest(request, outputMessage.getBody());
+        } else {
+            CasepackBinaryCodec.writeBatchRequest((CasepackBatchRequest) value, outputMessage.getBody());
+        }
+        metrics.recordPhase(CasepackMetrics.Phase.SERIALIZATION, start);
+    }
+}
@@ -0,0 +1,45 @@
+package com.casepackoptimizer.web;
+
+import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import com.casepackoptimizer.metrics.RequestProfile;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Writes the profile of the current request just before the body, which is the last point
+ * headers can still be set. Serialization itself therefore never appears in the breakdown.
+ */
+@RestControllerAdvice
+public class RequestProfilingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType contentType,
+                                  Class<? extends HttpMessageConverter<?>> converterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestProfile profile = RequestProfile.current();
+        if (profile == null) {
+            return body;
+        }
+
+        String timing = profile.serverTiming();
+        if (!timing.isEmpty()) {
+            response.getHeaders().add("Server-Timing", timing);
+        }
+        // Copy rather than set, the response may be shared through the result cache
+        if (profile.isIncludeInBody() && body instanceof CasepackOptimizerResponse optimized
+                && MediaType.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return optimized.toBuilder().profile(profile.toDto()).build();
+        }
+        return body;
+    }
+}
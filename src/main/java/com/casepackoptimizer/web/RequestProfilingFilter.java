@@ -0,0 +1,39 @@
+package com.casepackoptimizer.web;
+
+import com.casepackoptimizer.metrics.RequestProfile;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds a {@link RequestProfile} to requests sent with {@value #HEADER}. {@code true} adds a
+ * {@code Server-Timing} header; {@code json} also embeds the breakdown in JSON optimize responses.
+ */
+@Component
+public class RequestProfilingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Casepack-Profile";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String mode = request.getHeader(HEADER);
+        boolean json = "json".equalsIgnoreCase(mode);
+        if (!json && !"true".equalsIgnoreCase(mode)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RequestProfile.start(json);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestProfile.clear();
+        }
+    }
+}
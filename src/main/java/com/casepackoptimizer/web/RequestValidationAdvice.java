@@ -0,0 +1,26 @@
+package com.casepackoptimizer.web;
+
+import com.casepackoptimizer.service.InfeasibleAllocationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps request validation errors to client errors in one place. The model and services reject
+ * malformed requests with {@link IllegalArgumentException}, which becomes 400 Bad Request;
+ * well-formed requests that cannot be met keep 422 Unprocessable Entity.
+ */
+@RestControllerAdvice
+public class RequestValidationAdvice {
+
+    @ExceptionHandler(InfeasibleAllocationException.class)
+    public ProblemDetail infeasible(InfeasibleAllocationException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ProblemDetail invalid(IllegalArgumentException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+}
@@ -1,8 +1,16 @@
 package com.casepackoptimizer;
 
+import com.casepackoptimizer.dto.CasepackBatchRequest;
+import com.casepackoptimizer.dto.CasepackBinaryCodec;
+import com.casepackoptimizer.dto.CasepackBatchResponse;
+import com.casepackoptimizer.dto.CasepackBatchResult;
+import com.casepackoptimizer.dto.CasepackJointRequest;
 import com.casepackoptimizer.dto.CasepackOptimizerRequest;
 import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import com.casepackoptimizer.dto.CasepackSessionDelta;
+import com.casepackoptimizer.dto.CasepackSessionResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -14,10 +22,18 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.*;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -298,6 +314,474 @@ class CasepackOptimizerIntegrationTest {
         assertEquals(totalAllocated, response.getWarehouses().get("onlyWarehouse"));
     }
 
+    @Test
+    void testBatchReturnsResultsInInputOrder() throws Exception {
+        CasepackOptimizerRequest invalid = createRequest(
+                Arrays.asList(1),
+                Map.of("store1", 10),
+                Map.of("warehouse1", 5)
+        );
+        invalid.setCasePacks(Collections.emptyList());
+
+        CasepackBatchRequest batch = new CasepackBatchRequest(Arrays.asList(
+                createRequest(Arrays.asList(5), Map.of("store1", 25, "store2", 50, "store3", 75),
+                        Map.of("warehouse1", 100, "warehouse2", 50)),
+                invalid,
+                createRequest(Arrays.asList(10), Map.of("store1", 100, "store2", 200, "store3", 300),
+                        Map.of("warehouse1", 30, "warehouse2", 30))
+        ));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/casepack/optimize/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        CasepackBatchResponse response = objectMapper.readValue(
+                result.getResponse().getContentAsString(),
+                CasepackBatchResponse.class
+        );
+
+        assertEquals(3, response.getResults().size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, response.getResults().get(i).getIndex());
+        }
+
+        assertEquals(120, response.getResults().get(0).getResponse().getRemainingSupply());
+        assertNull(response.getResults().get(1).getResponse());
+        assertEquals("Casepacks cannot be null or empty", response.getResults().get(1).getError());
+        assertEquals(30, response.getResults().get(2).getResponse().getStores().get("store3"));
+    }
+
+    @Test
+    void testBatchRejectsOversizedBatch() throws Exception {
+        List<CasepackOptimizerRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 1001; i++) {
+            requests.add(createRequest(Arrays.asList(1), Map.of("store1", 1), Map.of("warehouse1", 1)));
+        }
+
+        mockMvc.perform(post("/api/v1/casepack/optimize/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CasepackBatchRequest(requests))))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    void testStreamWritesOneLinePerRequest() throws Exception {
+        String body = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT).writeValueAsString(
+                createRequest(Arrays.asList(5), Map.of("store1", 25, "store2", 50, "store3", 75),
+                        Map.of("warehouse1", 100, "warehouse2", 50)))
+                + "\n{\"casePacks\": [], \"needPerStore\": {}, \"warehouseAvailableQty\": {}}\n"
+                + objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT).writeValueAsString(
+                createRequest(Arrays.asList(10), Map.of("store1", 100), Map.of("warehouse1", 30)))
+                + "\n";
+
+        MvcResult result = mockMvc.perform(post("/api/v1/casepack/optimize/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(3, lines.length);
+
+        CasepackOptimizerResponse first = objectMapper.readValue(lines[0], CasepackOptimizerResponse.class);
+        assertEquals(120, first.getRemainingSupply());
+
+        CasepackBatchResult second = objectMapper.readValue(lines[1], CasepackBatchResult.class);
+        assertEquals(1, second.getIndex());
+        assertEquals("Casepacks cannot be null or empty", second.getError());
+
+        CasepackOptimizerResponse third = objectMapper.readValue(lines[2], CasepackOptimizerResponse.class);
+        assertEquals(10, third.getStores().get("store1"));
+    }
+
+    @Test
+    void testBinaryContentNegotiation() throws Exception {
+        CasepackOptimizerRequest request = createRequest(
+                Arrays.asList(5),
+                Map.of("store1", 25, "store2", 50, "store3", 75),
+                Map.of("warehouse1", 100, "warehouse2", 50)
+        );
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CasepackBinaryCodec.writeRequest(request, body);
+
+        MvcResult result = mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .contentType(CasepackBinaryCodec.MEDIA_TYPE)
+                        .accept(CasepackBinaryCodec.MEDIA_TYPE)
+                        .content(body.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CasepackBinaryCodec.MEDIA_TYPE))
+                .andReturn();
+
+        CasepackOptimizerResponse response = CasepackBinaryCodec.readResponse(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        assertEquals(5, response.getStores().get("store1"));
+        assertEquals(15, response.getStores().get("store3"));
+        assertEquals(120, response.getRemainingSupply());
+
+        // Binary in, JSON out
+        mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .contentType(CasepackBinaryCodec.MEDIA_TYPE)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(body.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stores.store2").value(10));
+    }
+
+    @Test
+    void testBinaryBatch() throws Exception {
+        CasepackBatchRequest batch = new CasepackBatchRequest(Arrays.asList(
+                createRequest(Arrays.asList(10), Map.of("store1", 100, "store2", 200), Map.of("warehouse1", 30)),
+                createRequest(Arrays.asList(10), Map.of("store1", 50, "store2", 20), Map.of("warehouse1", 30))
+        ));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CasepackBinaryCodec.writeBatchRequest(batch, body);
+
+        MvcResult result = mockMvc.perform(post("/api/v1/casepack/optimize/batch")
+                        .contentType(CasepackBinaryCodec.MEDIA_TYPE)
+                        .accept(CasepackBinaryCodec.MEDIA_TYPE)
+                        .content(body.toByteArray()))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        CasepackBatchResponse response = CasepackBinaryCodec.readBatchResponse(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        assertEquals(2, response.getResults().size());
+        assertEquals(20, response.getResults().get(0).getResponse().getStores().get("store2"));
+        assertEquals(2, response.getResults().get(1).getResponse().getStores().get("store2"));
+    }
+
+    @Test
+    void testMalformedBinaryIsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .contentType(CasepackBinaryCodec.MEDIA_TYPE)
+                        .content(new byte[]{'C', 'P', 'K', 1, 1, 5}))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testPhaseMetricsAreExposed() throws Exception {
+        CasepackOptimizerRequest request = createRequest(
+                Arrays.asList(1, 4, 10),
+                Map.of("store1", 100, "store2", 150),
+                Map.of("warehouse1", 5, "warehouse2", 5)
+        );
+        mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        for (String phase : Arrays.asList("parse", "store_allocation", "warehouse_distribution", "serialization")) {
+            mockMvc.perform(get("/actuator/metrics/casepack.optimize.phase").param("tag", "phase:" + phase))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.measurements[?(@.statistic == 'COUNT')].value").value(everyItem(greaterThan(0.0))));
+        }
+        mockMvc.perform(get("/actuator/metrics/casepack.optimize.branch").param("tag", "branch:shortage"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics/casepack.optimize.stores"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testProfilingHeaders() throws Exception {
+        // Unique quantities keep this request out of the result cache
+        CasepackOptimizerRequest request = createRequest(
+                Arrays.asList(7),
+                Map.of("store1", 71, "store2", 143),
+                Map.of("warehouse1", 97)
+        );
+        String body = objectMapper.writeValueAsString(request);
+
+        mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Server-Timing"))
+                .andExpect(jsonPath("$.profile").doesNotExist());
+
+        mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .header("X-Casepack-Profile", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createRequest(
+                                Arrays.asList(7), Map.of("store1", 72, "store2", 143), Map.of("warehouse1", 97)))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", containsString("store_allocation;dur=")))
+                .andExpect(jsonPath("$.profile").doesNotExist());
+
+        mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .header("X-Casepack-Profile", "json")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createRequest(
+                                Arrays.asList(7), Map.of("store1", 73, "store2", 143), Map.of("warehouse1", 97)))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", containsString("greedy;desc=\"iterations 32\"")))
+                .andExpect(jsonPath("$.profile.phases.parse.durationMs").exists())
+                .andExpect(jsonPath("$.profile.phases.warehouse_distribution.allocatedBytes").exists())
+                .andExpect(jsonPath("$.profile.greedyIterations").value(32));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSparseResponseMatchesFullResponse() throws Exception {
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        for (int i = 1; i <= 200; i++) {
+            stores.put("store" + i, i % 3 == 0 ? 0 : i * 7);
+        }
+        Map<String, Integer> warehouses = Map.of("warehouse1", 40, "warehouse2", 0, "warehouse3", 25);
+        String body = objectMapper.writeValueAsString(createRequest(Arrays.asList(2, 3), stores, warehouses));
+
+        MvcResult full = mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn();
+        MvcResult sparse = mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/vnd.casepack.sparse+json")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/vnd.casepack.sparse+json"))
+                .andReturn();
+        mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .param("format", "sparse")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().string(sparse.getResponse().getContentAsString()));
+
+        Map<String, Object> fullBody = objectMapper.readValue(full.getResponse().getContentAsString(), Map.class);
+        String sparseText = sparse.getResponse().getContentAsString();
+        Map<String, Object> sparseBody = objectMapper.readValue(sparseText, Map.class);
+        assertFalse(sparseText.contains("\n"));
+        assertTrue(sparseText.length() < full.getResponse().getContentAsString().length());
+        assertEquals(fullBody.get("remainingSupply"), sparseBody.get("remainingSupply"));
+        assertEquals(fullBody.get("casePacks"), sparseBody.get("casePacks"));
+        for (String field : Arrays.asList("stores", "warehouses")) {
+            Map<String, Integer> expected = new LinkedHashMap<>((Map<String, Integer>) fullBody.get(field));
+            expected.values().removeIf(value -> value == 0);
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, sparseBody.get(field));
+        }
+    }
+
+    @Test
+    void testInfeasibleStoreBoundsAreUnprocessable() throws Exception {
+        CasepackOptimizerRequest request = createRequest(
+                Arrays.asList(4),
+                Map.of("store1", 40, "store2", 40),
+                Map.of("warehouse1", 3)
+        );
+        request.setMinPacksPerStore(Map.of("store1", 2, "store2", 2));
+
+        mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void testLanesReturnSourcing() throws Exception {
+        CasepackOptimizerRequest request = createRequest(
+                Arrays.asList(1),
+                Map.of("store1", 5),
+                Map.of("warehouse1", 5)
+        );
+        request.setLanes(List.of(new CasepackOptimizerRequest.Lane("store1", "warehouse1", 3)));
+
+        mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sourcing[0].store").value("store1"))
+                .andExpect(jsonPath("$.sourcing[0].warehouse").value("warehouse1"))
+                .andExpect(jsonPath("$.sourcing[0].packs").value(5));
+    }
+
+    @Test
+    void testOverflowingLaneCostIsBadRequest() throws Exception {
+        CasepackOptimizerRequest request = createRequest(
+                Arrays.asList(1),
+                Map.of("store1", 5),
+                Map.of("warehouse1", 5)
+        );
+        request.setLanes(List.of(new CasepackOptimizerRequest.Lane("store1", "warehouse1", Long.MAX_VALUE)));
+
+        mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testMalformedLanesAndLocationsAreBadRequest() throws Exception {
+        CasepackOptimizerRequest unknownStore = createRequest(
+                Arrays.asList(1),
+                Map.of("store1", 5),
+                Map.of("warehouse1", 5)
+        );
+        unknownStore.setLanes(List.of(new CasepackOptimizerRequest.Lane("store9", "warehouse1", 1)));
+        CasepackOptimizerRequest missingLocation = createRequest(
+                Arrays.asList(1),
+                Map.of("store1", 5),
+                Map.of("warehouse1", 5)
+        );
+        missingLocation.setStoreLocations(Map.of("store1", new CasepackOptimizerRequest.Location(10, 10)));
+        missingLocation.setWarehouseLocations(Map.of());
+
+        for (CasepackOptimizerRequest request : List.of(unknownStore, missingLocation)) {
+            mockMvc.perform(post("/api/v1/casepack/optimize")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void testLocationsReturnNearestSourcing() throws Exception {
+        CasepackOptimizerRequest request = createRequest(
+                Arrays.asList(1),
+                Map.of("store1", 2, "store2", 2),
+                Map.of("warehouse1", 2, "warehouse2", 2)
+        );
+        request.setStoreLocations(Map.of(
+                "store1", new CasepackOptimizerRequest.Location(48.1, 11.6),
+                "store2", new CasepackOptimizerRequest.Location(52.4, 13.3)));
+        request.setWarehouseLocations(Map.of(
+                "warehouse1", new CasepackOptimizerRequest.Location(52.5, 13.4),
+                "warehouse2", new CasepackOptimizerRequest.Location(48.2, 11.5)));
+
+        mockMvc.perform(post("/api/v1/casepack/optimize")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sourcing.length()").value(2))
+                .andExpect(jsonPath("$.sourcing[?(@.store == 'store1')].warehouse").value("warehouse2"))
+                .andExpect(jsonPath("$.sourcing[?(@.store == 'store2')].warehouse").value("warehouse1"));
+    }
+
+    @Test
+    void testJointAllocationRespectsSharedCapacity() throws Exception {
+        CasepackJointRequest joint = new CasepackJointRequest(Arrays.asList(
+                createRequest(Arrays.asList(1), Map.of("store1", 20), Map.of("warehouse1", 20)),
+                createRequest(Arrays.asList(1), Map.of("store1", 10), Map.of("warehouse1", 20))
+        ), Map.of("warehouse1", 10));
+
+        mockMvc.perform(post("/api/v1/casepack/optimize/joint")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(joint)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.warehouseLoad.warehouse1").value(10))
+                .andExpect(jsonPath("$.results[0].response.stores.store1").value(7))
+                .andExpect(jsonPath("$.results[1].response.stores.store1").value(3));
+    }
+
+    @Test
+    void testSessionAppliesDeltas() throws Exception {
+        CasepackOptimizerRequest request = createRequest(
+                Arrays.asList(10),
+                Map.of("store1", 100, "store2", 200),
+                Map.of("warehouse1", 30)
+        );
+
+        MvcResult created = mockMvc.perform(post("/api/v1/casepack/sessions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.stores.store1").value(10))
+                .andExpect(jsonPath("$.stores.store2").value(20))
+                .andReturn();
+        String sessionId = objectMapper.readValue(created.getResponse().getContentAsString(),
+                CasepackSessionResponse.class).getSessionId();
+
+        // Only the changed store and warehouse come back
+        CasepackSessionDelta needChange = new CasepackSessionDelta(Map.of("store1", 50), null);
+        mockMvc.perform(patch("/api/v1/casepack/sessions/" + sessionId)
+                        .param("changesOnly", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(needChange)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stores.length()").value(1))
+                .andExpect(jsonPath("$.stores.store1").value(5))
+                .andExpect(jsonPath("$.warehouses.warehouse1").value(25))
+                .andExpect(jsonPath("$.remainingSupply").value(5));
+
+        CasepackSessionDelta stockChange = new CasepackSessionDelta(null, Map.of("warehouse1", 40));
+        mockMvc.perform(patch("/api/v1/casepack/sessions/" + sessionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(stockChange)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stores.store1").value(5))
+                .andExpect(jsonPath("$.stores.store2").value(20))
+                .andExpect(jsonPath("$.remainingSupply").value(15));
+
+        CasepackSessionDelta unknownStore = new CasepackSessionDelta(Map.of("store9", 5), null);
+        mockMvc.perform(patch("/api/v1/casepack/sessions/" + sessionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(unknownStore)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(delete("/api/v1/casepack/sessions/" + sessionId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/v1/casepack/sessions/" + sessionId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testSessionDeltasMatchFullOptimizeInShortage() throws Exception {
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        stores.put("store1", 130);
+        stores.put("store2", 270);
+        stores.put("store3", 55);
+        Map<String, Integer> warehouses = new LinkedHashMap<>();
+        warehouses.put("warehouse1", 12);
+        warehouses.put("warehouse2", 9);
+        CasepackOptimizerRequest request = createRequest(Arrays.asList(10), stores, warehouses);
+
+        MvcResult created = mockMvc.perform(post("/api/v1/casepack/sessions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        String sessionId = objectMapper.readValue(created.getResponse().getContentAsString(),
+                CasepackSessionResponse.class).getSessionId();
+
+        // More stock, then a need change, both while stock stays short of the total need
+        List<CasepackSessionDelta> deltas = List.of(
+                new CasepackSessionDelta(null, Map.of("warehouse2", 17)),
+                new CasepackSessionDelta(Map.of("store2", 90), null),
+                new CasepackSessionDelta(Map.of("store3", 300), Map.of("warehouse1", 4)));
+        for (CasepackSessionDelta delta : deltas) {
+            if (delta.getNeedPerStore() != null) {
+                stores.putAll(delta.getNeedPerStore());
+            }
+            if (delta.getWarehouseAvailableQty() != null) {
+                warehouses.putAll(delta.getWarehouseAvailableQty());
+            }
+            MvcResult updated = mockMvc.perform(patch("/api/v1/casepack/sessions/" + sessionId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(delta)))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            MvcResult optimized = mockMvc.perform(post("/api/v1/casepack/optimize")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(
+                                    createRequest(Arrays.asList(10), stores, warehouses))))
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            CasepackSessionResponse session = objectMapper.readValue(updated.getResponse().getContentAsString(),
+                    CasepackSessionResponse.class);
+            CasepackOptimizerResponse full = objectMapper.readValue(optimized.getResponse().getContentAsString(),
+                    CasepackOptimizerResponse.class);
+            assertEquals(full.getStores(), session.getStores());
+            assertEquals(full.getWarehouses(), session.getWarehouses());
+            assertEquals(full.getRemainingSupply(), session.getRemainingSupply());
+        }
+    }
+
     // Helper method to create request
     private CasepackOptimizerRequest createRequest(List<Integer> ratios,
                                                    Map<String, Integer> stores,
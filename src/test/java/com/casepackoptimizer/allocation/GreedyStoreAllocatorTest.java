@@ -0,0 +1,85 @@
+package com.casepackoptimizer.allocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GreedyStoreAllocatorTest {
+
+    private final GreedyStoreAllocator allocator = new GreedyStoreAllocator();
+
+    @Test
+    void testMatchesOnePackAtATimeScan() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int storeCount = random.nextInt(40) + 1;
+            int itemsPerCasepack = random.nextInt(20) + 1;
+            double[] targets = new double[storeCount];
+            for (int i = 0; i < storeCount; i++) {
+                // Mix of fractional fair shares, exact ties and zero-need stores
+                targets[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(10) * 7.5 + random.nextDouble();
+                if (i > 0 && random.nextInt(5) == 0) {
+                    targets[i] = targets[i - 1];
+                }
+            }
+            int casepacks = random.nextInt(200);
+
+            assertArrayEquals(scan(targets, casepacks, itemsPerCasepack),
+                    allocator.allocate(targets, casepacks, itemsPerCasepack),
+                    "Round " + round);
+        }
+    }
+
+    @Test
+    void testCappedStoreLeavesCandidates() {
+        // Store 0 would take four packs but stops at its cap of two; a zero cap keeps store 2 out
+        int[] packs = allocator.allocate(new double[]{40, 15, 30}, 5, 10, new int[]{2, 5, 0});
+
+        assertArrayEquals(new int[]{2, 2, 0}, packs);
+    }
+
+    @Test
+    void testTieGoesToEarlierStore() {
+        int[] packs = allocator.allocate(new double[]{10, 10, 10}, 2, 10);
+
+        assertArrayEquals(new int[]{1, 1, 0}, packs);
+    }
+
+    @Test
+    void testStopsWhenAllNeedsAreCovered() {
+        int[] packs = allocator.allocate(new double[]{25, 0, 50}, 100, 10);
+
+        assertArrayEquals(new int[]{3, 0, 5}, packs);
+    }
+
+    @Test
+    void testDoesNotModifyTargets() {
+        double[] targets = {12.5, 30};
+        allocator.allocate(targets, 10, 5);
+
+        assertArrayEquals(new double[]{12.5, 30}, targets);
+    }
+
+    // Reference implementation: rescan every store for each casepack
+    private int[] scan(double[] targets, int casepacks, int itemsPerCasepack) {
+        int[] allocations = new int[targets.length];
+        double[] remaining = targets.clone();
+        while (casepacks > 0) {
+            int best = -1;
+            for (int i = 0; i < remaining.length; i++) {
+                if (remaining[i] > 0 && (best < 0 || remaining[i] > remaining[best])) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            allocations[best]++;
+            remaining[best] -= itemsPerCasepack;
+            casepacks--;
+        }
+        return allocations;
+    }
+}
@@ -0,0 +1,71 @@
+package com.casepackoptimizer.allocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalGreedyAllocationTest {
+
+    private final GreedyStoreAllocator greedy = new GreedyStoreAllocator();
+
+    @Test
+    void testStartsFromGreedyAllocation() {
+        double[] targets = {25, 19, 6};
+        IncrementalGreedyAllocation allocation = new IncrementalGreedyAllocation(targets, 4, 10);
+
+        assertArrayEquals(greedy.allocate(targets, 4, 10), allocation.allocations());
+        assertEquals(4, allocation.allocated());
+    }
+
+    @Test
+    void testRaisedTargetTakesPacksFromWeakestStores() {
+        IncrementalGreedyAllocation allocation = new IncrementalGreedyAllocation(new double[]{25, 19, 6}, 4, 10);
+
+        allocation.updateTarget(2, 40);
+
+        assertArrayEquals(greedy.allocate(new double[]{25, 19, 40}, 4, 10), allocation.allocations());
+        assertArrayEquals(new int[]{0, 1, 2}, allocation.changedStores());
+    }
+
+    @Test
+    void testMoreCasepacksFillRemainingNeeds() {
+        IncrementalGreedyAllocation allocation = new IncrementalGreedyAllocation(new double[]{25, 19, 6}, 4, 10);
+
+        allocation.updateCasepacks(100);
+
+        assertArrayEquals(new int[]{3, 2, 1}, allocation.allocations());
+        assertEquals(6, allocation.allocated());
+    }
+
+    @Test
+    void testMatchesGreedyAfterRandomUpdates() {
+        Random random = new Random(5);
+        for (int round = 0; round < 50; round++) {
+            int storeCount = random.nextInt(80) + 1;
+            int itemsPerCasepack = random.nextInt(12) + 1;
+            double[] targets = new double[storeCount];
+            for (int i = 0; i < storeCount; i++) {
+                targets[i] = random.nextInt(5) == 0 ? 0 : random.nextInt(400) / 3.0;
+            }
+            int casepacks = random.nextInt(storeCount * 8 + 1);
+            IncrementalGreedyAllocation allocation = new IncrementalGreedyAllocation(targets, casepacks, itemsPerCasepack);
+
+            for (int update = 0; update < 40; update++) {
+                if (random.nextInt(5) == 0) {
+                    casepacks = random.nextInt(storeCount * 8 + 1);
+                    allocation.updateCasepacks(casepacks);
+                } else {
+                    int store = random.nextInt(storeCount);
+                    // Repeated values exercise the lower-index tie-break
+                    targets[store] = random.nextInt(4) == 0 ? targets[random.nextInt(storeCount)] : random.nextInt(400) / 3.0 - 10;
+                    allocation.updateTarget(store, targets[store]);
+                }
+
+                assertArrayEquals(greedy.allocate(targets, casepacks, itemsPerCasepack), allocation.allocations(),
+                        "Round " + round + ", update " + update);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.casepackoptimizer.allocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LargestRemainderStoreAllocatorTest {
+
+    private final LargestRemainderStoreAllocator allocator = new LargestRemainderStoreAllocator();
+
+    @Test
+    void testLeftoverGoesToLargestRemainders() {
+        // 2.5, 1.9, 0.6 packs -> floors 2, 1, 0 and one leftover pack for the 0.9 remainder
+        int[] packs = allocator.allocate(new double[]{25, 19, 6}, 4, 10);
+
+        assertArrayEquals(new int[]{2, 2, 0}, packs);
+    }
+
+    @Test
+    void testCapsLimitFloorsAndRounding() {
+        // Store 0 is held at 1 instead of 3.4; store 1 may round up to 2, store 2 may not
+        int[] packs = allocator.allocate(new double[]{34, 17, 19}, 5, 10, new int[]{1, 2, 1});
+
+        assertArrayEquals(new int[]{1, 2, 1}, packs);
+    }
+
+    @Test
+    void testTiesGoToEarlierStore() {
+        int[] packs = allocator.allocate(new double[]{15, 15, 15}, 4, 10);
+
+        assertArrayEquals(new int[]{2, 1, 1}, packs);
+    }
+
+    @Test
+    void testSurplusRoundsEveryStoreUp() {
+        int[] packs = allocator.allocate(new double[]{25, 0, 50, -5}, 100, 10);
+
+        assertArrayEquals(new int[]{3, 0, 5, 0}, packs);
+    }
+
+    @Test
+    void testMatchesSortedApportionment() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            int storeCount = random.nextInt(60) + 1;
+            int itemsPerCasepack = random.nextInt(12) + 1;
+            double[] targets = new double[storeCount];
+            double total = 0;
+            for (int i = 0; i < storeCount; i++) {
+                targets[i] = random.nextInt(5) == 0 ? 0 : random.nextInt(200) / 4.0;
+                total += targets[i];
+            }
+            int casepacks = (int) (total / itemsPerCasepack);
+
+            assertArrayEquals(sortedApportionment(targets, casepacks, itemsPerCasepack),
+                    allocator.allocate(targets, casepacks, itemsPerCasepack),
+                    "Round " + round);
+        }
+    }
+
+    @Test
+    void testMillionPacksAcrossManyStores() {
+        int storeCount = 50_000;
+        double[] targets = new double[storeCount];
+        Random random = new Random(3);
+        for (int i = 0; i < storeCount; i++) {
+            targets[i] = random.nextDouble() * 240;
+        }
+        int casepacks = (int) (Arrays.stream(targets).sum() / 12);
+
+        int[] packs = allocator.allocate(targets, casepacks, 12);
+
+        assertEquals(casepacks, Arrays.stream(packs).sum());
+    }
+
+    // Reference implementation: floors plus a full sort of the remainders
+    private int[] sortedApportionment(double[] targets, int casepacks, int itemsPerCasepack) {
+        int[] allocations = new int[targets.length];
+        Integer[] order = new Integer[targets.length];
+        double[] remainders = new double[targets.length];
+        int left = casepacks;
+        for (int i = 0; i < targets.length; i++) {
+            order[i] = i;
+            if (targets[i] > 0) {
+                double quotient = targets[i] / itemsPerCasepack;
+                allocations[i] = (int) Math.floor(quotient);
+                remainders[i] = quotient - Math.floor(quotient);
+                left -= allocations[i];
+            }
+        }
+        Arrays.sort(order, (a, b) -> remainders[a] != remainders[b]
+                ? Double.compare(remainders[b], remainders[a])
+                : Integer.compare(a, b));
+        for (int i = 0; i < order.length && left > 0; i++) {
+            if (remainders[order[i]] > 0) {
+                allocations[order[i]]++;
+                left--;
+            }
+        }
+        return allocations;
+    }
+}
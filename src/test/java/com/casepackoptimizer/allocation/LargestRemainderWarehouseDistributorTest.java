@@ -0,0 +1,58 @@
+package com.casepackoptimizer.allocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LargestRemainderWarehouseDistributorTest {
+
+    private final LargestRemainderWarehouseDistributor distributor = new LargestRemainderWarehouseDistributor();
+
+    @Test
+    void testLeftoverGoesToLargestRemainders() {
+        // Exact shares 3.5, 2.8, 0.7 -> floors 3, 2, 0 and two leftover packs for the 0.8 and 0.7 remainders
+        int[] packs = distributor.distribute(new String[]{"a", "b", "c"}, new int[]{50, 40, 10}, 7);
+
+        assertArrayEquals(new int[]{3, 3, 1}, packs);
+    }
+
+    @Test
+    void testTiesGoToEarlierWarehouse() {
+        int[] packs = distributor.distribute(new String[]{"c", "b", "a"}, new int[]{10, 10, 10}, 2);
+
+        assertArrayEquals(new int[]{1, 1, 0}, packs);
+    }
+
+    @Test
+    void testUsesAllStockWhenEverythingIsAllocated() {
+        int[] available = {4, 9, 0};
+
+        assertArrayEquals(available, distributor.distribute(new String[]{"a", "b", "c"}, available, 13));
+        assertArrayEquals(new int[3], distributor.distribute(new String[]{"a", "b", "c"}, available, 0));
+    }
+
+    @Test
+    void testSumsExactlyWithinStock() {
+        Random random = new Random(29);
+        for (int round = 0; round < 500; round++) {
+            int warehouseCount = random.nextInt(300) + 1;
+            String[] ids = new String[warehouseCount];
+            int[] available = new int[warehouseCount];
+            for (int w = 0; w < warehouseCount; w++) {
+                ids[w] = "wh" + w;
+                available[w] = random.nextInt(4) == 0 ? 0 : random.nextInt(100_000);
+            }
+            int total = random.nextInt(Arrays.stream(available).sum() + 1);
+
+            int[] packs = distributor.distribute(ids, available, total);
+
+            assertEquals(total, Arrays.stream(packs).sum(), "Round " + round);
+            for (int w = 0; w < warehouseCount; w++) {
+                assertTrue(packs[w] >= 0 && packs[w] <= available[w], "Round " + round);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.casepackoptimizer.allocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinCostSourcingFlowTest {
+
+    @Test
+    void testReroutesAroundCheapestLane() {
+        // Filling the 1-cost lane first would force the 100-cost lane; the optimum crosses over
+        int[] lanePacks = MinCostSourcingFlow.solve(new int[]{2, 2}, new int[]{2, 2},
+                new int[]{0, 1, 0, 1}, new int[]{0, 0, 1, 1}, new long[]{1, 2, 2, 100});
+
+        assertArrayEquals(new int[]{0, 2, 2, 0}, lanePacks);
+    }
+
+    @Test
+    void testShortfallWhenLanesCannotCarryAllocation() {
+        // Store 1 has no lane, so its packs stay unsourced
+        int[] lanePacks = MinCostSourcingFlow.solve(new int[]{3, 2}, new int[]{5},
+                new int[]{0}, new int[]{0}, new long[]{7});
+
+        assertArrayEquals(new int[]{3}, lanePacks);
+    }
+
+    @Test
+    void testRandomFlowsAreBalancedAndOptimal() {
+        Random random = new Random(31);
+        for (int round = 0; round < 200; round++) {
+            int storeCount = random.nextInt(40) + 1;
+            int warehouseCount = random.nextInt(6) + 1;
+            int[] storePacks = new int[storeCount];
+            for (int s = 0; s < storeCount; s++) {
+                storePacks[s] = random.nextInt(8);
+            }
+            int total = Arrays.stream(storePacks).sum();
+            // Spread the same total over the warehouses
+            int[] warehousePacks = new int[warehouseCount];
+            for (int k = 0; k < total; k++) {
+                warehousePacks[random.nextInt(warehouseCount)]++;
+            }
+            // Every store reaches every warehouse, so the whole total is always sourced
+            int laneCount = storeCount * warehouseCount;
+            int[] laneStores = new int[laneCount];
+            int[] laneWarehouses = new int[laneCount];
+            long[] laneCosts = new long[laneCount];
+            for (int l = 0; l < laneCount; l++) {
+                laneStores[l] = l / warehouseCount;
+                laneWarehouses[l] = l % warehouseCount;
+                laneCosts[l] = random.nextInt(50);
+            }
+
+            int[] lanePacks = MinCostSourcingFlow.solve(storePacks, warehousePacks, laneStores, laneWarehouses, laneCosts);
+
+            int[] received = new int[storeCount];
+            int[] shipped = new int[warehouseCount];
+            for (int l = 0; l < laneCount; l++) {
+                assertTrue(lanePacks[l] >= 0);
+                received[laneStores[l]] += lanePacks[l];
+                shipped[laneWarehouses[l]] += lanePacks[l];
+            }
+            assertArrayEquals(storePacks, received);
+            assertArrayEquals(warehousePacks, shipped);
+            assertFalse(hasNegativeCycle(warehouseCount, storeCount, laneStores, laneWarehouses, laneCosts, lanePacks),
+                    "round " + round);
+        }
+    }
+
+    // A flow of fixed value has minimum cost exactly when its residual graph has no negative cycle
+    private static boolean hasNegativeCycle(int warehouseCount, int storeCount, int[] laneStores,
+                                            int[] laneWarehouses, long[] laneCosts, int[] lanePacks) {
+        int nodeCount = warehouseCount + storeCount;
+        long[] distance = new long[nodeCount];
+        for (int pass = 0; pass <= nodeCount; pass++) {
+            boolean relaxed = false;
+            for (int l = 0; l < laneStores.length; l++) {
+                int w = laneWarehouses[l];
+                int s = warehouseCount + laneStores[l];
+                // Forward residual capacity is unbounded in effect; the reverse exists once packs flow
+                if (distance[w] + laneCosts[l] < distance[s]) {
+                    distance[s] = distance[w] + laneCosts[l];
+                    relaxed = true;
+                }
+                if (lanePacks[l] > 0 && distance[s] - laneCosts[l] < distance[w]) {
+                    distance[w] = distance[s] - laneCosts[l];
+                    relaxed = true;
+                }
+            }
+            if (!relaxed) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,87 @@
+package com.casepackoptimizer.allocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MixedCasepackSolverTest {
+
+    @Test
+    void testIdealMixHitsExactTarget() {
+        MixedCasepackSolver solver = new MixedCasepackSolver(new int[]{12, 6}, 100);
+
+        assertArrayEquals(new int[]{2, 1}, solver.idealMix(30));
+        assertArrayEquals(new int[]{0, 0}, solver.idealMix(0));
+        assertArrayEquals(new int[]{0, 0}, solver.idealMix(2.9));
+        assertArrayEquals(new int[]{0, 1}, solver.idealMix(3.1));
+    }
+
+    @Test
+    void testIdealMixDeviationMatchesBruteForce() {
+        Random random = new Random(5);
+        for (int round = 0; round < 50; round++) {
+            int[] units = {random.nextInt(15) + 2, random.nextInt(15) + 2, random.nextInt(30) + 2};
+            double maxTarget = 5000;
+            MixedCasepackSolver solver = new MixedCasepackSolver(units, maxTarget);
+
+            for (int i = 0; i < 20; i++) {
+                double target = random.nextDouble() * maxTarget;
+                int[] mix = solver.idealMix(target);
+                int items = mix[0] * units[0] + mix[1] * units[1] + mix[2] * units[2];
+
+                assertEquals(bestDeviation(units, target), Math.abs(items - target), 1e-9,
+                        "Units " + units[0] + "/" + units[1] + "/" + units[2] + " target " + target);
+            }
+        }
+    }
+
+    @Test
+    void testSameTargetSharesMemoisedMix() {
+        MixedCasepackSolver solver = new MixedCasepackSolver(new int[]{12, 6}, 100);
+
+        assertSame(solver.idealMix(48), solver.idealMix(48));
+    }
+
+    @Test
+    void testAllocateRespectsTypeAvailability() {
+        MixedCasepackSolver solver = new MixedCasepackSolver(new int[]{12, 6}, 60);
+
+        // Ideal mixes are 5x12 and 2x12+1x6, but only three 12-packs exist
+        int[] mixes = solver.allocate(new double[]{60, 30}, new int[]{3, 20}, 100);
+
+        assertArrayEquals(new int[]{3, 4, 0, 5}, mixes);
+    }
+
+    @Test
+    void testAllocateRespectsTotalPackLimit() {
+        MixedCasepackSolver solver = new MixedCasepackSolver(new int[]{12, 6}, 60);
+
+        int[] mixes = solver.allocate(new double[]{60, 30}, new int[]{10, 10}, 6);
+
+        int total = 0;
+        for (int packs : mixes) {
+            total += packs;
+        }
+        assertEquals(6, total);
+        assertArrayEquals(new int[]{5, 0}, new int[]{mixes[0], mixes[1]});
+    }
+
+    private double bestDeviation(int[] units, double target) {
+        double best = Double.MAX_VALUE;
+        int limit = (int) target + units[2];
+        for (int a = 0; a * units[2] <= limit; a++) {
+            for (int b = 0; a * units[2] + b * units[1] <= limit; b++) {
+                int rest = a * units[2] + b * units[1];
+                double below = rest + Math.floor((target - rest) / units[0]) * units[0];
+                if (below >= rest) {
+                    best = Math.min(best, Math.abs(target - below));
+                }
+                best = Math.min(best, Math.abs(target - Math.max(rest, below + units[0])));
+                best = Math.min(best, Math.abs(target - rest));
+            }
+        }
+        return best;
+    }
+}
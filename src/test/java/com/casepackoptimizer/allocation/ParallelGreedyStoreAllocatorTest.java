@@ -0,0 +1,72 @@
+package com.casepackoptimizer.allocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelGreedyStoreAllocatorTest {
+
+    private final GreedyStoreAllocator sequential = new GreedyStoreAllocator();
+    private final ParallelGreedyStoreAllocator parallel = new ParallelGreedyStoreAllocator();
+
+    @Test
+    void testTiesGoToEarlierStore() {
+        int[] packs = parallel.allocate(new double[]{15, 15, 15}, 4, 10);
+
+        assertArrayEquals(sequential.allocate(new double[]{15, 15, 15}, 4, 10), packs);
+    }
+
+    @Test
+    void testPriorityCountIsExact() {
+        // 0.1 is not representable, yet 10.1 - k is exact for every positive result
+        assertEquals(11, ParallelGreedyStoreAllocator.priorityCount(10.1, 0, 1));
+        assertEquals(10, ParallelGreedyStoreAllocator.priorityCount(10.1, 0.1, 1));
+        assertEquals(0, ParallelGreedyStoreAllocator.priorityCount(-5, 0, 3));
+        assertEquals(4, ParallelGreedyStoreAllocator.priorityCount(12, 0, 3));
+    }
+
+    @Test
+    void testMatchesSequentialAllocator() {
+        Random random = new Random(17);
+        for (int round = 0; round < 200; round++) {
+            int storeCount = random.nextInt(300) + 1;
+            int itemsPerCasepack = random.nextInt(12) + 1;
+            double[] targets = new double[storeCount];
+            double total = 0;
+            for (int i = 0; i < storeCount; i++) {
+                // Shortage-style fractional targets, with repeats to create ties
+                targets[i] = random.nextInt(6) == 0 ? targets[random.nextInt(i + 1)] : random.nextInt(500) * 0.37 - 5;
+                total += Math.max(targets[i], 0);
+            }
+            int casepacks = random.nextInt((int) (total / itemsPerCasepack) * 2 + 2);
+
+            assertArrayEquals(sequential.allocate(targets, casepacks, itemsPerCasepack),
+                    parallel.allocate(targets, casepacks, itemsPerCasepack),
+                    "Round " + round);
+        }
+    }
+
+    @Test
+    void testMatchesSequentialAllocatorWithCaps() {
+        Random random = new Random(29);
+        for (int round = 0; round < 200; round++) {
+            int storeCount = random.nextInt(300) + 1;
+            int itemsPerCasepack = random.nextInt(12) + 1;
+            double[] targets = new double[storeCount];
+            int[] caps = new int[storeCount];
+            double total = 0;
+            for (int i = 0; i < storeCount; i++) {
+                targets[i] = random.nextInt(6) == 0 ? targets[random.nextInt(i + 1)] : random.nextInt(500) * 0.37 - 5;
+                caps[i] = random.nextInt(20) - 1;
+                total += Math.max(targets[i], 0);
+            }
+            int casepacks = random.nextInt((int) (total / itemsPerCasepack) * 2 + 2);
+
+            assertArrayEquals(sequential.allocate(targets, casepacks, itemsPerCasepack, caps),
+                    parallel.allocate(targets, casepacks, itemsPerCasepack, caps),
+                    "Round " + round);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.casepackoptimizer.allocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelLargestRemainderStoreAllocatorTest {
+
+    private final LargestRemainderStoreAllocator sequential = new LargestRemainderStoreAllocator();
+    private final ParallelLargestRemainderStoreAllocator parallel = new ParallelLargestRemainderStoreAllocator();
+
+    @Test
+    void testMatchesSequentialAcrossChunks() {
+        Random random = new Random(23);
+        for (int round = 0; round < 10; round++) {
+            // Several chunks, so survivors of different chunks compete for the leftover packs
+            int storeCount = 40_000 + random.nextInt(40_000);
+            int itemsPerCasepack = random.nextInt(12) + 1;
+            double[] targets = new double[storeCount];
+            double total = 0;
+            for (int i = 0; i < storeCount; i++) {
+                targets[i] = random.nextInt(5) == 0 ? 0 : random.nextInt(200) / 4.0;
+                total += targets[i];
+            }
+            int casepacks = (int) (total / itemsPerCasepack) + random.nextInt(storeCount / 4);
+
+            assertArrayEquals(sequential.allocate(targets, casepacks, itemsPerCasepack),
+                    parallel.allocate(targets, casepacks, itemsPerCasepack),
+                    "Round " + round);
+        }
+    }
+
+    @Test
+    void testSurplusAndInconsistentTargets() {
+        double[] targets = {25, 0, 50, -5};
+
+        assertArrayEquals(sequential.allocate(targets, 100, 10), parallel.allocate(targets, 100, 10));
+        assertArrayEquals(sequential.allocate(targets, 3, 10), parallel.allocate(targets, 3, 10));
+    }
+
+    @Test
+    void testMatchesSequentialWithCaps() {
+        Random random = new Random(31);
+        int storeCount = 50_000;
+        double[] targets = new double[storeCount];
+        int[] caps = new int[storeCount];
+        double total = 0;
+        for (int i = 0; i < storeCount; i++) {
+            targets[i] = random.nextInt(5) == 0 ? 0 : random.nextInt(200) / 4.0;
+            caps[i] = random.nextInt(12);
+            total += targets[i];
+        }
+
+        for (int casepacks : new int[]{(int) (total / 8), (int) (total / 4), (int) total}) {
+            assertArrayEquals(sequential.allocate(targets, casepacks, 4, caps),
+                    parallel.allocate(targets, casepacks, 4, caps),
+                    "Casepacks " + casepacks);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.casepackoptimizer.allocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionApportionmentTest {
+
+    @Test
+    void testSharesFollowTargets() {
+        int[] shares = RegionApportionment.apportion(new double[]{60, 30, 10}, new long[]{100, 100, 100}, 10);
+
+        assertArrayEquals(new int[]{6, 3, 1}, shares);
+    }
+
+    @Test
+    void testLeftoverGoesToLargestRemainder() {
+        // Quotas 3.5, 3.5 and 3.0 with ten packs: one leftover, the tie goes to the first region
+        int[] shares = RegionApportionment.apportion(new double[]{35, 35, 30}, new long[]{9, 9, 9}, 10);
+
+        assertArrayEquals(new int[]{4, 3, 3}, shares);
+    }
+
+    @Test
+    void testCappedRegionPassesShareOn() {
+        // Region 0 can take only two packs, its surplus is shared by the others
+        int[] shares = RegionApportionment.apportion(new double[]{50, 25, 25}, new long[]{2, 10, 10}, 10);
+
+        assertArrayEquals(new int[]{2, 4, 4}, shares);
+    }
+
+    @Test
+    void testTotalIsBoundedByCapacity() {
+        assertArrayEquals(new int[]{3, 0, 5},
+                RegionApportionment.apportion(new double[]{7, 0, 9}, new long[]{3, 0, 5}, 100));
+
+        int[] shares = RegionApportionment.apportion(new double[]{13.7, 2.2, 40.1, 0.4}, new long[]{3, 1, 9, 1}, 11);
+        assertEquals(11, IntStream.of(shares).sum());
+        assertTrue(shares[3] <= 1 && shares[1] <= 1);
+    }
+}
@@ -0,0 +1,69 @@
+package com.casepackoptimizer.allocation;
+
+import com.casepackoptimizer.model.SourcingLocations;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarehouseKdTreeTest {
+
+    @Test
+    void testSkipsWarehousesWithoutStock() {
+        double[] points = new double[9];
+        SourcingLocations.toPoint(0, 0, points, 0);
+        SourcingLocations.toPoint(0, 10, points, 1);
+        SourcingLocations.toPoint(0, 90, points, 2);
+        WarehouseKdTree.Stock stock = WarehouseKdTree.build(points).stock(new int[]{0, 2, 5});
+
+        double[] store = new double[3];
+        SourcingLocations.toPoint(0, 1, store, 0);
+        assertEquals(1, stock.nearest(store[0], store[1], store[2]));
+        assertEquals(2, stock.take(1, 3));
+        assertEquals(2, stock.nearest(store[0], store[1], store[2]));
+        assertEquals(5, stock.take(2, 5));
+        assertEquals(-1, stock.nearest(store[0], store[1], store[2]));
+    }
+
+    @Test
+    void testRandomQueriesMatchLinearScan() {
+        Random random = new Random(17);
+        for (int round = 0; round < 50; round++) {
+            int count = random.nextInt(300) + 1;
+            double[] points = new double[3 * count];
+            int[] stock = new int[count];
+            for (int w = 0; w < count; w++) {
+                // Coarse coordinates so that ties and duplicate sites occur
+                SourcingLocations.toPoint(random.nextInt(19) * 10 - 90, random.nextInt(37) * 10 - 180, points, w);
+                stock[w] = random.nextInt(4);
+            }
+            WarehouseKdTree.Stock tree = WarehouseKdTree.build(points).stock(stock);
+
+            double[] store = new double[3];
+            for (int query = 0; query < 200; query++) {
+                SourcingLocations.toPoint(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180, store, 0);
+                int expected = -1;
+                double best = Double.POSITIVE_INFINITY;
+                for (int w = 0; w < count; w++) {
+                    double dx = points[3 * w] - store[0];
+                    double dy = points[3 * w + 1] - store[1];
+                    double dz = points[3 * w + 2] - store[2];
+                    double distance = dx * dx + dy * dy + dz * dz;
+                    if (stock[w] > 0 && distance < best) {
+                        best = distance;
+                        expected = w;
+                    }
+                }
+
+                int nearest = tree.nearest(store[0], store[1], store[2]);
+                assertEquals(expected, nearest);
+                if (nearest >= 0) {
+                    int taken = tree.take(nearest, 1);
+                    assertEquals(1, taken);
+                    stock[nearest]--;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.casepackoptimizer.bulk;
+
+import com.casepackoptimizer.config.CasepackOptimizerProperties;
+import com.casepackoptimizer.service.CasepackOptimizerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkAllocationRunnerTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testAllocatesEverySkuFromFiles() throws Exception {
+        BulkAllocationRunner runner = runner(
+                "sku,store,need\nA,s1,100\nB,s1,50\r\nA,s2,200\n\nB,s2,20\nC,s1,5\n",
+                "sku,warehouse,qty\nA,w1,30\nB,w1,30\nC,w1,4\n",
+                "sku,packs,ratios\nA,1,4;6\nB,1,10\n");
+
+        runner.run();
+
+        List<String> lines = Files.readAllLines(directory.resolve("out.csv"));
+        assertEquals(List.of(
+                "sku,location_type,location,casepacks,mix",
+                "A,store,s1,10,",
+                "A,store,s2,20,",
+                "A,warehouse,w1,30,",
+                "A,remaining,,0,",
+                "B,store,s1,5,",
+                "B,store,s2,2,",
+                "B,warehouse,w1,7,",
+                "B,remaining,,23,",
+                "C,error,,,No casepack defined for this SKU"), lines);
+        assertEquals(1, runner.getExitCode());
+    }
+
+    @Test
+    void testMixedCasepacksListPacksPerType() throws Exception {
+        BulkAllocationRunner runner = runner(
+                "sku,store,need\nA,s1,7\n",
+                "sku,warehouse,qty\nA,w1,10\n",
+                "sku,packs,ratios\nA,5,2\nA,5,3\n");
+
+        runner.run();
+
+        List<String> lines = Files.readAllLines(directory.resolve("out.csv"));
+        assertEquals("A,store,s1,3,2;1", lines.get(1));
+        assertEquals(0, runner.getExitCode());
+    }
+
+    @Test
+    void testRejectsMalformedRows() throws Exception {
+        BulkAllocationRunner runner = runner(
+                "sku,store,need\nA,s1\n",
+                "sku,warehouse,qty\n",
+                "sku,packs,ratios\n");
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, runner::run);
+        assertTrue(error.getMessage().contains("line 2"));
+    }
+
+    private BulkAllocationRunner runner(String needs, String stock, String casepacks) throws Exception {
+        CasepackOptimizerProperties properties = new CasepackOptimizerProperties();
+        properties.getBulk().setNeeds(Files.writeString(directory.resolve("needs.csv"), needs));
+        properties.getBulk().setStock(Files.writeString(directory.resolve("stock.csv"), stock));
+        properties.getBulk().setCasepacks(Files.writeString(directory.resolve("casepacks.csv"), casepacks));
+        properties.getBulk().setOutput(directory.resolve("out.csv"));
+        return new BulkAllocationRunner(new CasepackOptimizerService(), properties, pool);
+    }
+}
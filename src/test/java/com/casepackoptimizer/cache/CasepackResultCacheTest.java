@@ -0,0 +1,166 @@
+package com.casepackoptimizer.cache;
+
+import com.casepackoptimizer.allocation.AllocationMode;
+import com.casepackoptimizer.config.CasepackOptimizerProperties;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import com.casepackoptimizer.model.AllocationProblem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CasepackResultCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void testFingerprintSeesMapOrdering() {
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        stores.put("S1", 10);
+        stores.put("S2", 20);
+        Map<String, Integer> reversed = new LinkedHashMap<>();
+        reversed.put("S2", 20);
+        reversed.put("S1", 10);
+
+        // Allocators break ties by position, so reordered stores are a different request
+        assertEquals(fingerprint(request(stores, 6)), fingerprint(request(new LinkedHashMap<>(stores), 6)));
+        assertNotEquals(fingerprint(request(stores, 6)), fingerprint(request(reversed, 6)));
+        assertNotEquals(fingerprint(request(stores, 6)), fingerprint(request(Map.of("S1", 10, "S2", 21), 6)));
+        assertNotEquals(fingerprint(request(stores, 6)), fingerprint(request(Map.of("S1", 20, "S2", 10), 6)));
+    }
+
+    @Test
+    void testFingerprintSeesSizeRatios() {
+        // Same casepack size, different ratios: the echoed casePacks differ
+        CasepackOptimizerRequest first = request(Map.of("S1", 10), 6);
+        CasepackOptimizerRequest second = request(Map.of("S1", 10), 6);
+        second.getCasePacks().get(0).setSizeRatios(List.of(
+                new CasepackOptimizerRequest.CasePack.SizeRatio(2),
+                new CasepackOptimizerRequest.CasePack.SizeRatio(4)));
+
+        assertNotEquals(fingerprint(first), fingerprint(second));
+    }
+
+    @Test
+    void testHitReturnsSharedReadOnlyResponse() {
+        CasepackResultCache cache = cache(1 << 20, Duration.ofMinutes(1));
+        RequestFingerprint key = fingerprint(request(Map.of("S1", 10), 6));
+        AtomicInteger computed = new AtomicInteger();
+
+        CasepackOptimizerResponse first = cache.get(key, () -> response(computed, "S1"));
+        CasepackOptimizerResponse second = cache.get(key, () -> response(computed, "S1"));
+
+        assertSame(first, second);
+        assertEquals(1, computed.get());
+        assertThrows(UnsupportedOperationException.class, () -> first.getStores().put("S9", 1));
+        assertEquals(1.0, registry.get("casepack.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get("casepack.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void testHashCollisionIsAMiss() {
+        CasepackResultCache cache = cache(1 << 20, Duration.ofMinutes(1));
+        CasepackOptimizerRequest first = request(Map.of("S1", 10), 6);
+        CasepackOptimizerRequest second = request(Map.of("S1", 11), 6);
+        RequestFingerprint a = new RequestFingerprint(1, 2, AllocationProblem.from(first), new int[]{1}, AllocationMode.GREEDY);
+        RequestFingerprint b = new RequestFingerprint(1, 2, AllocationProblem.from(second), new int[]{1}, AllocationMode.GREEDY);
+        AtomicInteger computed = new AtomicInteger();
+
+        CasepackOptimizerResponse cachedA = cache.get(a, () -> response(computed, "S1"));
+        CasepackOptimizerResponse cachedB = cache.get(b, () -> response(computed, "S2"));
+
+        assertNotSame(cachedA, cachedB);
+        assertEquals(2, computed.get());
+        assertSame(cachedA, cache.get(a, () -> response(computed, "S1")));
+        assertSame(cachedB, cache.get(b, () -> response(computed, "S2")));
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedOverBudget() {
+        RequestFingerprint a = fingerprint(request(Map.of("S1", 1), 6));
+        long entryBytes = CasepackResultCache.estimateBytes(response(new AtomicInteger(), "S1")) + a.estimateBytes();
+        CasepackResultCache cache = cache(entryBytes * 2, Duration.ofMinutes(1));
+        RequestFingerprint b = fingerprint(request(Map.of("S1", 2), 6));
+        RequestFingerprint c = fingerprint(request(Map.of("S1", 3), 6));
+        AtomicInteger computed = new AtomicInteger();
+
+        cache.get(a, () -> response(computed, "S1"));
+        cache.get(b, () -> response(computed, "S1"));
+        cache.get(a, () -> response(computed, "S1"));
+        cache.get(c, () -> response(computed, "S1"));
+
+        // b was the least recently used entry
+        assertEquals(2, cache.size());
+        cache.get(a, () -> response(computed, "S1"));
+        assertEquals(3, computed.get());
+        cache.get(b, () -> response(computed, "S1"));
+        assertEquals(4, computed.get());
+        assertTrue(cache.bytes() <= entryBytes * 2);
+        assertEquals(2.0, registry.get("casepack.cache.evictions").tag("cause", "size").counter().count());
+    }
+
+    @Test
+    void testExpiredEntriesAreRecomputed() {
+        CasepackResultCache cache = cache(1 << 20, Duration.ofSeconds(5));
+        RequestFingerprint key = fingerprint(request(Map.of("S1", 10), 6));
+        AtomicInteger computed = new AtomicInteger();
+
+        cache.get(key, () -> response(computed, "S1"));
+        clock.addAndGet(Duration.ofSeconds(6).toNanos());
+        cache.get(key, () -> response(computed, "S1"));
+
+        assertEquals(2, computed.get());
+        assertEquals(1.0, registry.get("casepack.cache.evictions").tag("cause", "expired").counter().count());
+    }
+
+    @Test
+    void testFingerprintSeesRegionGrouping() {
+        Map<String, Integer> stores = Map.of("S1", 10, "S2", 20, "S3", 30);
+        CasepackOptimizerRequest split = request(stores, 6);
+        split.setRegions(Map.of("north", List.of("S1", "S2"), "south", List.of("S3")));
+        CasepackOptimizerRequest renamed = request(stores, 6);
+        renamed.setRegions(Map.of("b", List.of("S3"), "a", List.of("S2", "S1")));
+        CasepackOptimizerRequest regrouped = request(stores, 6);
+        regrouped.setRegions(Map.of("north", List.of("S1"), "south", List.of("S2", "S3")));
+
+        assertEquals(fingerprint(split), fingerprint(renamed));
+        assertNotEquals(fingerprint(split), fingerprint(regrouped));
+        assertNotEquals(fingerprint(split), fingerprint(request(stores, 6)));
+    }
+
+    private CasepackResultCache cache(long maxBytes, Duration ttl) {
+        CasepackOptimizerProperties.Cache settings = new CasepackOptimizerProperties.Cache();
+        settings.setMaxBytes(maxBytes);
+        settings.setTtl(ttl);
+        return new CasepackResultCache(settings, registry, clock::get);
+    }
+
+    private static RequestFingerprint fingerprint(CasepackOptimizerRequest request) {
+        return RequestFingerprint.of(AllocationProblem.from(request), request.getCasePacks(), AllocationMode.GREEDY);
+    }
+
+    private static CasepackOptimizerRequest request(Map<String, Integer> stores, int ratio) {
+        CasepackOptimizerRequest.CasePack casePack = new CasepackOptimizerRequest.CasePack(0,
+                List.of(new CasepackOptimizerRequest.CasePack.SizeRatio(ratio)));
+        return new CasepackOptimizerRequest(List.of(casePack), stores, Map.of("W1", 100), null, null, null, null, null, null, null);
+    }
+
+    private static CasepackOptimizerResponse response(AtomicInteger computed, String store) {
+        computed.incrementAndGet();
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        stores.put(store, 1);
+        return CasepackOptimizerResponse.builder()
+                .stores(stores)
+                .warehouses(new LinkedHashMap<>(Map.of("W1", 1)))
+                .build();
+    }
+}
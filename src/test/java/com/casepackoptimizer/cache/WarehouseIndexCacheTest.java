@@ -0,0 +1,33 @@
+package com.casepackoptimizer.cache;
+
+import com.casepackoptimizer.allocation.WarehouseKdTree;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarehouseIndexCacheTest {
+
+    @Test
+    void testReusesIndexForSameWarehouses() {
+        WarehouseIndexCache cache = new WarehouseIndexCache(2);
+        WarehouseKdTree index = cache.get(new String[]{"W1", "W2"}, new double[]{1, 0, 0, 0, 1, 0});
+
+        // Equal arrays from another request hit; a moved warehouse does not
+        assertSame(index, cache.get(new String[]{"W1", "W2"}, new double[]{1, 0, 0, 0, 1, 0}));
+        assertNotSame(index, cache.get(new String[]{"W1", "W2"}, new double[]{1, 0, 0, 0, 0, 1}));
+        assertEquals(2, cache.size());
+
+        cache.get(new String[]{"W3"}, new double[]{0, 0, 1});
+        assertEquals(2, cache.size());
+        assertNotSame(index, cache.get(new String[]{"W1", "W2"}, new double[]{1, 0, 0, 0, 1, 0}));
+    }
+
+    @Test
+    void testZeroSizeBuildsEveryTime() {
+        WarehouseIndexCache cache = new WarehouseIndexCache(0);
+        double[] points = {1, 0, 0};
+
+        assertNotSame(cache.get(new String[]{"W1"}, points), cache.get(new String[]{"W1"}, points));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,138 @@
+package com.casepackoptimizer.dto;
+
+import com.casepackoptimizer.allocation.AllocationMode;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CasepackBinaryCodecTest {
+
+    @Test
+    void testRequestRoundTrip() throws Exception {
+        CasepackOptimizerRequest request = createRequest();
+        request.setAllocationMode(AllocationMode.LARGEST_REMAINDER);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CasepackBinaryCodec.writeRequest(request, out);
+        CasepackOptimizerRequest decoded = CasepackBinaryCodec.readRequest(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(request, decoded);
+        assertEquals(new ArrayList<>(request.getNeedPerStore().keySet()),
+                new ArrayList<>(decoded.getNeedPerStore().keySet()));
+    }
+
+    @Test
+    void testResponseRoundTripWithNegativeAndNullFields() throws Exception {
+        Map<String, List<Integer>> storeCasePacks = new LinkedHashMap<>();
+        storeCasePacks.put("store1", Arrays.asList(2, 1));
+        CasepackOptimizerResponse response = CasepackOptimizerResponse.builder()
+                .stores(new LinkedHashMap<>(Map.of("store1", 3)))
+                .storeCasePacks(storeCasePacks)
+                .warehouses(new LinkedHashMap<>(Map.of("wh1", -4)))
+                .remainingSupply(Integer.MIN_VALUE)
+                .build();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CasepackBinaryCodec.writeResponse(response, out);
+        CasepackOptimizerResponse decoded = CasepackBinaryCodec.readResponse(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(response, decoded);
+        assertNull(decoded.getCasePacks());
+    }
+
+    @Test
+    void testBatchSharesStoreIds() throws Exception {
+        CasepackBatchRequest batch = new CasepackBatchRequest(Arrays.asList(createRequest(), createRequest()));
+
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        CasepackBinaryCodec.writeRequest(createRequest(), single);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CasepackBinaryCodec.writeBatchRequest(batch, out);
+        CasepackBatchRequest decoded = CasepackBinaryCodec.readBatchRequest(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(batch, decoded);
+        // Store IDs are only written once for both SKUs
+        assertTrue(out.size() < 2 * single.size());
+        assertSame(decoded.getRequests().get(0).getNeedPerStore().keySet().iterator().next(),
+                decoded.getRequests().get(1).getNeedPerStore().keySet().iterator().next());
+    }
+
+    @Test
+    void testBatchResponseRoundTrip() throws Exception {
+        CasepackBatchResponse batch = new CasepackBatchResponse(Arrays.asList(
+                CasepackBatchResult.builder().index(0).response(CasepackOptimizerResponse.builder()
+                        .stores(Map.of("s", 1)).warehouses(Map.of("w", 1)).build()).build(),
+                CasepackBatchResult.builder().index(1).error("Casepacks cannot be null or empty").build()
+        ));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CasepackBinaryCodec.writeBatchResponse(batch, out);
+
+        assertEquals(batch, CasepackBinaryCodec.readBatchResponse(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    void testRejectsTruncatedAndForeignInput() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CasepackBinaryCodec.writeRequest(createRequest(), out);
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 3);
+
+        assertThrows(IOException.class, () -> CasepackBinaryCodec.readRequest(new ByteArrayInputStream(truncated)));
+        assertThrows(IOException.class, () -> CasepackBinaryCodec.readRequest(new ByteArrayInputStream("{}".getBytes())));
+        assertThrows(IOException.class, () -> CasepackBinaryCodec.readResponse(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    void testRejectsOversizedCountsWithoutAllocatingThem() {
+        // String table claiming Integer.MAX_VALUE entries, followed by nothing
+        byte[] table = {'C', 'P', 'K', 1, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        // Empty string table, null casepacks, then a store map claiming Integer.MAX_VALUE - 1 entries
+        byte[] stores = {'C', 'P', 'K', 1, 1, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        // One string claiming Integer.MAX_VALUE bytes
+        byte[] string = {'C', 'P', 'K', 1, 1, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+
+        assertThrows(IOException.class, () -> CasepackBinaryCodec.readRequest(new ByteArrayInputStream(table)));
+        assertThrows(IOException.class, () -> CasepackBinaryCodec.readRequest(new ByteArrayInputStream(stores)));
+        assertThrows(IOException.class, () -> CasepackBinaryCodec.readRequest(new ByteArrayInputStream(string)));
+    }
+
+    @Test
+    void testRejectsTruncatedBatchWithHugeCount() {
+        // Empty string table, then a batch claiming Integer.MAX_VALUE - 1 requests, followed by nothing
+        byte[] batch = {'C', 'P', 'K', 1, 3, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+
+        assertThrows(IOException.class, () -> CasepackBinaryCodec.readBatchRequest(new ByteArrayInputStream(batch)));
+    }
+
+    @Test
+    void testDuplicateStoreKeepsFirstPositionAndLastValue() throws Exception {
+        // Table ["a", "b", "a"]; null casepacks; stores a=1, b=2, a(ref 2)=3, a(ref 0)=4; null warehouses; no mode
+        byte[] message = {'C', 'P', 'K', 1, 1, 3, 1, 'a', 1, 'b', 1, 'a', 0,
+                5, 0, 2, 1, 4, 2, 6, 0, 8, 0, 0};
+
+        CasepackOptimizerRequest decoded = CasepackBinaryCodec.readRequest(new ByteArrayInputStream(message));
+
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(decoded.getNeedPerStore().keySet()));
+        assertEquals(4, decoded.getNeedPerStore().get("a"));
+        assertEquals(2, decoded.getNeedPerStore().get("b"));
+    }
+
+    private CasepackOptimizerRequest createRequest() {
+        CasepackOptimizerRequest request = new CasepackOptimizerRequest();
+        request.setCasePacks(Collections.singletonList(new CasepackOptimizerRequest.CasePack(1,
+                Arrays.asList(new CasepackOptimizerRequest.CasePack.SizeRatio(1),
+                        new CasepackOptimizerRequest.CasePack.SizeRatio(4)))));
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        for (int i = 1; i <= 200; i++) {
+            stores.put("store" + i, i * 37);
+        }
+        request.setNeedPerStore(stores);
+        request.setWarehouseAvailableQty(new LinkedHashMap<>(Map.of("wh1", 15, "wh2", 300000)));
+        return request;
+    }
+}
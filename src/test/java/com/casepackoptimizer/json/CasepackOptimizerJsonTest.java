@@ -0,0 +1,170 @@
+package com.casepackoptimizer.json;
+
+import com.casepackoptimizer.allocation.AllocationMode;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import com.casepackoptimizer.model.IndexedIntMap;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CasepackOptimizerJsonTest {
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        SimpleModule module = new SimpleModule();
+        module.addDeserializer(CasepackOptimizerRequest.class, new CasepackOptimizerRequestDeserializer());
+        module.addSerializer(CasepackOptimizerResponse.class, new CasepackOptimizerResponseSerializer());
+        objectMapper = new ObjectMapper().registerModule(module);
+    }
+
+    @Test
+    void testParsesQuantitiesIntoArrays() throws Exception {
+        String json = "{\"casePacks\":[{\"packs\":1,\"sizeRatios\":[{\"qty\":1},{\"qty\":4}]}],"
+                + "\"unknown\":{\"nested\":[1,2]},"
+                + "\"needPerStore\":{\"str1\":100,\"str2\":\"150\",\"str3\":200.0},"
+                + "\"warehouseAvailableQty\":{\"wh1\":15},"
+                + "\"allocationMode\":\"LARGEST_REMAINDER\"}";
+
+        CasepackOptimizerRequest request = objectMapper.readValue(json, CasepackOptimizerRequest.class);
+
+        IndexedIntMap needs = assertInstanceOf(IndexedIntMap.class, request.getNeedPerStore());
+        assertArrayEquals(new String[]{"str1", "str2", "str3"}, needs.keyArray());
+        assertArrayEquals(new int[]{100, 150, 200}, needs.valueArray());
+        assertEquals(Map.of("wh1", 15), request.getWarehouseAvailableQty());
+        assertEquals(2, request.getCasePacks().get(0).getSizeRatios().size());
+        assertEquals(AllocationMode.LARGEST_REMAINDER, request.getAllocationMode());
+    }
+
+    @Test
+    void testDuplicateStoreKeepsFirstPositionAndLastValue() throws Exception {
+        String json = "{\"needPerStore\":{\"a\":1,\"b\":2,\"a\":3}}";
+
+        CasepackOptimizerRequest request = objectMapper.readValue(json, CasepackOptimizerRequest.class);
+
+        IndexedIntMap needs = (IndexedIntMap) request.getNeedPerStore();
+        assertArrayEquals(new String[]{"a", "b"}, needs.keyArray());
+        assertArrayEquals(new int[]{3, 2}, needs.valueArray());
+    }
+
+    @Test
+    void testManyStoresMatchDefaultBinding() throws Exception {
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            stores.put("store" + i, i % 97);
+        }
+        CasepackOptimizerRequest original = new CasepackOptimizerRequest();
+        original.setNeedPerStore(stores);
+        original.setWarehouseAvailableQty(Map.of("wh1", 10));
+
+        CasepackOptimizerRequest parsed = objectMapper.readValue(
+                new ObjectMapper().writeValueAsString(original), CasepackOptimizerRequest.class);
+
+        assertEquals(stores, parsed.getNeedPerStore());
+        assertEquals(new ArrayList<>(stores.keySet()), new ArrayList<>(parsed.getNeedPerStore().keySet()));
+    }
+
+    @Test
+    void testBuilderShrinksAfterLargeRequestAndStaysClean() {
+        QuantityTableBuilder builder = new QuantityTableBuilder();
+        for (int i = 0; i < 10000; i++) {
+            builder.put("store" + i, i);
+        }
+        assertEquals(10000, builder.build().size());
+        assertTrue(builder.capacity() <= QuantityTableBuilder.RETAINED_CAPACITY);
+
+        builder.put("a", 1);
+        builder.put("b", 2);
+        builder.build();
+        builder.put("b", 3);
+        builder.put("a", 4);
+        IndexedIntMap reused = builder.build();
+
+        assertArrayEquals(new String[]{"b", "a"}, reused.keyArray());
+        assertArrayEquals(new int[]{3, 4}, reused.valueArray());
+    }
+
+    @Test
+    void testCollidingIdsFallBackToHashMap() {
+        // Every id built from "Aa" and "BB" blocks has the same hash code
+        String[] ids = new String[1 << 14];
+        for (int i = 0; i < ids.length; i++) {
+            StringBuilder id = new StringBuilder();
+            for (int bit = 0; bit < 14; bit++) {
+                id.append((i >> bit & 1) == 0 ? "Aa" : "BB");
+            }
+            ids[i] = id.toString();
+            assertEquals(ids[0].hashCode(), ids[i].hashCode());
+        }
+
+        QuantityTableBuilder builder = new QuantityTableBuilder();
+        for (int i = 0; i < ids.length; i++) {
+            builder.put(ids[i], i);
+        }
+        builder.put(ids[3], -1);
+        assertTrue(builder.overflowed());
+        IndexedIntMap parsed = builder.build();
+
+        assertEquals(ids.length, parsed.size());
+        assertArrayEquals(ids, parsed.keyArray());
+        assertEquals(-1, parsed.valueArray()[3]);
+        assertEquals(ids.length - 1, parsed.valueArray()[ids.length - 1]);
+
+        assertFalse(builder.overflowed());
+        builder.put("a", 1);
+        builder.put("a", 2);
+        assertArrayEquals(new int[]{2}, builder.build().valueArray());
+    }
+
+    @Test
+    void testNullQuantityIsRejected() {
+        String json = "{\"needPerStore\":{\"a\":null}}";
+
+        assertThrows(Exception.class, () -> objectMapper.readValue(json, CasepackOptimizerRequest.class));
+    }
+
+    @Test
+    void testResponseMatchesDefaultSerialization() throws Exception {
+        CasepackOptimizerResponse response = CasepackOptimizerResponse.builder()
+                .casePacks(List.of(new CasepackOptimizerRequest.CasePack(1,
+                        List.of(new CasepackOptimizerRequest.CasePack.SizeRatio(5)))))
+                .stores(new IndexedIntMap(new String[]{"s1", "s2"}, new int[]{3, 0}))
+                .warehouses(new IndexedIntMap(new String[]{"w1"}, new int[]{3}))
+                .remainingSupply(7)
+                .build();
+
+        JsonNode written = objectMapper.readTree(objectMapper.writeValueAsString(response));
+        JsonNode expected = new ObjectMapper().valueToTree(response);
+        ((com.fasterxml.jackson.databind.node.ObjectNode) expected).remove("storeCasePacks");
+
+        assertEquals(expected, written);
+    }
+
+    @Test
+    void testSparseOmitsZeroAllocations() throws Exception {
+        Map<String, List<Integer>> mixes = new LinkedHashMap<>();
+        mixes.put("s1", List.of(1, 2));
+        mixes.put("s2", List.of(0, 0));
+        CasepackOptimizerResponse response = CasepackOptimizerResponse.builder()
+                .stores(new IndexedIntMap(new String[]{"s1", "s2", "s3"}, new int[]{3, 0, 1}))
+                .storeCasePacks(mixes)
+                .warehouses(new LinkedHashMap<>(Map.of("w1", 0)))
+                .remainingSupply(7)
+                .build();
+
+        String json = objectMapper.writer()
+                .withAttribute(CasepackOptimizerResponseSerializer.SPARSE, Boolean.TRUE)
+                .writeValueAsString(response);
+
+        assertEquals("{\"stores\":{\"s1\":3,\"s3\":1},\"storeCasePacks\":{\"s1\":[1,2]},"
+                + "\"warehouses\":{},\"remainingSupply\":7}", json);
+    }
+}
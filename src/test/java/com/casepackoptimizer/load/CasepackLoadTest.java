@@ -0,0 +1,64 @@
+package com.casepackoptimizer.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test against the embedded server, excluded from {@code test}. Run it with e.g.
+ * {@code ./gradlew loadTest -Pload.rates=100,200,400,800 -Pload.duration=20s} or
+ * {@code ./gradlew loadTest -Pload.concurrency=1,4,16,64}; reports land in build/reports/load.
+ * The result cache is off unless {@code -Pload.cache=true}, so the solver is what gets measured.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "casepack.cache.enabled=${load.cache:false}")
+class CasepackLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void measureLatencyCurve() throws Exception {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        RequestMix mix = new RequestMix(settings.mix(), objectMapper);
+        LoadGenerator generator = new LoadGenerator(
+                URI.create("http://localhost:" + port + "/api/v1/casepack/optimize"), mix, settings.timeout());
+        Files.createDirectories(settings.reportDir());
+
+        // Warm up with the first step; in closed loop its median is the interval a worker should
+        // manage when nothing stalls
+        int first = settings.steps().get(0);
+        LoadResult warmup = settings.closedLoop()
+                ? generator.runAtConcurrency(first, settings.warmup(), Long.MAX_VALUE)
+                : generator.runAtRate(first, settings.warmup());
+        long expectedInterval = warmup.uncorrected().getValueAtPercentile(50);
+
+        List<LoadResult> results = new ArrayList<>();
+        for (int level : settings.steps()) {
+            LoadResult result = settings.closedLoop()
+                    ? generator.runAtConcurrency(level, settings.duration(), expectedInterval)
+                    : generator.runAtRate(level, settings.duration());
+            System.out.println(result.summary());
+            result.writeDistributions(settings.reportDir());
+            results.add(result);
+        }
+        LoadResult.writeCurve(settings.reportDir().resolve(
+                (settings.closedLoop() ? "concurrency" : "rate") + "-curve.csv"), results);
+
+        assertTrue(results.stream().allMatch(result -> result.completed() > 0));
+    }
+}
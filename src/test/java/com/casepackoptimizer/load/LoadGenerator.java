@@ -0,0 +1,141 @@
+package com.casepackoptimizer.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the optimize endpoint over real HTTP, either open loop at a fixed rate or closed loop at
+ * a fixed number of workers, and records latencies corrected for coordinated omission.
+ */
+class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = Duration.ofMinutes(5).toNanos();
+
+    private final HttpClient client;
+    private final URI target;
+    private final RequestMix mix;
+    private final Duration timeout;
+
+    LoadGenerator(URI target, RequestMix mix, Duration timeout) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newCachedThreadPool())
+                .build();
+        this.target = target;
+        this.mix = mix;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sends requests on a fixed schedule regardless of how fast responses come back. Latency is
+     * taken from the intended send time, so a stalled server is charged for every request that
+     * should have gone out meanwhile.
+     */
+    LoadResult runAtRate(int rate, Duration duration) {
+        Histogram corrected = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        Histogram uncorrected = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        LongAdder errors = new LongAdder();
+        long interval = 1_000_000_000L / rate;
+        long count = duration.toNanos() / interval;
+        Random random = new Random(rate);
+
+        List<CompletableFuture<?>> pending = new ArrayList<>((int) count);
+        long start = System.nanoTime();
+        for (long i = 0; i < count; i++) {
+            long intended = start + i * interval;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long sent = System.nanoTime();
+            pending.add(client.sendAsync(request(mix.next(random)), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long now = System.nanoTime();
+                        corrected.recordValue(Math.min(now - intended, HIGHEST_TRACKABLE_NANOS));
+                        uncorrected.recordValue(Math.min(now - sent, HIGHEST_TRACKABLE_NANOS));
+                        if (failure != null || response.statusCode() != 200) {
+                            errors.increment();
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                .exceptionally(failure -> null)
+                .join();
+        return new LoadResult("rate", rate, corrected, uncorrected, errors.sum(), System.nanoTime() - start);
+    }
+
+    /**
+     * Keeps {@code concurrency} requests in flight back to back. A closed loop slows down with the
+     * server, so each latency above {@code expectedInterval} is back-filled with the samples the
+     * worker would have taken had the server kept up.
+     */
+    LoadResult runAtConcurrency(int concurrency, Duration duration, long expectedInterval) {
+        Histogram corrected = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        Histogram uncorrected = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<?>> running = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            running.add(workers.submit(() -> {
+                Random random = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    long sent = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = client.send(request(mix.next(random)), HttpResponse.BodyHandlers.discarding())
+                                .statusCode() == 200;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    long latency = Math.min(System.nanoTime() - sent, HIGHEST_TRACKABLE_NANOS);
+                    corrected.recordValueWithExpectedInterval(latency, expectedInterval);
+                    uncorrected.recordValue(latency);
+                    if (!ok) {
+                        errors.increment();
+                    }
+                }
+            }));
+        }
+        try {
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Load worker failed", e);
+        } finally {
+            workers.shutdownNow();
+        }
+        return new LoadResult("concurrency", concurrency, corrected, uncorrected, errors.sum(),
+                System.nanoTime() - start);
+    }
+
+    private HttpRequest request(byte[] body) {
+        return HttpRequest.newBuilder(target)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.casepackoptimizer.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One step of a load run: the target rate or concurrency, both latency histograms and what the
+ * server actually sustained.
+ */
+record LoadResult(String mode, int level, Histogram corrected, Histogram uncorrected, long errors,
+                  long elapsedNanos) {
+
+    static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    // The corrected histogram also holds back-filled samples, so count the real ones
+    long completed() {
+        return uncorrected.getTotalCount();
+    }
+
+    double throughput() {
+        return completed() / (elapsedNanos / 1e9);
+    }
+
+    String summary() {
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT,
+                "%s=%d achieved=%.1f/s completed=%d errors=%d", mode, level, throughput(), completed(), errors));
+        for (double percentile : PERCENTILES) {
+            line.append(String.format(Locale.ROOT, " p%s=%.2fms", format(percentile),
+                    corrected.getValueAtPercentile(percentile) / NANOS_PER_MILLI));
+        }
+        line.append(String.format(Locale.ROOT, " max=%.2fms", corrected.getMaxValue() / NANOS_PER_MILLI));
+        return line.toString();
+    }
+
+    /**
+     * Writes the full percentile distributions as {@code .hgrm} files, which the HdrHistogram
+     * plotter reads directly.
+     */
+    void writeDistributions(Path dir) throws IOException {
+        write(dir.resolve(mode + "-" + level + ".hgrm"), corrected);
+        write(dir.resolve(mode + "-" + level + "-uncorrected.hgrm"), uncorrected);
+    }
+
+    /**
+     * Writes the throughput curve: one row per step, so the knee where achieved falls behind the
+     * target or the tail latency climbs marks the saturation point.
+     */
+    static void writeCurve(Path file, List<LoadResult> results) throws IOException {
+        StringBuilder csv = new StringBuilder(results.isEmpty() ? "level" : results.get(0).mode());
+        csv.append(",achieved_per_sec,completed,errors");
+        for (double percentile : PERCENTILES) {
+            csv.append(",p").append(format(percentile)).append("_ms");
+        }
+        csv.append(",max_ms\n");
+        for (LoadResult result : results) {
+            csv.append(result.level)
+                    .append(String.format(Locale.ROOT, ",%.1f", result.throughput()))
+                    .append(',').append(result.completed())
+                    .append(',').append(result.errors);
+            for (double percentile : PERCENTILES) {
+                csv.append(String.format(Locale.ROOT, ",%.3f",
+                        result.corrected.getValueAtPercentile(percentile) / NANOS_PER_MILLI));
+            }
+            csv.append(String.format(Locale.ROOT, ",%.3f\n", result.corrected.getMaxValue() / NANOS_PER_MILLI));
+        }
+        Files.writeString(file, csv);
+    }
+
+    private static void write(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, NANOS_PER_MILLI);
+        }
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? Integer.toString((int) percentile) : Double.toString(percentile);
+    }
+}
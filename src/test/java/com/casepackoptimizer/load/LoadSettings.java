@@ -0,0 +1,57 @@
+package com.casepackoptimizer.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Load test knobs, read from {@code load.*} system properties (the {@code loadTest} task forwards
+ * matching Gradle properties). Setting {@code load.concurrency} switches from fixed-rate steps to
+ * fixed-concurrency steps.
+ */
+record LoadSettings(List<Integer> rates,
+                    List<Integer> concurrency,
+                    Duration duration,
+                    Duration warmup,
+                    String mix,
+                    Duration timeout,
+                    Path reportDir) {
+
+    static LoadSettings fromSystemProperties() {
+        return new LoadSettings(
+                ints(System.getProperty("load.rates", "50,100,200,400")),
+                ints(System.getProperty("load.concurrency", "")),
+                duration(System.getProperty("load.duration", "10s")),
+                duration(System.getProperty("load.warmup", "5s")),
+                System.getProperty("load.mix", "small=80,medium=18,large=2"),
+                duration(System.getProperty("load.timeout", "30s")),
+                Path.of(System.getProperty("load.reportDir", "build/reports/load")));
+    }
+
+    boolean closedLoop() {
+        return !concurrency.isEmpty();
+    }
+
+    List<Integer> steps() {
+        return closedLoop() ? concurrency : rates;
+    }
+
+    private static List<Integer> ints(String value) {
+        return value.isBlank()
+                ? List.of()
+                : Arrays.stream(value.split(",")).map(String::trim).map(Integer::parseInt).toList();
+    }
+
+    // Accepts 30s, 2m or plain seconds
+    private static Duration duration(String value) {
+        String trimmed = value.trim();
+        if (trimmed.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+        }
+        if (trimmed.endsWith("s")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return Duration.ofSeconds(Long.parseLong(trimmed));
+    }
+}
@@ -0,0 +1,95 @@
+package com.casepackoptimizer.load;
+
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted mix of pre-serialized optimize bodies, e.g. {@code small=80,medium=18,large=2}. A size
+ * is one of the named shapes or {@code <stores>x<warehouses>}. Each size has several variants so
+ * repeated requests are not byte-identical.
+ */
+class RequestMix {
+
+    private static final int VARIANTS = 16;
+    private static final Map<String, int[]> NAMED_SIZES = Map.of(
+            "small", new int[]{25, 4},
+            "medium", new int[]{500, 20},
+            "large", new int[]{5_000, 100},
+            "huge", new int[]{100_000, 500});
+
+    private final List<byte[][]> bodies = new ArrayList<>();
+    private final int[] cumulativeWeights;
+
+    RequestMix(String spec, ObjectMapper objectMapper) throws JsonProcessingException {
+        String[] entries = spec.split(",");
+        cumulativeWeights = new int[entries.length];
+        Random random = new Random(42);
+        int total = 0;
+        for (int i = 0; i < entries.length; i++) {
+            String[] parts = entries[i].trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected size=weight but got " + entries[i]);
+            }
+            int[] shape = shape(parts[0].trim());
+            byte[][] variants = new byte[VARIANTS][];
+            for (int v = 0; v < VARIANTS; v++) {
+                variants[v] = objectMapper.writeValueAsBytes(request(shape[0], shape[1], random));
+            }
+            bodies.add(variants);
+            total += Integer.parseInt(parts[1].trim());
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Request mix needs a positive total weight: " + spec);
+        }
+    }
+
+    byte[] next(Random random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int size = 0;
+        while (cumulativeWeights[size] <= pick) {
+            size++;
+        }
+        byte[][] variants = bodies.get(size);
+        return variants[random.nextInt(variants.length)];
+    }
+
+    private static int[] shape(String size) {
+        int[] named = NAMED_SIZES.get(size);
+        if (named != null) {
+            return named;
+        }
+        String[] dims = size.split("x");
+        if (dims.length != 2) {
+            throw new IllegalArgumentException("Unknown request size " + size);
+        }
+        return new int[]{Integer.parseInt(dims[0]), Integer.parseInt(dims[1])};
+    }
+
+    private static CasepackOptimizerRequest request(int storeCount, int warehouseCount, Random random) {
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        for (int i = 1; i <= storeCount; i++) {
+            stores.put("store" + i, random.nextInt(1000) + 10);
+        }
+        // About a third of the ~500 units a store needs is available in 6-unit packs, so the
+        // shortage branch dominates
+        Map<String, Integer> warehouses = new LinkedHashMap<>();
+        int perWarehouse = Math.max(1, storeCount * 2 * 170 / 6 / warehouseCount);
+        for (int i = 1; i <= warehouseCount; i++) {
+            warehouses.put("warehouse" + i, random.nextInt(perWarehouse) + 1);
+        }
+
+        CasepackOptimizerRequest.CasePack casePack = new CasepackOptimizerRequest.CasePack(1, List.of(
+                new CasepackOptimizerRequest.CasePack.SizeRatio(1),
+                new CasepackOptimizerRequest.CasePack.SizeRatio(2),
+                new CasepackOptimizerRequest.CasePack.SizeRatio(3)));
+        return new CasepackOptimizerRequest(List.of(casePack), stores, warehouses, null, null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,61 @@
+package com.casepackoptimizer.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapIntMatrixTest {
+
+    @Test
+    void testGrowsAcrossBlocksWithoutLosingRows() {
+        // Three columns put about 5.6 million rows in one 64 MiB block
+        OffHeapIntMatrix matrix = new OffHeapIntMatrix(3);
+        int rows = 6_000_000;
+        OffHeapIntMatrix.Cursor cursor = matrix.cursor();
+        for (int i = 0; i < rows; i++) {
+            cursor.at(matrix.addRow()).set(0, i).set(2, -i);
+        }
+
+        assertEquals(rows, matrix.rows());
+        for (int i = 0; i < rows; i += 99_991) {
+            assertEquals(i, matrix.get(i, 0));
+            assertEquals(0, matrix.get(i, 1));
+            assertEquals(-i, cursor.at(i).get(2));
+        }
+        matrix.set(rows - 1, 1, 42);
+        assertEquals(42, cursor.at(rows - 1).get(1));
+    }
+
+    @Test
+    void testBlocksDoubleUpToTheFullSize() {
+        // Two columns: blocks of 2, 4, 8 and 16 rows, then 25 rows each
+        OffHeapIntMatrix matrix = new OffHeapIntMatrix(2, 16, 200);
+        for (int i = 0; i < 200; i++) {
+            matrix.set(matrix.addRow(), 0, i);
+            matrix.set(i, 1, -i);
+        }
+
+        // 30 rows in the doubling blocks, 170 more in seven full ones
+        assertEquals(4 + 7, matrix.blockCount());
+        OffHeapIntMatrix.Cursor cursor = matrix.cursor();
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, matrix.get(i, 0));
+            assertEquals(-i, cursor.at(i).get(1));
+        }
+    }
+
+    @Test
+    void testSmallMatrixReservesOneSmallBlock() {
+        OffHeapIntMatrix matrix = new OffHeapIntMatrix(5);
+        for (int i = 0; i < 3; i++) {
+            matrix.addRow();
+        }
+
+        assertEquals(1, matrix.blockCount());
+    }
+
+    @Test
+    void testRejectsInvalidColumnCount() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapIntMatrix(0));
+    }
+}
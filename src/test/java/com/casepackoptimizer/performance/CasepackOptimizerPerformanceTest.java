@@ -1,6 +1,7 @@
 package com.casepackoptimizer.performance;
 
 import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import com.casepackoptimizer.dto.CasepackOptimizerResponse;
 import com.casepackoptimizer.service.CasepackOptimizerService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -129,6 +130,84 @@ class CasepackOptimizerPerformanceTest {
         System.out.printf("Items per casepack: %d%n", itemsPerPack);
     }
 
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testSparseLaneSourcingPerformance() {
+        // 50k stores each reaching 4 of 200 warehouses
+        Random random = new Random(7);
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        Map<String, Integer> warehouses = new LinkedHashMap<>();
+        for (int i = 1; i <= 50_000; i++) {
+            stores.put("store" + i, random.nextInt(900) + 100);
+        }
+        for (int i = 1; i <= 200; i++) {
+            warehouses.put("warehouse" + i, random.nextInt(1000) + 500);
+        }
+        List<CasepackOptimizerRequest.Lane> lanes = new ArrayList<>();
+        for (int i = 1; i <= 50_000; i++) {
+            for (int k = 0; k < 4; k++) {
+                lanes.add(new CasepackOptimizerRequest.Lane("store" + i,
+                        "warehouse" + (random.nextInt(200) + 1), random.nextInt(1000) + 1));
+            }
+        }
+
+        CasepackOptimizerRequest request = createRequest(Arrays.asList(1, 2, 3), stores, warehouses);
+        request.setLanes(lanes);
+
+        // The first call pays for class loading and JIT
+        service.optimizeCasepacks(request);
+        long startTime = System.currentTimeMillis();
+        var response = service.optimizeCasepacks(request);
+        long endTime = System.currentTimeMillis();
+
+        System.out.printf("Lane sourcing took %d ms for 50000 stores, 200 warehouses and %d lanes%n",
+                endTime - startTime, lanes.size());
+
+        int sourced = response.getSourcing().stream()
+                .mapToInt(CasepackOptimizerResponse.Shipment::getPacks)
+                .sum();
+        assertEquals(response.getStores().values().stream().mapToInt(Integer::intValue).sum(), sourced);
+        assertTrue(endTime - startTime < 1000);
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    void testNearestWarehouseSourcingPerformance() {
+        Random random = new Random(11);
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        Map<String, CasepackOptimizerRequest.Location> storeLocations = new HashMap<>();
+        for (int i = 1; i <= 50_000; i++) {
+            stores.put("store" + i, random.nextInt(900) + 100);
+            storeLocations.put("store" + i, new CasepackOptimizerRequest.Location(
+                    random.nextDouble() * 20 + 35, random.nextDouble() * 50 - 120));
+        }
+        Map<String, Integer> warehouses = new LinkedHashMap<>();
+        Map<String, CasepackOptimizerRequest.Location> warehouseLocations = new HashMap<>();
+        for (int i = 1; i <= 200; i++) {
+            warehouses.put("warehouse" + i, random.nextInt(1000) + 500);
+            warehouseLocations.put("warehouse" + i, new CasepackOptimizerRequest.Location(
+                    random.nextDouble() * 20 + 35, random.nextDouble() * 50 - 120));
+        }
+
+        CasepackOptimizerRequest request = createRequest(Arrays.asList(1, 2, 3), stores, warehouses);
+        request.setStoreLocations(storeLocations);
+        request.setWarehouseLocations(warehouseLocations);
+
+        service.optimizeCasepacks(request);
+        long startTime = System.currentTimeMillis();
+        var response = service.optimizeCasepacks(request);
+        long endTime = System.currentTimeMillis();
+
+        System.out.printf("Nearest warehouse sourcing took %d ms for 50000 stores and 200 warehouses%n",
+                endTime - startTime);
+
+        int sourced = response.getSourcing().stream()
+                .mapToInt(CasepackOptimizerResponse.Shipment::getPacks)
+                .sum();
+        assertEquals(response.getStores().values().stream().mapToInt(Integer::intValue).sum(), sourced);
+        assertTrue(endTime - startTime < 1000);
+    }
+
     @Test
     void testMemoryEfficiency() {
         // Monitor memory usage for large scale operations
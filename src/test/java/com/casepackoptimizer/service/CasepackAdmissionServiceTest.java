@@ -0,0 +1,162 @@
+package com.casepackoptimizer.service;
+
+import com.casepackoptimizer.config.CasepackOptimizerProperties;
+import com.casepackoptimizer.dto.CasepackBatchResult;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CasepackAdmissionServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testEstimateCountsImpliedCasepacks() {
+        CasepackOptimizerRequest request = new CasepackOptimizerRequest(
+                List.of(new CasepackOptimizerRequest.CasePack(1, List.of(
+                        new CasepackOptimizerRequest.CasePack.SizeRatio(2),
+                        new CasepackOptimizerRequest.CasePack.SizeRatio(3)))),
+                Map.of("S1", 100, "S2", 51), Map.of("W1", 1000), null, null, null, null, null, null, null);
+
+        // 2 stores + 1 warehouse + ceil(151 / 5) packs, stock is not the limit
+        assertEquals(34, CasepackAdmissionService.estimateCost(request));
+        request.setWarehouseAvailableQty(Map.of("W1", 4));
+        assertEquals(7, CasepackAdmissionService.estimateCost(request));
+    }
+
+    @Test
+    void testSmallRequestsBypassSaturatedBudget() throws Exception {
+        CasepackAdmissionService admission = service(100, 10, 0, Duration.ZERO);
+        CountDownLatch running = new CountDownLatch(1);
+        Future<?> large = executor.submit(() -> admission.admit(100, () -> block(running)));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        assertEquals("ok", admission.admit(5, () -> "ok"));
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+                () -> admission.admit(50, () -> "too late"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+        assertEquals("1", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, registry.get("casepack.admission.shed").tag("reason", "queue_full").counter().count());
+
+        release.countDown();
+        large.get(5, TimeUnit.SECONDS);
+        assertEquals(1.0, registry.get("casepack.admission.admitted").tag("lane", "small").counter().count());
+        assertEquals(1.0, registry.get("casepack.admission.admitted").tag("lane", "shared").counter().count());
+    }
+
+    @Test
+    void testQueuedRequestRunsOnceBudgetFrees() throws Exception {
+        CasepackAdmissionService admission = service(100, 0, 1, Duration.ofSeconds(10));
+        CountDownLatch running = new CountDownLatch(1);
+        Future<?> first = executor.submit(() -> admission.admit(80, () -> block(running)));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        Future<String> second = executor.submit(() -> admission.admit(80, () -> "second"));
+        while (registry.get("casepack.admission.queued").counter().count() < 1) {
+            Thread.sleep(1);
+        }
+        // The queue holds one request, so a third is shed at once
+        assertThrows(ResponseStatusException.class, () -> admission.admit(30, () -> "third"));
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals("second", second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testWaitLimitShedsRequest() throws Exception {
+        CasepackAdmissionService admission = service(100, 0, 10, Duration.ofMillis(20));
+        CountDownLatch running = new CountDownLatch(1);
+        executor.submit(() -> admission.admit(1_000, () -> block(running)));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ResponseStatusException.class, () -> admission.admit(1, () -> "late"));
+        assertEquals(1.0, registry.get("casepack.admission.shed").tag("reason", "timeout").counter().count());
+    }
+
+    @Test
+    void testRejectedStreamRequestDoesNotStopStream() throws Exception {
+        CasepackAdmissionService admission = service(100, 10, 0, Duration.ZERO);
+        CountDownLatch running = new CountDownLatch(1);
+        executor.submit(() -> admission.admit(100, () -> block(running)));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        CasepackStreamingService streaming = new CasepackStreamingService(new CasepackBatchService(
+                new CasepackOptimizerService(), new CasepackOptimizerProperties(), ForkJoinPool.commonPool()),
+                admission, objectMapper);
+        // Costs 102 and has to wait for the shared budget, the second costs 3 and takes the small lane
+        String body = line(objectMapper, request(100, 100)) + line(objectMapper, request(1, 1));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        streaming.optimizeStream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        CasepackBatchResult rejected = objectMapper.readValue(lines[0], CasepackBatchResult.class);
+        assertEquals(0, rejected.getIndex());
+        assertEquals("Too many requests are waiting", rejected.getError());
+        CasepackOptimizerResponse admitted = objectMapper.readValue(lines[1], CasepackOptimizerResponse.class);
+        assertEquals(1, admitted.getStores().get("S1"));
+    }
+
+    private static CasepackOptimizerRequest request(int need, int packs) {
+        return new CasepackOptimizerRequest(
+                List.of(new CasepackOptimizerRequest.CasePack(1, List.of(
+                        new CasepackOptimizerRequest.CasePack.SizeRatio(1)))),
+                Map.of("S1", need), Map.of("W1", packs), null, null, null, null, null, null, null);
+    }
+
+    private static String line(ObjectMapper objectMapper, CasepackOptimizerRequest request) throws Exception {
+        return objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT).writeValueAsString(request) + "\n";
+    }
+
+    private CasepackAdmissionService service(int capacity, int smallCost, int queueSize, Duration maxWait) {
+        CasepackOptimizerProperties properties = new CasepackOptimizerProperties();
+        properties.getAdmission().setCapacity(capacity);
+        properties.getAdmission().setSmallCost(smallCost);
+        properties.getAdmission().setSmallConcurrency(1);
+        properties.getAdmission().setQueueSize(queueSize);
+        properties.getAdmission().setMaxWait(maxWait);
+        return new CasepackAdmissionService(properties, registry);
+    }
+
+    private String block(CountDownLatch running) {
+        running.countDown();
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
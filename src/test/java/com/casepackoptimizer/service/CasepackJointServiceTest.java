@@ -0,0 +1,111 @@
+package com.casepackoptimizer.service;
+
+import com.casepackoptimizer.config.CasepackOptimizerProperties;
+import com.casepackoptimizer.dto.CasepackBatchResult;
+import com.casepackoptimizer.dto.CasepackJointRequest;
+import com.casepackoptimizer.dto.CasepackJointResponse;
+import com.casepackoptimizer.dto.CasepackOptimizerRequest;
+import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CasepackJointServiceTest {
+
+    private final CasepackJointService service = new CasepackJointService(
+            new CasepackOptimizerService(), new CasepackOptimizerProperties(), ForkJoinPool.commonPool());
+
+    @Test
+    void testUnconstrainedSkusSolveOnce() {
+        CasepackJointResponse response = service.optimize(new CasepackJointRequest(List.of(
+                sku(Map.of("S1", 20), Map.of("W1", 20)),
+                sku(Map.of("S1", 10), Map.of("W1", 20))
+        ), Map.of("W1", 50)));
+
+        assertEquals(1, response.getRounds());
+        assertEquals(30, response.getWarehouseLoad().get("W1"));
+        assertEquals(20, response.getResults().get(0).getResponse().getStores().get("S1"));
+        assertEquals(10, response.getResults().get(1).getResponse().getStores().get("S1"));
+    }
+
+    @Test
+    void testCapacityIsRationedByClaims() {
+        CasepackJointResponse response = service.optimize(new CasepackJointRequest(List.of(
+                sku(Map.of("S1", 20), Map.of("W1", 20)),
+                sku(Map.of("S1", 10), Map.of("W1", 20))
+        ), Map.of("W1", 10)));
+
+        // Claims of 20 and 10 packs split 10 packs of capacity 7 / 3
+        assertEquals(10, response.getWarehouseLoad().get("W1"));
+        CasepackBatchResult first = response.getResults().get(0);
+        CasepackBatchResult second = response.getResults().get(1);
+        assertEquals(7, first.getResponse().getStores().get("S1"));
+        assertEquals(3, second.getResponse().getStores().get("S1"));
+        // Stock that capacity kept in the warehouse is still remaining supply
+        assertEquals(13, first.getResponse().getRemainingSupply());
+        assertEquals(17, second.getResponse().getRemainingSupply());
+    }
+
+    @Test
+    void testUnusedAllotmentIsOfferedAgain() {
+        // The first SKU claims 3 packs of W1 but can cover its stores from W2 once rationed
+        CasepackJointResponse response = service.optimize(new CasepackJointRequest(List.of(
+                sku(Map.of("S1", 10), ordered("W1", 10, "W2", 30)),
+                sku(Map.of("S1", 20), Map.of("W1", 20))
+        ), Map.of("W1", 10)));
+
+        assertEquals(3, response.getRounds());
+        assertEquals(10, response.getWarehouseLoad().get("W1"));
+        assertEquals(10, response.getResults().get(0).getResponse().getStores().get("S1"));
+        assertEquals(0, response.getResults().get(0).getResponse().getWarehouses().get("W1"));
+        assertEquals(10, response.getResults().get(1).getResponse().getStores().get("S1"));
+    }
+
+    @Test
+    void testRationedPacksDoNotMoveOntoTightWarehouse() {
+        // The first SKU ships 5 + 5; cut to 3 at A, it must not ship the rest from B
+        CasepackJointResponse response = service.optimize(new CasepackJointRequest(List.of(
+                sku(Map.of("S1", 10), ordered("A", 10, "B", 10)),
+                sku(Map.of("S1", 10), Map.of("A", 10))
+        ), ordered("A", 10, "B", 5)));
+
+        assertTrue(response.getWarehouseLoad().get("A") <= 10);
+        assertTrue(response.getWarehouseLoad().get("B") <= 5);
+        CasepackOptimizerResponse first = response.getResults().get(0).getResponse();
+        assertTrue(first.getWarehouses().get("B") <= 5);
+        assertEquals(response.getWarehouseLoad().get("A"),
+                first.getWarehouses().get("A") + response.getResults().get(1).getResponse().getWarehouses().get("A"));
+    }
+
+    @Test
+    void testInvalidSkuIsReportedAlongsideOthers() {
+        CasepackJointResponse response = service.optimize(new CasepackJointRequest(Arrays.asList(
+                null,
+                sku(Map.of("S1", 10), Map.of("W1", 20))
+        ), Map.of("W1", 5)));
+
+        assertNotNull(response.getResults().get(0).getError());
+        assertNull(response.getResults().get(0).getResponse());
+        assertEquals(5, response.getResults().get(1).getResponse().getStores().get("S1"));
+        assertEquals(5, response.getWarehouseLoad().get("W1"));
+    }
+
+    private static CasepackOptimizerRequest sku(Map<String, Integer> stores, Map<String, Integer> warehouses) {
+        CasepackOptimizerRequest.CasePack casePack = new CasepackOptimizerRequest.CasePack(1,
+                List.of(new CasepackOptimizerRequest.CasePack.SizeRatio(1)));
+        return new CasepackOptimizerRequest(List.of(casePack), stores, warehouses, null, null, null, null, null, null, null);
+    }
+
+    private static Map<String, Integer> ordered(String first, int firstQty, String second, int secondQty) {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        map.put(first, firstQty);
+        map.put(second, secondQty);
+        return map;
+    }
+}
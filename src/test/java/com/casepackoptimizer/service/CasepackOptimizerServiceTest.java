@@ -1,7 +1,12 @@
 package com.casepackoptimizer.service;
 
+import com.casepackoptimizer.allocation.AllocationMode;
+import com.casepackoptimizer.allocation.MinCostSourcingFlow;
+import com.casepackoptimizer.cache.CasepackResultCache;
+import com.casepackoptimizer.config.CasepackOptimizerProperties;
 import com.casepackoptimizer.dto.CasepackOptimizerRequest;
 import com.casepackoptimizer.dto.CasepackOptimizerResponse;
+import com.casepackoptimizer.metrics.CasepackMetrics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -118,6 +123,263 @@ class CasepackOptimizerServiceTest {
         verifyResponse(response, request);
     }
 
+    @Test
+    void testLargestRemainderModeMatchesTotals() {
+        CasepackOptimizerRequest request = createRequest(
+                Arrays.asList(1, 4, 10),
+                Map.of("str1", 100, "str2", 150, "str3", 200, "str4", 250, "str5", 0),
+                Map.of("wh1", 15, "wh2", 10, "wh3", 12, "wh4", 6)
+        );
+        request.setAllocationMode(AllocationMode.LARGEST_REMAINDER);
+
+        CasepackOptimizerResponse response = service.optimizeCasepacks(request);
+
+        verifyResponse(response, request);
+        assertEquals(0, response.getStores().get("str5"));
+        assertEquals(0, response.getRemainingSupply());
+    }
+
+    @Test
+    void testLargestRemainderModeSurplus() {
+        CasepackOptimizerRequest request = createRequest(
+                Arrays.asList(5),
+                Map.of("store1", 25, "store2", 52, "store3", 75),
+                Map.of("warehouse1", 100, "warehouse2", 50)
+        );
+        request.setAllocationMode(AllocationMode.LARGEST_REMAINDER);
+
+        CasepackOptimizerResponse response = service.optimizeCasepacks(request);
+
+        assertEquals(5, response.getStores().get("store1"));
+        assertEquals(11, response.getStores().get("store2"));
+        assertEquals(15, response.getStores().get("store3"));
+        assertEquals(119, response.getRemainingSupply());
+    }
+
+    @Test
+    void testMixedCasepacksUseEveryConfiguration() {
+        CasepackOptimizerRequest request = createRequest(
+                Arrays.asList(4, 8), // 12-unit pack
+                Map.of("store1", 30, "store2", 18, "store3", 0),
+                Map.of("wh1", 10, "wh2", 10)
+        );
+        CasepackOptimizerRequest.CasePack innerPack = new CasepackOptimizerRequest.CasePack(
+                10, Arrays.asList(new CasepackOptimizerRequest.CasePack.SizeRatio(6)));
+        CasepackOptimizerRequest.CasePack outerPack = request.getCasePacks().get(0);
+        outerPack.setPacks(10);
+        request.setCasePacks(Arrays.asList(outerPack, innerPack));
+
+        CasepackOptimizerResponse response = service.optimizeCasepacks(request);
+
+        // 30 = 2x12 + 1x6 and 18 = 1x12 + 1x6
+        assertEquals(Arrays.asList(2, 1), response.getStoreCasePacks().get("store1"));
+        assertEquals(Arrays.asList(1, 1), response.getStoreCasePacks().get("store2"));
+        assertEquals(Arrays.asList(0, 0), response.getStoreCasePacks().get("store3"));
+        assertEquals(3, response.getStores().get("store1"));
+        assertEquals(2, response.getStores().get("store2"));
+        assertEquals(15, response.getRemainingSupply());
+        assertEquals(5, response.getWarehouses().values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void testParallelPathMatchesSequential() {
+        CasepackOptimizerProperties properties = new CasepackOptimizerProperties();
+        properties.getParallel().setThreshold(1);
+        CasepackOptimizerService parallelService = new CasepackOptimizerService(properties, CasepackMetrics.noop(),
+                CasepackResultCache.disabled());
+
+        Random random = new Random(9);
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            stores.put("store" + i, random.nextInt(40));
+        }
+        for (AllocationMode mode : AllocationMode.values()) {
+            CasepackOptimizerRequest request = createRequest(Arrays.asList(2, 3, 7), stores,
+                    Map.of("wh1", 3000, "wh2", 1700));
+            request.setAllocationMode(mode);
+
+            CasepackOptimizerResponse expected = service.optimizeCasepacks(request);
+            CasepackOptimizerResponse actual = parallelService.optimizeCasepacks(request);
+
+            assertEquals(expected.getStores(), actual.getStores(), mode.name());
+            assertEquals(expected.getWarehouses(), actual.getWarehouses(), mode.name());
+            assertEquals(expected.getRemainingSupply(), actual.getRemainingSupply(), mode.name());
+        }
+    }
+
+    @Test
+    void testRegionsKeepFlatTotals() {
+        Random random = new Random(21);
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        Map<String, List<String>> regions = new LinkedHashMap<>();
+        for (int i = 0; i < 600; i++) {
+            String store = "store" + i;
+            stores.put(store, random.nextInt(50));
+            // Every seventh store is left out and forms its own group
+            if (i % 7 != 0) {
+                regions.computeIfAbsent("region" + (i % 4), region -> new ArrayList<>()).add(store);
+            }
+        }
+
+        for (AllocationMode mode : AllocationMode.values()) {
+            for (int stock : new int[]{900, 20_000}) {
+                CasepackOptimizerRequest request = createRequest(Arrays.asList(2, 3), stores,
+                        Map.of("wh1", stock / 3, "wh2", stock - stock / 3));
+                request.setAllocationMode(mode);
+                CasepackOptimizerResponse flat = service.optimizeCasepacks(request);
+                request.setRegions(regions);
+                CasepackOptimizerResponse regional = service.optimizeCasepacks(request);
+
+                String scenario = mode + " with " + stock;
+                assertEquals(flat.getRemainingSupply(), regional.getRemainingSupply(), scenario);
+                assertEquals(flat.getWarehouses(), regional.getWarehouses(), scenario);
+                for (String store : stores.keySet()) {
+                    // No store is rounded up past a whole casepack of its need
+                    assertTrue(regional.getStores().get(store) * 5 < stores.get(store) + 5, scenario);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testRegionsRejectUnknownStores() {
+        CasepackOptimizerRequest request = createRequest(Arrays.asList(1), Map.of("store1", 10), Map.of("wh1", 5));
+        request.setRegions(Map.of("north", List.of("store1", "store2")));
+
+        assertThrows(IllegalArgumentException.class, () -> service.optimizeCasepacks(request));
+    }
+
+    @Test
+    void testStoreBoundsAreMetInOnePass() {
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        stores.put("store1", 200);
+        stores.put("store2", 100);
+        stores.put("store3", 0);
+        stores.put("store4", 50);
+
+        for (AllocationMode mode : AllocationMode.values()) {
+            CasepackOptimizerRequest request = createRequest(Arrays.asList(5, 5), stores, Map.of("wh1", 20));
+            request.setAllocationMode(mode);
+            request.setMinPacksPerStore(Map.of("store3", 2, "store4", 3));
+            request.setMaxPacksPerStore(Map.of("store1", 6, "store4", 4));
+
+            CasepackOptimizerResponse response = service.optimizeCasepacks(request);
+
+            // Five packs are reserved; store1 and store4 are held at their caps and store2 takes
+            // the share they cannot
+            assertEquals(6, response.getStores().get("store1"), mode.name());
+            assertEquals(8, response.getStores().get("store2"), mode.name());
+            assertEquals(2, response.getStores().get("store3"), mode.name());
+            assertEquals(4, response.getStores().get("store4"), mode.name());
+            assertEquals(20, response.getStores().values().stream().mapToInt(Integer::intValue).sum(), mode.name());
+            assertEquals(0, response.getRemainingSupply(), mode.name());
+        }
+    }
+
+    @Test
+    void testInfeasibleStoreBoundsAreRejected() {
+        Map<String, Integer> stores = Map.of("store1", 100, "store2", 100);
+
+        CasepackOptimizerRequest tooMuch = createRequest(Arrays.asList(10), stores, Map.of("wh1", 5));
+        tooMuch.setMinPacksPerStore(Map.of("store1", 3, "store2", 3));
+        assertThrows(InfeasibleAllocationException.class, () -> service.optimizeCasepacks(tooMuch));
+
+        CasepackOptimizerRequest crossed = createRequest(Arrays.asList(10), stores, Map.of("wh1", 50));
+        crossed.setMinPacksPerStore(Map.of("store1", 3));
+        crossed.setMaxPacksPerStore(Map.of("store1", 2));
+        assertThrows(InfeasibleAllocationException.class, () -> service.optimizeCasepacks(crossed));
+    }
+
+    @Test
+    void testLanesSourceStoreAndWarehouseTotals() {
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        stores.put("store1", 40);
+        stores.put("store2", 20);
+        Map<String, Integer> warehouses = new LinkedHashMap<>();
+        warehouses.put("wh1", 3);
+        warehouses.put("wh2", 10);
+        CasepackOptimizerRequest request = createRequest(Arrays.asList(10), stores, warehouses);
+        request.setLanes(List.of(
+                new CasepackOptimizerRequest.Lane("store1", "wh1", 1),
+                new CasepackOptimizerRequest.Lane("store1", "wh2", 5),
+                new CasepackOptimizerRequest.Lane("store2", "wh2", 1),
+                new CasepackOptimizerRequest.Lane("store2", "wh1", 9)));
+
+        CasepackOptimizerResponse response = service.optimizeCasepacks(request);
+
+        Map<String, Integer> received = new HashMap<>();
+        Map<String, Integer> shipped = new HashMap<>();
+        for (CasepackOptimizerResponse.Shipment shipment : response.getSourcing()) {
+            assertTrue(shipment.getPacks() > 0);
+            received.merge(shipment.getStore(), shipment.getPacks(), Integer::sum);
+            shipped.merge(shipment.getWarehouse(), shipment.getPacks(), Integer::sum);
+        }
+        assertEquals(Map.of("store1", 4, "store2", 2), received);
+        assertEquals(Map.of("wh1", 1, "wh2", 5), shipped);
+        // wh1's single pack takes store1's cheap lane; store2 never uses its expensive one
+        assertTrue(response.getSourcing().contains(new CasepackOptimizerResponse.Shipment("store1", "wh1", 1)));
+        assertTrue(response.getSourcing().contains(new CasepackOptimizerResponse.Shipment("store2", "wh2", 2)));
+    }
+
+    @Test
+    void testStoreWithoutLaneIsInfeasible() {
+        CasepackOptimizerRequest request = createRequest(Arrays.asList(10),
+                Map.of("store1", 40, "store2", 20), Map.of("wh1", 10));
+        request.setLanes(List.of(new CasepackOptimizerRequest.Lane("store1", "wh1", 1)));
+
+        assertThrows(InfeasibleAllocationException.class, () -> service.optimizeCasepacks(request));
+    }
+
+    @Test
+    void testLaneCostAboveSolverLimitIsRejected() {
+        CasepackOptimizerRequest request = createRequest(Arrays.asList(10),
+                Map.of("store1", 40), Map.of("wh1", 10));
+        request.setLanes(List.of(new CasepackOptimizerRequest.Lane("store1", "wh1",
+                MinCostSourcingFlow.maxLaneCost(1, 1) + 1)));
+
+        assertThrows(IllegalArgumentException.class, () -> service.optimizeCasepacks(request));
+    }
+
+    @Test
+    void testLocationsSourceFromNearestWarehouseWithStock() {
+        Map<String, Integer> stores = new LinkedHashMap<>();
+        stores.put("north", 30);
+        stores.put("south", 30);
+        Map<String, Integer> warehouses = new LinkedHashMap<>();
+        warehouses.put("whNorth", 4);
+        warehouses.put("whSouth", 2);
+        CasepackOptimizerRequest request = createRequest(Arrays.asList(10), stores, warehouses);
+        request.setStoreLocations(Map.of(
+                "north", new CasepackOptimizerRequest.Location(60, 10),
+                "south", new CasepackOptimizerRequest.Location(-30, 20)));
+        request.setWarehouseLocations(Map.of(
+                "whNorth", new CasepackOptimizerRequest.Location(59, 11),
+                "whSouth", new CasepackOptimizerRequest.Location(-31, 21)));
+
+        CasepackOptimizerResponse response = service.optimizeCasepacks(request);
+
+        // whSouth runs dry after 2 packs, so south's last pack comes from the next nearest
+        assertEquals(List.of(
+                new CasepackOptimizerResponse.Shipment("north", "whNorth", 3),
+                new CasepackOptimizerResponse.Shipment("south", "whSouth", 2),
+                new CasepackOptimizerResponse.Shipment("south", "whNorth", 1)), response.getSourcing());
+    }
+
+    @Test
+    void testLocationsMustCoverEverySite() {
+        CasepackOptimizerRequest request = createRequest(Arrays.asList(10),
+                Map.of("store1", 40), Map.of("wh1", 10, "wh2", 10));
+        request.setStoreLocations(Map.of("store1", new CasepackOptimizerRequest.Location(50, 8)));
+        request.setWarehouseLocations(Map.of("wh1", new CasepackOptimizerRequest.Location(51, 7)));
+
+        assertThrows(IllegalArgumentException.class, () -> service.optimizeCasepacks(request));
+
+        request.setWarehouseLocations(Map.of(
+                "wh1", new CasepackOptimizerRequest.Location(51, 7),
+                "wh2", new CasepackOptimizerRequest.Location(91, 7)));
+        assertThrows(IllegalArgumentException.class, () -> service.optimizeCasepacks(request));
+    }
+
     // Helper method to create request
     private CasepackOptimizerRequest createRequest(List<Integer> ratios,
                                                    Map<String, Integer> stores,